@@ -33,10 +33,16 @@ package com.negusoft.holoaccent;
 
 import android.content.Context;
 import android.content.res.Resources;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.TypedValue;
 import android.view.Window;
 
 import com.negusoft.holoaccent.dialog.DividerPainter;
 
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
 /**
  * Helper class to lazily initialize AccentResources from your activities. 
  * Simply add the following code to your activity in order to replace the 
@@ -56,6 +62,9 @@ import android.content.res.Resources;
  * 
  * In addition, it allows to easily prepare dialogs for display by calling: 
  * prepareDialog().
+ * <br/><br/>
+ * To avoid tinting the resources on the UI thread the first time they are 
+ * inflated, call prewarm() from Application.onCreate().
  */
 public class AccentHelper {
 
@@ -63,6 +72,14 @@ public class AccentHelper {
         public void onInitResources(AccentResources resources);
     }
 
+    public interface OnPrewarmListener {
+        /**
+         * Called on the main thread when the pre-warm is done.
+         * @param cancelled Whether it was cancelled before processing every resource.
+         */
+        public void onPrewarmFinished(boolean cancelled);
+    }
+
     public static final int COLOR_NO_OVERRIDE = 0;
 
     /**
@@ -75,6 +92,52 @@ public class AccentHelper {
             return null;
         return ((AccentResources)resources).getPalette();
     }
+
+    /**
+     * Generate the tinted resources and the intercepted drawables in the background, so
+     * they are ready when the first activity is inflated. The accent color is taken from
+     * the theme of the given context, usually the Application.
+     * @param executor The executor to run the work on, for example AsyncTask.THREAD_POOL_EXECUTOR.
+     * @param listener Listener to be notified when it is done, or null.
+     * @return The task, which can be used to cancel it.
+     */
+    public static PrewarmTask prewarm(Context c, Executor executor, OnPrewarmListener listener) {
+        return prewarm(c, COLOR_NO_OVERRIDE, executor, listener);
+    }
+
+    /**
+     * Same as prewarm(Context, Executor, OnPrewarmListener) but for an explicit color.
+     * @param color The color to override, or COLOR_NO_OVERRIDE to take it from the theme.
+     */
+    public static PrewarmTask prewarm(Context c, int color, Executor executor, OnPrewarmListener listener) {
+        return prewarm(c, color, 0, 0, null, executor, listener);
+    }
+
+    /**
+     * Same as prewarm(Context, Executor, OnPrewarmListener), configured as the activities
+     * configure their AccentHelper, so the work done is the one they would do.
+     * <br/><br/>
+     * The colors that are not overridden are read from the theme of the given context. If
+     * the activities use a different theme than the Application, pass a ContextThemeWrapper
+     * with it. Otherwise the palette might not match and nothing will be reused.
+     * @param color The color to override, or COLOR_NO_OVERRIDE to take it from the theme.
+     * @param colorDark The dark version to override, or 0 (see AccentHelper(int, int, int)).
+     * @param colorActionBar The action bar version to override, or 0.
+     * @param initListener Called before starting, on the calling thread, to add the custom
+     *                     tint resources ids and the rest of the configuration. Or null.
+     * @param executor The executor to run the work on, for example AsyncTask.THREAD_POOL_EXECUTOR.
+     * @param listener Listener to be notified when it is done, or null.
+     * @return The task, which can be used to cancel it.
+     */
+    public static PrewarmTask prewarm(Context c, int color, int colorDark, int colorActionBar,
+            OnInitListener initListener, Executor executor, OnPrewarmListener listener) {
+        AccentResources resources = new AccentResources(c, c.getResources(), color, colorDark, colorActionBar);
+        if (initListener != null)
+            initListener.onInitResources(resources);
+        PrewarmTask task = new PrewarmTask(resources, listener);
+        executor.execute(task);
+        return task;
+    }
 	
 	private AccentResources mAccentResources;
 	private DividerPainter mDividerPainter;
@@ -161,4 +224,91 @@ public class AccentHelper {
         return new AccentResources(c, resources, mOverrideColor, mOverrideColorDark, mOverrideColorActionBar);
 	}
 
+    /**
+     * Opens the tinted resources, including the custom ones, so the tint cache is filled.
+     * Then it gets the drawables of the default interceptors, as their states are shared
+     * with the activities. It checks for cancellation between resources.
+     */
+    public static class PrewarmTask implements Runnable {
+
+        private final AccentResources mResources;
+        private final OnPrewarmListener mListener;
+        private final Handler mHandler;
+
+        private volatile boolean mCancelled;
+        private volatile boolean mFinished;
+
+        PrewarmTask(AccentResources resources, OnPrewarmListener listener) {
+            mResources = resources;
+            mListener = listener;
+            mHandler = new Handler(Looper.getMainLooper());
+        }
+
+        /** Stop processing resources. The listener is still notified. */
+        public void cancel() {
+            mCancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return mCancelled;
+        }
+
+        /** @return Whether it is done, either completely or because it was cancelled. */
+        public boolean isFinished() {
+            return mFinished;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (!mCancelled)
+                    prewarmTintedResources();
+                if (!mCancelled)
+                    prewarmInterceptedDrawables();
+            } finally {
+                mFinished = true;
+                notifyListener();
+            }
+        }
+
+        private void prewarmTintedResources() {
+            TypedValue value = new TypedValue();
+            for (int id : mResources.getTintedResourceIds()) {
+                if (mCancelled)
+                    return;
+                try {
+                    mResources.openRawResource(id, value).close();
+                } catch (Resources.NotFoundException e) {
+                    // Nothing to prepare for this one
+                } catch (IOException e) {
+                    // Nothing to prepare for this one
+                }
+            }
+        }
+
+        private void prewarmInterceptedDrawables() {
+            for (int id : mResources.getSharedDrawableIds()) {
+                if (mCancelled)
+                    return;
+                try {
+                    mResources.getDrawable(id);
+                } catch (Resources.NotFoundException e) {
+                    // Nothing to prepare for this one
+                }
+            }
+        }
+
+        private void notifyListener() {
+            if (mListener == null)
+                return;
+            final boolean cancelled = mCancelled;
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    mListener.onPrewarmFinished(cancelled);
+                }
+            });
+        }
+    }
+
 }
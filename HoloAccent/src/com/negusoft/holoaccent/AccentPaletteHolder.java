@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.WeakHashMap;
+
+/**
+ * Holds the palette used by AccentResources, so it can be replaced at runtime.
+ * The same instance can be set to several AccentResources (see
+ * AccentResources.setPaletteHolder()) to change the color of all of them at once.
+ * <br/><br/>
+ * The listeners are weakly referenced, so they don't need to be removed.
+ */
+public class AccentPaletteHolder {
+
+	public interface OnPaletteChangedListener {
+		public void onPaletteChanged(AccentPalette palette);
+	}
+
+	private volatile AccentPalette mPalette;
+
+	private final WeakHashMap<OnPaletteChangedListener, Boolean> mListeners =
+			new WeakHashMap<OnPaletteChangedListener, Boolean>();
+
+	public AccentPaletteHolder(AccentPalette palette) {
+		if (palette == null)
+			throw new IllegalArgumentException("palette == null");
+		mPalette = palette;
+	}
+
+	public AccentPalette getPalette() {
+		return mPalette;
+	}
+
+	/**
+	 * Replace the palette and notify the listeners. Call it from the main thread, as
+	 * the drawables using the palette invalidate themselves from the listener.
+	 */
+	public void setPalette(AccentPalette palette) {
+		if (palette == null)
+			throw new IllegalArgumentException("palette == null");
+		mPalette = palette;
+
+		List<OnPaletteChangedListener> listeners;
+		synchronized (mListeners) {
+			listeners = new ArrayList<OnPaletteChangedListener>(mListeners.keySet());
+		}
+		for (OnPaletteChangedListener listener : listeners)
+			listener.onPaletteChanged(palette);
+	}
+
+	public void addListener(OnPaletteChangedListener listener) {
+		synchronized (mListeners) {
+			mListeners.put(listener, Boolean.TRUE);
+		}
+	}
+
+	public void removeListener(OnPaletteChangedListener listener) {
+		synchronized (mListeners) {
+			mListeners.remove(listener);
+		}
+	}
+
+}
@@ -15,42 +15,48 @@
  ******************************************************************************/
 package com.negusoft.holoaccent;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.graphics.Bitmap;
-import android.graphics.Bitmap.CompressFormat;
 import android.graphics.BitmapFactory;
 import android.graphics.PorterDuff;
 import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
 import android.util.TypedValue;
 
+import com.negusoft.holoaccent.drawable.RasterCache;
 import com.negusoft.holoaccent.interceptor.AccentColorInterceptor;
 import com.negusoft.holoaccent.interceptor.ActionBarBackgroundInterceptor;
-import com.negusoft.holoaccent.interceptor.CircleInterceptor;
-import com.negusoft.holoaccent.interceptor.ContactBadgeInterceptor;
-import com.negusoft.holoaccent.interceptor.FastScrollInterceptor;
-import com.negusoft.holoaccent.interceptor.IndeterminateInterceptor;
-import com.negusoft.holoaccent.interceptor.NativeInterceptor;
-import com.negusoft.holoaccent.interceptor.PagerTabStripInterceptor;
-import com.negusoft.holoaccent.interceptor.RectInterceptor;
-import com.negusoft.holoaccent.interceptor.RoundRectInterceptor;
-import com.negusoft.holoaccent.interceptor.ScrubberInterceptor;
-import com.negusoft.holoaccent.interceptor.SearchViewTextFieldInterceptor;
-import com.negusoft.holoaccent.interceptor.SolidColorInterceptor;
-import com.negusoft.holoaccent.interceptor.SpinnerInterceptor;
-import com.negusoft.holoaccent.interceptor.ToggleInterceptor;
-import com.negusoft.holoaccent.interceptor.UnderlineInterceptor;
+import com.negusoft.holoaccent.util.AlphaSpans;
+import com.negusoft.holoaccent.util.BitmapPixelBuffer;
+import com.negusoft.holoaccent.util.BitmapPixelRows;
+import com.negusoft.holoaccent.util.BitmapPool;
 import com.negusoft.holoaccent.util.BitmapUtils;
 import com.negusoft.holoaccent.util.NativeResources;
+import com.negusoft.holoaccent.util.PixelRows;
+import com.negusoft.holoaccent.util.PixelTiles;
+import com.negusoft.holoaccent.util.PretintedAssets;
+import com.negusoft.holoaccent.util.TintCache;
+import com.negusoft.holoaccent.util.TintDiskCache;
+import com.negusoft.holoaccent.util.TintKernels;
+import com.negusoft.holoaccent.util.UncompressedPngEncoder;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Extends the default android Resources to replace and modify 
@@ -71,6 +77,16 @@ public class AccentResources extends Resources {
 		public Drawable getDrawable(Resources res, AccentPalette palette, int resId);
 	}
 
+	/**
+	 * Interceptor that declares the drawable ids it handles. It is only queried 
+	 * for those ids, which are resolved by a single lookup instead of going 
+	 * through the interceptors one by one.
+	 */
+	public interface IdentifiedInterceptor extends Interceptor {
+		/** @return The ids of the drawables this interceptor might replace. */
+		public int[] getDrawableIds();
+	}
+
     public interface ColorInterceptor {
         /** @return The color to be replaced or 0 to continue the normal flow. */
         public int getColor(Resources res, AccentPalette palette, int resId);
@@ -87,6 +103,23 @@ public class AccentResources extends Resources {
 		R.drawable.ha__btn_check_comp_on_focus,
 		R.drawable.ha__progress_comp_primary
 	};
+
+	/**
+	 * The &lt;bitmap&gt; drawables referencing the resources in TINT_DRAWABLE_IDS, in 
+	 * the same order. The XML drawables reference them instead of the resources, so 
+	 * the color filter mode can replace them through getDrawable().
+	 */
+	private static final int[] TINT_BITMAP_DRAWABLE_IDS = new int[] {
+		R.drawable.ha__textfield_comp_activated_left_bitmap,
+		R.drawable.ha__textfield_comp_activated_main_bitmap,
+		R.drawable.ha__textfield_comp_activated_right_bitmap,
+		R.drawable.ha__textfield_comp_focused_left_bitmap,
+		R.drawable.ha__textfield_comp_focused_main_bitmap,
+		R.drawable.ha__textfield_comp_focused_right_bitmap,
+		R.drawable.ha__btn_check_comp_off_focus_bitmap,
+		R.drawable.ha__btn_check_comp_on_focus_bitmap,
+		R.drawable.ha__progress_primary
+	};
 	
 	private static final int[] TINT_TRANSFORMATION_DRAWABLE_IDS = new int[] {
 		R.drawable.ha__text_select_handle_middle_transformation,
@@ -97,21 +130,52 @@ public class AccentResources extends Resources {
 		R.drawable.ha__btn_radio_comp_dot_transformation
 	};
 
+	/** Tinted resources shared by all the instances, as they are keyed by color and density. */
+	private static final TintCache sTintCache = new TintCache();
+	/** 
+	 * The color in the cache keys of the alpha masks, as they are shared by every color. 
+	 * The ids in mTintDrawableIds are only cached as masks, so they never collide. 
+	 */
+	private static final int ALPHA_MASK_KEY_COLOR = 0;
+	private static volatile TintDiskCache sTintDiskCache;
+
+	/** The non transparent spans of the transformation maps, by resource id and density (see getAlphaSpans()). */
+	private static final int MAX_ALPHA_SPANS = 32;
+	private static final Map<Long, AlphaSpans> sAlphaSpans =
+			new LinkedHashMap<Long, AlphaSpans>(MAX_ALPHA_SPANS, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, AlphaSpans> eldest) {
+			return size() > MAX_ALPHA_SPANS;
+		}
+	};
+
+	/** Bitmaps to decode the resources to be tinted into, drained when memory is low. */
+	private static final BitmapPool sBitmapPool = new BitmapPool();
+	private static final AtomicBoolean sTrimCallbacksRegistered = new AtomicBoolean();
+
+	/** Colors with tinted resources generated at build time, listed on first use. */
+	private static volatile Set<String> sPretintedColors;
+
 	private final Context mContext;
 	private final int mExplicitColor;
     private final int mExplicitColorDark;
     private final int mExplicitColorActionBar;
 
-    private final List<Interceptor> mInterceptors = new ArrayList<Interceptor>();
-    private final List<ColorInterceptor> mColorInterceptors = new ArrayList<ColorInterceptor>();
+    /** Custom interceptors and the ones depending on the Activity, before the shared ones. */
+    private final DrawableInterceptors mInterceptors = new DrawableInterceptors();
+    private final List<ColorInterceptor> mColorInterceptors = new CopyOnWriteArrayList<ColorInterceptor>();
 
     private List<Integer> mCustomTintDrawableIds;
     private List<Integer> mCustomTransformationDrawableIds;
     private int[] mTintDrawableIds;
     private int[] mTransformationDrawableIds;
 	
-	private boolean mInitialized = false;
-	private AccentPalette mPalette;
+	/** Written last in initialize(), so the fields below are visible when it is set. */
+	private volatile boolean mInitialized = false;
+	private volatile AccentPaletteHolder mPaletteHolder;
+	private volatile PaletteBinding mBinding;
+	private volatile boolean mLivePaletteEnabled = false;
+	private boolean mColorFilterTintEnabled = false;
 	
 	public AccentResources(Context c, Resources resources) {
 		super(resources.getAssets(), resources.getDisplayMetrics(), resources.getConfiguration());
@@ -151,13 +215,40 @@ public class AccentResources extends Resources {
 	private synchronized void initialize(Context c, int explicitColor, int explicitColorDark, int explicitColorActionBar) {
 		if (mInitialized)
 			return;
-		mPalette = initPalette(c, explicitColor, explicitColorDark, explicitColorActionBar);
+		if (mPaletteHolder == null)
+			mPaletteHolder = new AccentPaletteHolder(initPalette(c, explicitColor, explicitColorDark, explicitColorActionBar));
+		mBinding = new PaletteBinding(mPaletteHolder.getPalette(), this);
         mTintDrawableIds = appendDrawableIds(TINT_DRAWABLE_IDS, mCustomTintDrawableIds);
         mTransformationDrawableIds = appendDrawableIds(TINT_TRANSFORMATION_DRAWABLE_IDS, mCustomTransformationDrawableIds);
 		addInterceptors(c);
+		registerTrimCallbacks(c);
 		mInitialized = true;
 	}
 
+	/**
+	 * @return The palette and the shared state for it, updated if the palette 
+	 * in the holder has been replaced.
+	 */
+	private PaletteBinding getBinding() {
+		PaletteBinding binding = mBinding;
+		if (binding.palette != mPaletteHolder.getPalette())
+			binding = rebind();
+		return binding;
+	}
+
+	/**
+	 * Switch to the shared state of the new palette. The drawable states of this 
+	 * instance are the only cache to clear, as the rest are keyed by the palette.
+	 */
+	private synchronized PaletteBinding rebind() {
+		AccentPalette palette = mPaletteHolder.getPalette();
+		if (mBinding.palette != palette) {
+			mInterceptors.clearDrawableStates();
+			mBinding = new PaletteBinding(palette, this);
+		}
+		return mBinding;
+	}
+
     private int[] appendDrawableIds(int[] defaults, List<Integer> custom) {
         if (custom == null)
             return defaults;
@@ -171,6 +262,13 @@ public class AccentResources extends Resources {
 
         return result;
     }
+
+    private static int[] concatDrawableIds(int[] first, int[] second) {
+        int[] result = new int[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
 	
 	private AccentPalette initPalette(Context c, int explicitColor, int explicitColorDark, int explicitColorActionBar) {
 		TypedArray attrs = c.getTheme().obtainStyledAttributes(R.styleable.HoloAccent);
@@ -188,23 +286,14 @@ public class AccentResources extends Resources {
 		return new AccentPalette(color, colorDark, colorActionBar);
 	}
 	
+	/**
+	 * Add the interceptors that depend on this instance. The rest of the default 
+	 * ones are in the shared state.
+	 */
 	private void addInterceptors(Context c) {
-		mInterceptors.add(new ToggleInterceptor());
-		mInterceptors.add(new UnderlineInterceptor());
-		mInterceptors.add(new SolidColorInterceptor());
-		mInterceptors.add(new RectInterceptor());
-		mInterceptors.add(new RoundRectInterceptor());
-		mInterceptors.add(new CircleInterceptor());
-		mInterceptors.add(new ScrubberInterceptor());
-		mInterceptors.add(new FastScrollInterceptor());
-		mInterceptors.add(new IndeterminateInterceptor());
-		mInterceptors.add(new SpinnerInterceptor());
-		mInterceptors.add(new SearchViewTextFieldInterceptor());
-        mInterceptors.add(new NativeInterceptor());
-        mInterceptors.add(new ActionBarBackgroundInterceptor(mContext));
-        mInterceptors.add(new PagerTabStripInterceptor());
-        mInterceptors.add(new ContactBadgeInterceptor());
-        mInterceptors.add(new OverScrollInterceptor());
+        mInterceptors.add(new ActionBarBackgroundInterceptor(c));
+        if (mColorFilterTintEnabled)
+            mInterceptors.add(new ColorFilterTintInterceptor(concatDrawableIds(TINT_BITMAP_DRAWABLE_IDS, mTintDrawableIds)));
 
         mColorInterceptors.add(new AccentColorInterceptor());
 	}
@@ -212,11 +301,12 @@ public class AccentResources extends Resources {
     @Override
     public int getColor(int resId) throws NotFoundException {
         checkInitialized();
+        AccentPalette palette = getBinding().palette;
 
         // Give a chance to the interceptors to replace the drawable
         int result;
         for(ColorInterceptor interceptor : mColorInterceptors) {
-            result = interceptor.getColor(this, mPalette, resId);
+            result = interceptor.getColor(this, palette, resId);
             if (result != 0)
                 return result;
         }
@@ -229,28 +319,49 @@ public class AccentResources extends Resources {
 		checkInitialized();
 		
 		// Give a chance to the interceptors to replace the drawable
-		Drawable result;
-		for(Interceptor interceptor : mInterceptors) {
-			result = interceptor.getDrawable(this, mPalette, resId);
-			if (result != null)
-				return result;
+		PaletteBinding binding = getBinding();
+		Drawable result = getInterceptedDrawable(binding, resId);
+		if (result != null) {
+			if (mLivePaletteEnabled)
+				return LivePaletteDrawable.wrap(this, resId, binding.palette, result);
+			return result;
 		}
 		
 		return super.getDrawable(resId);
 	}
+
+	/** @return The drawable returned by the interceptors for the current palette, or null. */
+	Drawable getInterceptedDrawable(int resId) {
+		checkInitialized();
+		return getInterceptedDrawable(getBinding(), resId);
+	}
+
+	private Drawable getInterceptedDrawable(PaletteBinding binding, int resId) {
+		Drawable result = mInterceptors.getDrawable(this, binding.palette, resId);
+		if (result == null)
+			result = binding.sharedState.interceptors.getDrawable(this, binding.palette, resId);
+		return result;
+	}
 	
 	@Override
 	public InputStream openRawResource(int resId, TypedValue value)
 			throws NotFoundException {
 		checkInitialized();
 		
+		// The color filter is applied to the drawables referencing them instead
+		if (mColorFilterTintEnabled) {
+			for (int id : TINT_DRAWABLE_IDS) {
+				if (resId == id)
+					return super.openRawResource(resId, value);
+			}
+		}
 		for (int id : mTintDrawableIds) {
 			if (resId == id)
-				return getTintendResourceStream(resId, value, mPalette.accentColor);
+				return getTintendResourceStream(resId, value, getBinding().palette.accentColor);
 		}
 		for (int id : mTransformationDrawableIds) {
 			if (resId == id)
-				return getTintTransformationResourceStream(resId, value, mPalette.accentColor);
+				return getTintTransformationResourceStream(resId, value, getBinding().palette.accentColor);
 		}
 		return super.openRawResource(resId, value);
 	}
@@ -260,15 +371,77 @@ public class AccentResources extends Resources {
      */
     public AccentPalette getPalette() {
         checkInitialized();
-        return mPalette;
+        return getBinding().palette;
     }
 
     /**
-     * Add a drawable interceptor. They are evaluated in the order they are added, and before the
-     * default interceptors.
+     * Replace the palette at runtime. With setLivePaletteEnabled(true), the drawables
+     * of the library resolve their colors for the new palette from here and are
+     * invalidated, and the rest of the drawables created by the interceptors are
+     * replaced by the ones for the new palette. With setColorFilterTintEnabled(true)
+     * too, so are the "tint" resources. The transformation maps are tinted when they are decoded, and the
+     * colors returned by getColor() are plain values, so the views that already use
+     * them keep the previous palette: add a listener to the palette holder to apply
+     * those colors again. Call it from the main thread.
+     */
+    public void setPalette(AccentPalette palette) {
+        getPaletteHolder().setPalette(palette);
+    }
+
+    /** @return The holder of the palette used by this instance. */
+    public AccentPaletteHolder getPaletteHolder() {
+        checkInitialized();
+        return mPaletteHolder;
+    }
+
+    /**
+     * Use the palette in the given holder instead of the one in the theme. Set the
+     * same holder to several instances to change the palette of all of them at once.
+     */
+    public synchronized void setPaletteHolder(AccentPaletteHolder holder) {
+        if (holder == null)
+            throw new IllegalArgumentException("holder == null");
+        mPaletteHolder = holder;
+    }
+
+    /**
+     * Make the drawables created by the interceptors follow the palette when it is
+     * replaced with setPalette(). It only affects the drawables created afterwards,
+     * so enable it before inflating any view (e.g. from OnInitListener). Disabled by
+     * default, as it wraps every intercepted drawable. The wrappers of Animatable
+     * drawables are Animatable too, and getCurrent() returns the wrapped drawable.
+     */
+    public void setLivePaletteEnabled(boolean enabled) {
+        mLivePaletteEnabled = enabled;
+    }
+
+    /**
+     * Apply the accent color to the "tint" resources with a color filter, instead of 
+     * tinting a copy of their pixels. The library drawables reference them through 
+     * &lt;bitmap&gt; drawables (e.g. ha__btn_check_comp_on_focus_bitmap), which are 
+     * replaced in getDrawable() by the original bitmap with the filter. The bitmap is 
+     * decoded once and shared by every color, and nothing is encoded.
+     * <br/><br/>
+     * The resources added with addTintResourceId() and the transformation maps are 
+     * tinted as before, as they may be referenced from a &lt;bitmap android:src="..."&gt; 
+     * that is decoded by the framework without going through getDrawable(). Disabled 
+     * by default.
+     * @throws IllegalStateException If it is called after the instance was initialized, 
+     * which happens when the first resource is requested. Call it from OnInitListener.
+     */
+    public synchronized void setColorFilterTintEnabled(boolean enabled) {
+        if (mInitialized)
+            throw new IllegalStateException("The color filter mode must be set before the resources are initialized");
+        mColorFilterTintEnabled = enabled;
+    }
+
+    /**
+     * Add a drawable interceptor. It is evaluated before the ones added previously, and before
+     * the default interceptors. Implement IdentifiedInterceptor to have it asked only for the
+     * ids it declares, keeping the same precedence.
      */
     public void addInterceptor(Interceptor interceptor) {
-        mInterceptors.add(0, interceptor);
+        mInterceptors.addFirst(interceptor);
     }
 
     /**
@@ -280,72 +453,351 @@ public class AccentResources extends Resources {
     }
 
     /** Add a drawable resource to which to apply the "tint" technique. */
-    public void addTintResourceId(int resId) {
+    public synchronized void addTintResourceId(int resId) {
         if (mCustomTintDrawableIds == null)
             mCustomTintDrawableIds = new ArrayList<Integer>();
         mCustomTintDrawableIds.add(resId);
     }
 
     /** Add a drawable resource to which to apply the "tint transformation" technique. */
-    public void addTintTransformationResourceId(int resId) {
+    public synchronized void addTintTransformationResourceId(int resId) {
         if (mCustomTransformationDrawableIds == null)
             mCustomTransformationDrawableIds = new ArrayList<Integer>();
         mCustomTransformationDrawableIds.add(resId);
     }
 	
+    /** @return The ids of the resources tinted when opened, including the custom ones. */
+    int[] getTintedResourceIds() {
+        checkInitialized();
+        return concatDrawableIds(mTintDrawableIds, mTransformationDrawableIds);
+    }
+
+    /**
+     * @return The ids declared by the default interceptors. Their drawable states are shared
+     * by every instance with the same palette, unlike the ones of this instance's interceptors.
+     */
+    int[] getSharedDrawableIds() {
+        checkInitialized();
+        return getBinding().sharedState.interceptors.getDrawableIds();
+    }
+
+    /** @return The cache holding the tinted resources, to access its statistics. */
+    public static TintCache getTintCache() {
+        return sTintCache;
+    }
+
+    /** @return The pool of bitmaps the resources are decoded into, to access its reuse rate. */
+    public static BitmapPool getBitmapPool() {
+        return sBitmapPool;
+    }
+
+    /** Drain the bitmap pool and the raster cache when the system asks to trim memory. Registered only once. */
+    private static void registerTrimCallbacks(Context c) {
+        if (!sTrimCallbacksRegistered.compareAndSet(false, true))
+            return;
+        Context appContext = c.getApplicationContext();
+        (appContext != null ? appContext : c).registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                sBitmapPool.evictAll();
+                RasterCache.evictAll();
+            }
+
+            @Override
+            public void onLowMemory() {
+                sBitmapPool.evictAll();
+                RasterCache.evictAll();
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) { }
+        });
+    }
+
+    /**
+     * Persist the tinted resources in the application's cache directory, so they don't
+     * need to be generated again on the next launch. Call it before any AccentResources
+     * instance is used, for example from Application.onCreate().
+     */
+    public static void enableTintDiskCache(Context c) {
+        setTintDiskCache(TintDiskCache.open(c.getApplicationContext()));
+    }
+
+    /** Set the persistent cache for the tinted resources, or null to disable it. */
+    public static void setTintDiskCache(TintDiskCache diskCache) {
+        sTintDiskCache = diskCache;
+    }
+	
 	/**
 	 * Get a reference to a resource that is equivalent to the one requested, 
-	 * but with the accent color applied to it.
+	 * but with the accent color applied to it. Only the alpha values are kept, as 
+	 * an alpha mask shared by every color (see UncompressedPngEncoder).
 	 */
-	private InputStream getTintendResourceStream(int id, TypedValue value, int color) {
+	private InputStream getTintendResourceStream(final int id, final TypedValue value, final int color) {
 		checkInitialized();
 
-		Bitmap bitmap = getBitmapFromResource(id, value);
-		bitmap = BitmapUtils.applyColor(bitmap, color);
-		return getStreamFromBitmap(bitmap);
+		final int density = fillTintedValue(id, value);
+		byte[] mask = sTintCache.get(id, ALPHA_MASK_KEY_COLOR, density, new TintCache.Loader() {
+			@Override
+			public byte[] load() {
+				return loadAlphaMask(id, value, density);
+			}
+		});
+		return UncompressedPngEncoder.openAlphaMask(mask, color);
 	}
 	
 	/**
 	 * Get a reference to a resource that is equivalent to the one requested, 
 	 * but changing the tint from the original red to the given color.
 	 */
-	private InputStream getTintTransformationResourceStream(int id, TypedValue value, int color) {
+	private InputStream getTintTransformationResourceStream(final int id, final TypedValue value, final int color) {
 		checkInitialized();
-		
+
+		final int density = fillTintedValue(id, value);
+		byte[] data = sTintCache.get(id, color, density, new TintCache.Loader() {
+			@Override
+			public byte[] load() {
+				return loadTintedResource(id, value, color, density);
+			}
+		});
+		return new ByteArrayInputStream(data);
+	}
+
+	/**
+	 * Generate the alpha mask of the resource, or read it from the disk cache 
+	 * if it is enabled and it was generated before.
+	 */
+	private byte[] loadAlphaMask(int id, TypedValue value, int density) {
+		TintDiskCache diskCache = sTintDiskCache;
+		if (diskCache != null) {
+			byte[] data = diskCache.get(id, ALPHA_MASK_KEY_COLOR, density);
+			if (data != null)
+				return data;
+		}
+
+		// Encode the decoded bitmap a band of rows at a time, without copying its pixels
 		Bitmap bitmap = getBitmapFromResource(id, value);
-		bitmap = BitmapUtils.processTintTransformationMap(bitmap, color);
-		return getStreamFromBitmap(bitmap);
+		byte[] data;
+		try {
+			data = UncompressedPngEncoder.encodeAlphaMask(new BitmapPixelRows(bitmap));
+		} finally {
+			sBitmapPool.put(bitmap);
+		}
+
+		if (diskCache != null)
+			diskCache.put(id, ALPHA_MASK_KEY_COLOR, density, data);
+		return data;
+	}
+
+	/**
+	 * Generate the tinted version of the transformation map, or read it from the 
+	 * disk cache if it is enabled and it was generated before.
+	 */
+	private byte[] loadTintedResource(int id, TypedValue value, int color, int density) {
+		byte[] pretinted = getPretintedResource(id, color);
+		if (pretinted != null)
+			return pretinted;
+
+		TintDiskCache diskCache = sTintDiskCache;
+		if (diskCache != null) {
+			byte[] data = diskCache.get(id, color, density);
+			if (data != null)
+				return data;
+		}
+
+		// Tint the pixels of the decoded bitmap a band of rows at a time as they are 
+		// encoded, so neither a copy of them nor a bitmap for the result is created. 
+		// Only the pixels that are not transparent are tinted.
+		Bitmap bitmap = getBitmapFromResource(id, value);
+		byte[] data;
+		try {
+			PixelRows rows = new BitmapPixelRows(bitmap);
+			AlphaSpans spans = getAlphaSpans(id, density, rows);
+			PixelTiles.Kernel kernel = TintKernels.processTintTransformationMapKernel(color);
+			PixelTiles pixelTiles = BitmapUtils.getPixelTiles();
+			if (pixelTiles != null && spans.getTotalPixelCount() >= pixelTiles.getThreshold()) {
+				// Processing it in parallel tiles needs every pixel in a single array
+				BitmapPixelBuffer buffer = new BitmapPixelBuffer(bitmap);
+				TintKernels.apply(buffer, spans.restrict(kernel), pixelTiles);
+				data = UncompressedPngEncoder.encode(buffer);
+			} else {
+				data = UncompressedPngEncoder.encode(spans.restrict(rows, kernel));
+			}
+		} finally {
+			sBitmapPool.put(bitmap);
+		}
+
+		if (diskCache != null)
+			diskCache.put(id, color, density, data);
+		return data;
+	}
+
+	/**
+	 * Get the spans of the resource, computing them from its pixels the first time. 
+	 * The same id and density may decode to a different size (e.g. after a 
+	 * configuration change picks another qualifier), so the cached spans are only 
+	 * used if they match the size of the rows, and computed again otherwise.
+	 */
+	private static AlphaSpans getAlphaSpans(int id, int density, PixelRows rows) {
+		Long key = ((long)id << 32) | (density & 0xFFFFFFFFL);
+		synchronized (sAlphaSpans) {
+			AlphaSpans result = sAlphaSpans.get(key);
+			if (result == null || !result.matches(rows.getWidth(), rows.getHeight())) {
+				result = AlphaSpans.compute(rows);
+				sAlphaSpans.put(key, result);
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Read the tinted resource from the assets if it was generated at build time 
+	 * for the given color (see PretintedAssets).
+	 * @return The resource data or null if it is not available.
+	 */
+	private byte[] getPretintedResource(int id, int color) {
+		if (!getPretintedColors().contains(PretintedAssets.getColorName(color)))
+			return null;
+
+		// The resources are generated for the density bucket of the original
+		TypedValue original = new TypedValue();
+		getValue(id, original, true);
+		String path = PretintedAssets.getPath(getResourceEntryName(id), color, original.density);
+		try {
+			return PretintedAssets.readFully(getAssets().open(path));
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private Set<String> getPretintedColors() {
+		Set<String> colors = sPretintedColors;
+		if (colors != null)
+			return colors;
+
+		try {
+			String[] names = getAssets().list(PretintedAssets.ROOT);
+			colors = names != null ? new HashSet<String>(Arrays.asList(names)) : Collections.<String>emptySet();
+		} catch (IOException e) {
+			colors = Collections.emptySet();
+		}
+		sPretintedColors = colors;
+		return colors;
+	}
+
+	/**
+	 * Fill the TypedValue as opening the original resource would, even if the 
+	 * tinted version is taken from the cache.
+	 * @return The density the tinted bitmap is generated for.
+	 */
+	private int fillTintedValue(int resId, TypedValue value) {
+		int density = getDisplayMetrics().densityDpi;
+		getValue(resId, value, true);
+		value.density = density;
+		return density;
 	}
 	
+	/**
+	 * Decode the resource into a mutable bitmap, reusing one from the pool if there 
+	 * is one of the same size. Give it back to the pool once it is no longer used.
+	 */
 	private Bitmap getBitmapFromResource(int resId, TypedValue value) {
-		InputStream original = super.openRawResource(resId, value);
-		value.density = getDisplayMetrics().densityDpi;
 		final BitmapFactory.Options options = new BitmapFactory.Options();
         options.inDither = false;
         options.inScaled = false;
         options.inScreenDensity = getDisplayMetrics().densityDpi;
-		return BitmapFactory.decodeResourceStream(
-				this, value, original, 
-				new Rect(), options);
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        options.inMutable = true;
+
+        // Read the size first, to find a bitmap to reuse
+        options.inJustDecodeBounds = true;
+        decodeResource(resId, value, options);
+        options.inJustDecodeBounds = false;
+        options.inBitmap = sBitmapPool.get(options.outWidth, options.outHeight, Bitmap.Config.ARGB_8888);
+        if (options.inBitmap == null)
+            return decodeResource(resId, value, options);
+
+        try {
+            return decodeResource(resId, value, options);
+        } catch (IllegalArgumentException e) {
+            // The decoder can't reuse the bitmap (e.g. the image is not a PNG)
+            options.inBitmap.recycle();
+            options.inBitmap = null;
+            return decodeResource(resId, value, options);
+        }
 	}
-	
-	private InputStream getStreamFromBitmap(Bitmap bitmap) {
-		ByteArrayOutputStream bos = new ByteArrayOutputStream();
-		bitmap.compress(CompressFormat.PNG, 100 /*ignored for PNG*/, bos);
-		byte[] bitmapData = bos.toByteArray();
+
+	private Bitmap decodeResource(int resId, TypedValue value, BitmapFactory.Options options) {
+		InputStream original = super.openRawResource(resId, value);
+		value.density = getDisplayMetrics().densityDpi;
 		try {
-			bos.close();
-		} catch (IOException e) { /* ignore */}
-		
-		return new ByteArrayInputStream(bitmapData);
+			return BitmapFactory.decodeResourceStream(this, value, original, new Rect(), options);
+		} finally {
+			try {
+				original.close();
+			} catch (IOException e) {
+				// Nothing to do, it was read already
+			}
+		}
+	}
+	
+	/** A palette and the shared state for it. */
+	private static final class PaletteBinding {
+		final AccentPalette palette;
+		final AccentSharedState sharedState;
+
+		PaletteBinding(AccentPalette palette, Resources res) {
+			this.palette = palette;
+			int density = res.getDisplayMetrics().densityDpi;
+			int layoutDirection = res.getConfiguration().screenLayout & Configuration.SCREENLAYOUT_LAYOUTDIR_MASK;
+			this.sharedState = AccentSharedState.obtain(palette, density, layoutDirection);
+		}
+	}
+
+	/** Get the drawable without giving a chance to the interceptors to replace it. */
+	Drawable getOriginalDrawable(int resId) throws NotFoundException {
+		return super.getDrawable(resId);
 	}
 	
 	/**
-	 * Inner class holding the logic for applying a ColorFilter to the OverScroll 
-	 * drawables. It is implemented a an inner class because it needs to access 
-	 * the parents implementation of getDrawable().
+	 * Returns the "tint" resources, and the &lt;bitmap&gt; drawables referencing them, 
+	 * with a SRC_IN color filter set to the accent color. It has the same result as 
+	 * tinting their pixels with PixelUtils.applyColor(). The drawables are mutated, so 
+	 * the filter is kept in their constant state while the bitmap is still shared.
 	 */
-	private class OverScrollInterceptor implements Interceptor {
+	static class ColorFilterTintInterceptor implements IdentifiedInterceptor {
+
+		private final int[] mDrawableIds;
+
+		ColorFilterTintInterceptor(int[] drawableIds) {
+			mDrawableIds = drawableIds;
+		}
+
+		@Override
+		public int[] getDrawableIds() {
+			return mDrawableIds;
+		}
+
+		@Override
+		public Drawable getDrawable(Resources res, AccentPalette palette, int resId) {
+			Drawable result = ((AccentResources)res).getOriginalDrawable(resId).mutate();
+			result.setColorFilter(palette.accentColor, PorterDuff.Mode.SRC_IN);
+			return result;
+		}
+	}
+	
+	/**
+	 * Class holding the logic for applying a ColorFilter to the OverScroll 
+	 * drawables. It uses getOriginalDrawable() to get the original drawables 
+	 * that the filter is applied to.
+	 * <br/><br/>
+	 * It is shared by every AccentResources instance with the same palette (see 
+	 * AccentSharedState), so only the constant states of the original drawables 
+	 * are cached, which don't reference the resources they were loaded from. Every 
+	 * call returns a new mutated drawable with the filter, as each EdgeEffect sets 
+	 * its own bounds and alpha to it.
+	 */
+	static class OverScrollInterceptor implements IdentifiedInterceptor {
 
 		private static final String RESOURCE_NAME_EDGE = "overscroll_edge";
 		private static final String RESOURCE_NAME_GLOW = "overscroll_glow";
@@ -353,37 +805,61 @@ public class AccentResources extends Resources {
 		private final int mOverscrollEdgeId;
 		private final int mOverscrollGlowId;
 
-        private Drawable mOverscrollEdgeDrawable;
-        private Drawable mOverscrollGlowDrawable;
+		private volatile Drawable.ConstantState mOverscrollEdgeState;
+		private volatile Drawable.ConstantState mOverscrollGlowState;
 		
 		public OverScrollInterceptor() {
-            mOverscrollEdgeId = NativeResources.getDrawableIdentifier(RESOURCE_NAME_EDGE);
-            mOverscrollGlowId = NativeResources.getDrawableIdentifier(RESOURCE_NAME_GLOW);
+			mOverscrollEdgeId = NativeResources.getDrawableIdentifier(RESOURCE_NAME_EDGE);
+			mOverscrollGlowId = NativeResources.getDrawableIdentifier(RESOURCE_NAME_GLOW);
+		}
+
+		@Override
+		public int[] getDrawableIds() {
+			return new int[] { mOverscrollEdgeId, mOverscrollGlowId };
 		}
 
 		@Override
 		public Drawable getDrawable(Resources res, AccentPalette palette, int resId) {
 			if (resId == mOverscrollEdgeId)
-				return getEdgeDrawable();
+				return createDrawable(res, palette, getEdgeState((AccentResources)res));
 			if (resId == mOverscrollGlowId)
-				return getGlowDrawable();
+				return createDrawable(res, palette, getGlowState((AccentResources)res));
 			return null;
 		}
 		
-		private Drawable getEdgeDrawable() {
-            if (mOverscrollEdgeDrawable == null) {
-                mOverscrollEdgeDrawable = AccentResources.super.getDrawable(R.drawable.ha__overscroll_edge);
-                mOverscrollEdgeDrawable.setColorFilter(mPalette.accentColor, PorterDuff.Mode.MULTIPLY);
-            }
-			return mOverscrollEdgeDrawable;
+		private Drawable.ConstantState getEdgeState(AccentResources res) {
+			Drawable.ConstantState result = mOverscrollEdgeState;
+			if (result == null) {
+				synchronized (this) {
+					result = mOverscrollEdgeState;
+					if (result == null) {
+						result = res.getOriginalDrawable(R.drawable.ha__overscroll_edge).getConstantState();
+						mOverscrollEdgeState = result;
+					}
+				}
+			}
+			return result;
 		}
 		
-		private Drawable getGlowDrawable() {
-            if (mOverscrollGlowDrawable == null) {
-                mOverscrollGlowDrawable = AccentResources.super.getDrawable(R.drawable.ha__overscroll_glow);
-                mOverscrollGlowDrawable.setColorFilter(mPalette.accentColor, PorterDuff.Mode.MULTIPLY);
-            }
-			return mOverscrollGlowDrawable;
+		private Drawable.ConstantState getGlowState(AccentResources res) {
+			Drawable.ConstantState result = mOverscrollGlowState;
+			if (result == null) {
+				synchronized (this) {
+					result = mOverscrollGlowState;
+					if (result == null) {
+						result = res.getOriginalDrawable(R.drawable.ha__overscroll_glow).getConstantState();
+						mOverscrollGlowState = result;
+					}
+				}
+			}
+			return result;
+		}
+
+		/** Mutated before the filter is set, so the cached state is never modified. */
+		private Drawable createDrawable(Resources res, AccentPalette palette, Drawable.ConstantState state) {
+			Drawable result = state.newDrawable(res).mutate();
+			result.setColorFilter(palette.accentColor, PorterDuff.Mode.MULTIPLY);
+			return result;
 		}
 	}
 
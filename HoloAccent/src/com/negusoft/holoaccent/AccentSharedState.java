@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent;
+
+import com.negusoft.holoaccent.interceptor.CircleInterceptor;
+import com.negusoft.holoaccent.interceptor.ContactBadgeInterceptor;
+import com.negusoft.holoaccent.interceptor.FastScrollInterceptor;
+import com.negusoft.holoaccent.interceptor.IndeterminateInterceptor;
+import com.negusoft.holoaccent.interceptor.NativeInterceptor;
+import com.negusoft.holoaccent.interceptor.PagerTabStripInterceptor;
+import com.negusoft.holoaccent.interceptor.RectInterceptor;
+import com.negusoft.holoaccent.interceptor.RoundRectInterceptor;
+import com.negusoft.holoaccent.interceptor.ScrubberInterceptor;
+import com.negusoft.holoaccent.interceptor.SearchViewTextFieldInterceptor;
+import com.negusoft.holoaccent.interceptor.SolidColorInterceptor;
+import com.negusoft.holoaccent.interceptor.SpinnerInterceptor;
+import com.negusoft.holoaccent.interceptor.ToggleInterceptor;
+import com.negusoft.holoaccent.interceptor.UnderlineInterceptor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The part of AccentResources that doesn't depend on the Activity: the palette,
+ * the default interceptors and the drawable states they produce. It is shared by
+ * every AccentResources instance with the same palette, screen density and layout
+ * direction, so recreating an Activity (e.g. on rotation) finds everything already
+ * generated.
+ * <br/><br/>
+ * The default interceptors don't depend on the theme: they are created without a
+ * Context, and only get the palette and the resources. The palette is the only
+ * value read from the theme, and the interceptors that read anything else from it
+ * (e.g. ActionBarBackgroundInterceptor) are kept in each AccentResources instance.
+ * From the configuration, they only depend on the density (the dimensions of the
+ * drawables, and the original bitmaps they use) and on the layout direction (the
+ * drawable-ldrtl variants of the native and overscroll drawables), which are part
+ * of the key. Any interceptor depending on something else must not be added here.
+ * <br/><br/>
+ * Only the most recently used states are kept, as each of them holds the drawables
+ * generated for its palette.
+ */
+class AccentSharedState {
+
+	private static final int MAX_SHARED_STATES = 4;
+
+	private static final Map<Key, AccentSharedState> sStates =
+			new LinkedHashMap<Key, AccentSharedState>(MAX_SHARED_STATES, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, AccentSharedState> eldest) {
+			return size() > MAX_SHARED_STATES;
+		}
+	};
+
+	/**
+	 * @return The state for the given palette and configuration, created if necessary.
+	 * @param density The density in dpi (DisplayMetrics.densityDpi).
+	 * @param layoutDirection The layout direction bits of Configuration.screenLayout.
+	 */
+	public static synchronized AccentSharedState obtain(AccentPalette palette, int density, int layoutDirection) {
+		Key key = new Key(palette, density, layoutDirection);
+		AccentSharedState result = sStates.get(key);
+		if (result == null) {
+			result = new AccentSharedState(palette);
+			sStates.put(key, result);
+		}
+		return result;
+	}
+
+	public final AccentPalette palette;
+	public final DrawableInterceptors interceptors = new DrawableInterceptors();
+
+	private AccentSharedState(AccentPalette palette) {
+		this.palette = palette;
+		interceptors.add(new ToggleInterceptor());
+		interceptors.add(new UnderlineInterceptor());
+		interceptors.add(new SolidColorInterceptor());
+		interceptors.add(new RectInterceptor());
+		interceptors.add(new RoundRectInterceptor());
+		interceptors.add(new CircleInterceptor());
+		interceptors.add(new ScrubberInterceptor());
+		interceptors.add(new FastScrollInterceptor());
+		interceptors.add(new IndeterminateInterceptor());
+		interceptors.add(new SpinnerInterceptor());
+		interceptors.add(new SearchViewTextFieldInterceptor());
+		interceptors.add(new NativeInterceptor());
+		interceptors.add(new PagerTabStripInterceptor());
+		interceptors.add(new ContactBadgeInterceptor());
+		// It returns a new mutated drawable every time
+		interceptors.addUncached(new AccentResources.OverScrollInterceptor());
+	}
+
+	private static final class Key {
+		final int color;
+		final int colorDark;
+		final int colorActionBar;
+		final int density;
+		final int layoutDirection;
+
+		Key(AccentPalette palette, int density, int layoutDirection) {
+			this.color = palette.accentColor;
+			this.colorDark = palette.accentColorDark;
+			this.colorActionBar = palette.accentColorActionBar;
+			this.density = density;
+			this.layoutDirection = layoutDirection;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key))
+				return false;
+			Key other = (Key)o;
+			return color == other.color && colorDark == other.colorDark
+					&& colorActionBar == other.colorActionBar && density == other.density
+					&& layoutDirection == other.layoutDirection;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = color;
+			result = 31 * result + colorDark;
+			result = 31 * result + colorActionBar;
+			result = 31 * result + density;
+			result = 31 * result + layoutDirection;
+			return result;
+		}
+	}
+
+}
@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent;
+
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.util.SparseArray;
+
+import com.negusoft.holoaccent.AccentResources.IdentifiedInterceptor;
+import com.negusoft.holoaccent.AccentResources.Interceptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An ordered list of drawable interceptors. They are evaluated in order until one
+ * of them returns a drawable, as if they were asked one by one, but the ones that
+ * declare their ids are only asked for those ids. They are found by a single lookup,
+ * so only the interceptors that don't declare them are asked for every id. The
+ * states of the drawables they return are kept to create new copies from.
+ * <br/><br/>
+ * It is safe to use from several threads. The lookup and the states are kept in an
+ * immutable snapshot that is replaced on every change, so getDrawable() never locks.
+ */
+class DrawableInterceptors {
+
+	private static final int[] NO_POSITIONS = new int[0];
+
+	/** Guarded by 'this'. */
+	private final List<Interceptor> mInterceptors = new ArrayList<Interceptor>();
+	/** Interceptors whose drawables can't be recreated from their constant state. Guarded by 'this'. */
+	private final Set<Interceptor> mUncachedInterceptors = new HashSet<Interceptor>();
+
+	private volatile Snapshot mSnapshot = new Snapshot(new ArrayList<Interceptor>(), new HashSet<Interceptor>());
+
+	/** Add the interceptor with the lowest precedence. */
+	public synchronized void add(Interceptor interceptor) {
+		mInterceptors.add(interceptor);
+		mSnapshot = new Snapshot(mInterceptors, mUncachedInterceptors);
+	}
+
+	/**
+	 * Add an interceptor whose drawables are not to be recreated from their constant
+	 * state, for example because they are modified after being created.
+	 */
+	public synchronized void addUncached(Interceptor interceptor) {
+		mUncachedInterceptors.add(interceptor);
+		add(interceptor);
+	}
+
+	/** Add the interceptor with the highest precedence. */
+	public synchronized void addFirst(Interceptor interceptor) {
+		mInterceptors.add(0, interceptor);
+		mSnapshot = new Snapshot(mInterceptors, mUncachedInterceptors);
+	}
+
+	/** Forget the drawable states, for example because they were created for another palette. */
+	public synchronized void clearDrawableStates() {
+		mSnapshot = new Snapshot(mInterceptors, mUncachedInterceptors);
+	}
+
+	/** @return The drawable replacing the resource or null if none of them replaces it. */
+	public Drawable getDrawable(Resources res, AccentPalette palette, int resId) {
+		Snapshot snapshot = mSnapshot;
+		Interceptor[] interceptors = snapshot.interceptors;
+		int[] unidentified = snapshot.unidentifiedPositions;
+		int[] identified = snapshot.positionsById.get(resId, NO_POSITIONS);
+		DrawableState state = snapshot.drawableStates.get(resId);
+
+		// Merge the interceptors that declare the id with the ones that don't, in order
+		Drawable result;
+		int u = 0;
+		for (int position : identified) {
+			for (; u < unidentified.length && unidentified[u] < position; u++) {
+				result = interceptors[unidentified[u]].getDrawable(res, palette, resId);
+				if (result != null)
+					return result;
+			}
+
+			if (state != null && state.position == position)
+				return state.state.newDrawable();
+			result = interceptors[position].getDrawable(res, palette, resId);
+			if (result != null) {
+				if (snapshot.cacheable[position]) {
+					Drawable.ConstantState constantState = result.getConstantState();
+					if (constantState != null)
+						putDrawableState(snapshot, resId, new DrawableState(constantState, position));
+				}
+				return result;
+			}
+		}
+		for (; u < unidentified.length; u++) {
+			result = interceptors[unidentified[u]].getDrawable(res, palette, resId);
+			if (result != null)
+				return result;
+		}
+		return null;
+	}
+
+	/**
+	 * Publish a new snapshot with the state added, unless the interceptors changed 
+	 * since the given snapshot was taken.
+	 */
+	private synchronized void putDrawableState(Snapshot snapshot, int resId, DrawableState state) {
+		Snapshot current = mSnapshot;
+		if (current.interceptors != snapshot.interceptors)
+			return;
+		mSnapshot = current.withDrawableState(resId, state);
+	}
+
+	/** @return The ids declared by the interceptors. */
+	public int[] getDrawableIds() {
+		SparseArray<int[]> positionsById = mSnapshot.positionsById;
+		int[] result = new int[positionsById.size()];
+		for (int i=0; i<result.length; i++)
+			result[i] = positionsById.keyAt(i);
+		return result;
+	}
+
+	/** The state of a drawable and the position of the interceptor that returned it. */
+	private static final class DrawableState {
+		final Drawable.ConstantState state;
+		final int position;
+
+		DrawableState(Drawable.ConstantState state, int position) {
+			this.state = state;
+			this.position = position;
+		}
+	}
+
+	/** Immutable once published: changes create a new instance. */
+	private static final class Snapshot {
+		final Interceptor[] interceptors;
+		/** Whether the drawables of the interceptor at each position can be cached. */
+		final boolean[] cacheable;
+		/** The positions of the interceptors that don't declare their ids. */
+		final int[] unidentifiedPositions;
+		/** The positions of the interceptors that declare each id, in order. */
+		final SparseArray<int[]> positionsById;
+		final SparseArray<DrawableState> drawableStates;
+
+		Snapshot(List<Interceptor> interceptors, Set<Interceptor> uncachedInterceptors) {
+			this.interceptors = interceptors.toArray(new Interceptor[interceptors.size()]);
+			cacheable = new boolean[this.interceptors.length];
+			positionsById = new SparseArray<int[]>();
+
+			int[] unidentified = new int[this.interceptors.length];
+			int unidentifiedCount = 0;
+			for (int position=0; position<this.interceptors.length; position++) {
+				Interceptor interceptor = this.interceptors[position];
+				cacheable[position] = !uncachedInterceptors.contains(interceptor);
+				if (!(interceptor instanceof IdentifiedInterceptor)) {
+					unidentified[unidentifiedCount++] = position;
+					continue;
+				}
+				for (int id : ((IdentifiedInterceptor)interceptor).getDrawableIds()) {
+					if (id != 0)
+						addPosition(id, position);
+				}
+			}
+			unidentifiedPositions = Arrays.copyOf(unidentified, unidentifiedCount);
+			drawableStates = new SparseArray<DrawableState>();
+		}
+
+		private Snapshot(Snapshot source, SparseArray<DrawableState> drawableStates) {
+			interceptors = source.interceptors;
+			cacheable = source.cacheable;
+			unidentifiedPositions = source.unidentifiedPositions;
+			positionsById = source.positionsById;
+			this.drawableStates = drawableStates;
+		}
+
+		/** Add the position to the ones of the id, unless the same interceptor declared it twice. */
+		private void addPosition(int id, int position) {
+			int[] positions = positionsById.get(id, NO_POSITIONS);
+			if (positions.length > 0 && positions[positions.length - 1] == position)
+				return;
+			positions = Arrays.copyOf(positions, positions.length + 1);
+			positions[positions.length - 1] = position;
+			positionsById.put(id, positions);
+		}
+
+		Snapshot withDrawableState(int resId, DrawableState state) {
+			SparseArray<DrawableState> states = drawableStates.clone();
+			states.put(resId, state);
+			return new Snapshot(this, states);
+		}
+	}
+
+}
@@ -0,0 +1,310 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent;
+
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Rect;
+import android.graphics.drawable.Animatable;
+import android.graphics.drawable.Drawable;
+
+/**
+ * Wraps a drawable returned by the interceptors so it follows the palette holder.
+ * When the palette changes, the drawables of the library (the ones implementing
+ * OnPaletteChangedListener) are given the new palette, so they resolve their
+ * colors again and the wrapper only invalidates itself. Any other drawable (e.g.
+ * the tinted bitmaps or the ones of custom interceptors) is replaced by the one
+ * the interceptors return for the new palette, keeping the bounds, state, level
+ * and so on. The views don't need to be inflated again, and nothing is done in
+ * draw() but drawing the wrapped drawable.
+ * <br/><br/>
+ * getCurrent() returns the wrapped drawable, so its concrete class can still be
+ * reached. The wrappers of Animatable drawables are Animatable too (see wrap()).
+ */
+class LivePaletteDrawable extends Drawable implements Drawable.Callback,
+		AccentPaletteHolder.OnPaletteChangedListener {
+
+	private final AccentResources mResources;
+	private final int mResId;
+
+	/** The palette the wrapped drawable was created for. */
+	private AccentPalette mPalette;
+	private Drawable mDrawable;
+	private boolean mMutated;
+
+	private boolean mAlphaSet;
+	private int mAlpha;
+	private ColorFilter mColorFilter;
+
+	/** The last state returned by getConstantState(), while it is still valid. */
+	private LivePaletteState mState;
+
+	/** @return The wrapper for the drawable, implementing Animatable if the drawable does. */
+	static LivePaletteDrawable wrap(AccentResources resources, int resId, AccentPalette palette, Drawable drawable) {
+		if (drawable instanceof Animatable)
+			return new AnimatableLivePaletteDrawable(resources, resId, palette, drawable);
+		return new LivePaletteDrawable(resources, resId, palette, drawable);
+	}
+
+	LivePaletteDrawable(AccentResources resources, int resId, AccentPalette palette, Drawable drawable) {
+		mResources = resources;
+		mResId = resId;
+		mPalette = palette;
+		setDrawable(drawable);
+		resources.getPaletteHolder().addListener(this);
+		// Created from the state of a drawable for a previous palette
+		updateDrawable(resources.getPaletteHolder().getPalette());
+	}
+
+	private void setDrawable(Drawable drawable) {
+		if (mDrawable != null)
+			mDrawable.setCallback(null);
+		mDrawable = drawable;
+		drawable.setCallback(this);
+	}
+
+	@Override
+	public void onPaletteChanged(AccentPalette palette) {
+		if (updateDrawable(palette))
+			invalidateSelf();
+	}
+
+	/**
+	 * Update the wrapped drawable if the palette changed since it was created: the
+	 * drawables of the library resolve their colors again, the rest are replaced.
+	 * @return True if it was updated.
+	 */
+	private boolean updateDrawable(AccentPalette palette) {
+		if (palette == mPalette)
+			return false;
+		mPalette = palette;
+
+		if (mDrawable instanceof AccentPaletteHolder.OnPaletteChangedListener) {
+			((AccentPaletteHolder.OnPaletteChangedListener)mDrawable).onPaletteChanged(palette);
+			return true;
+		}
+
+		Drawable drawable = mResources.getInterceptedDrawable(mResId);
+		if (drawable == null)
+			return false;
+		if (mMutated)
+			drawable = drawable.mutate();
+		drawable.setBounds(getBounds());
+		drawable.setState(getState());
+		drawable.setLevel(getLevel());
+		drawable.setVisible(isVisible(), false);
+		if (mAlphaSet)
+			drawable.setAlpha(mAlpha);
+		if (mColorFilter != null)
+			drawable.setColorFilter(mColorFilter);
+		if (mDrawable instanceof Animatable && drawable instanceof Animatable) {
+			if (((Animatable)mDrawable).isRunning())
+				((Animatable)drawable).start();
+			else
+				((Animatable)drawable).stop();
+		}
+		setDrawable(drawable);
+		return true;
+	}
+
+	@Override
+	public void draw(Canvas canvas) {
+		mDrawable.draw(canvas);
+	}
+
+	/** @return The wrapped drawable, created for the current palette. */
+	@Override
+	public Drawable getCurrent() {
+		return mDrawable;
+	}
+
+	@Override
+	protected void onBoundsChange(Rect bounds) {
+		mDrawable.setBounds(bounds);
+	}
+
+	@Override
+	public boolean isStateful() {
+		return mDrawable.isStateful();
+	}
+
+	@Override
+	protected boolean onStateChange(int[] state) {
+		return mDrawable.setState(state);
+	}
+
+	@Override
+	protected boolean onLevelChange(int level) {
+		return mDrawable.setLevel(level);
+	}
+
+	@Override
+	public boolean setVisible(boolean visible, boolean restart) {
+		boolean changed = super.setVisible(visible, restart);
+		return mDrawable.setVisible(visible, restart) || changed;
+	}
+
+	@Override
+	public void setAlpha(int alpha) {
+		mAlphaSet = true;
+		mAlpha = alpha;
+		mDrawable.setAlpha(alpha);
+	}
+
+	@Override
+	public void setColorFilter(ColorFilter cf) {
+		mColorFilter = cf;
+		mDrawable.setColorFilter(cf);
+	}
+
+	@Override
+	public void setDither(boolean dither) {
+		mDrawable.setDither(dither);
+	}
+
+	@Override
+	public int getOpacity() {
+		return mDrawable.getOpacity();
+	}
+
+	@Override
+	public int getIntrinsicWidth() {
+		return mDrawable.getIntrinsicWidth();
+	}
+
+	@Override
+	public int getIntrinsicHeight() {
+		return mDrawable.getIntrinsicHeight();
+	}
+
+	@Override
+	public int getMinimumWidth() {
+		return mDrawable.getMinimumWidth();
+	}
+
+	@Override
+	public int getMinimumHeight() {
+		return mDrawable.getMinimumHeight();
+	}
+
+	@Override
+	public boolean getPadding(Rect padding) {
+		return mDrawable.getPadding(padding);
+	}
+
+	@Override
+	public int getChangingConfigurations() {
+		return super.getChangingConfigurations() | mDrawable.getChangingConfigurations();
+	}
+
+	@Override
+	public Drawable mutate() {
+		if (!mMutated && super.mutate() == this) {
+			mDrawable.mutate();
+			mMutated = true;
+		}
+		return this;
+	}
+
+	@Override
+	public ConstantState getConstantState() {
+		ConstantState state = mDrawable.getConstantState();
+		if (state == null)
+			return null;
+		// The wrapped state changes when the drawable is replaced or recolored
+		LivePaletteState result = mState;
+		if (result == null || result.mDrawableState != state || result.mPalette != mPalette) {
+			result = new LivePaletteState(mResources, mResId, mPalette, state);
+			mState = result;
+		}
+		return result;
+	}
+
+	@Override
+	public void invalidateDrawable(Drawable who) {
+		invalidateSelf();
+	}
+
+	@Override
+	public void scheduleDrawable(Drawable who, Runnable what, long when) {
+		scheduleSelf(what, when);
+	}
+
+	@Override
+	public void unscheduleDrawable(Drawable who, Runnable what) {
+		unscheduleSelf(what);
+	}
+
+	static class LivePaletteState extends ConstantState {
+
+		private final AccentResources mResources;
+		private final int mResId;
+		private final AccentPalette mPalette;
+		private final ConstantState mDrawableState;
+
+		LivePaletteState(AccentResources resources, int resId, AccentPalette palette, ConstantState drawableState) {
+			mResources = resources;
+			mResId = resId;
+			mPalette = palette;
+			mDrawableState = drawableState;
+		}
+
+		@Override
+		public int getChangingConfigurations() {
+			return mDrawableState.getChangingConfigurations();
+		}
+
+		@Override
+		public Drawable newDrawable() {
+			return wrap(mResources, mResId, mPalette, mDrawableState.newDrawable());
+		}
+
+		@Override
+		public Drawable newDrawable(Resources res) {
+			return wrap(mResources, mResId, mPalette, mDrawableState.newDrawable(res));
+		}
+	}
+
+	/** The wrapper of the Animatable drawables, forwarding the calls to the wrapped one. */
+	static class AnimatableLivePaletteDrawable extends LivePaletteDrawable implements Animatable {
+
+		AnimatableLivePaletteDrawable(AccentResources resources, int resId, AccentPalette palette, Drawable drawable) {
+			super(resources, resId, palette, drawable);
+		}
+
+		@Override
+		public void start() {
+			Drawable drawable = getCurrent();
+			if (drawable instanceof Animatable)
+				((Animatable)drawable).start();
+		}
+
+		@Override
+		public void stop() {
+			Drawable drawable = getCurrent();
+			if (drawable instanceof Animatable)
+				((Animatable)drawable).stop();
+		}
+
+		@Override
+		public boolean isRunning() {
+			Drawable drawable = getCurrent();
+			return drawable instanceof Animatable && ((Animatable)drawable).isRunning();
+		}
+	}
+
+}
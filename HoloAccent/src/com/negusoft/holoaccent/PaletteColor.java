@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent;
+
+import android.graphics.Color;
+
+/**
+ * A color of the drawables: either a fixed one, or one of the palette colors with
+ * the given alpha. The drawables keep it instead of the resolved color, so they
+ * can resolve it again for a new palette (see AccentPaletteHolder) instead of
+ * being created again.
+ */
+public final class PaletteColor {
+
+	private static final int TYPE_FIXED = 0;
+	private static final int TYPE_ACCENT = 1;
+	private static final int TYPE_DARK_ACCENT = 2;
+	private static final int TYPE_ACTIONBAR_ACCENT = 3;
+
+	public static final PaletteColor TRANSPARENT = fixed(Color.TRANSPARENT);
+
+	private final int mType;
+	/** The color for TYPE_FIXED, the alpha for the rest. */
+	private final int mValue;
+
+	private PaletteColor(int type, int value) {
+		mType = type;
+		mValue = value;
+	}
+
+	/** @return The given color, the same for every palette. */
+	public static PaletteColor fixed(int color) {
+		return new PaletteColor(TYPE_FIXED, color);
+	}
+
+	/** @return The accent color. See AccentPalette.getAccentColor(). */
+	public static PaletteColor accent() {
+		return accent(255);
+	}
+
+	/** @param alpha The opacity of the color [0..255] */
+	public static PaletteColor accent(int alpha) {
+		return new PaletteColor(TYPE_ACCENT, alpha);
+	}
+
+	/** @return The dark accent color. See AccentPalette.getDarkAccentColor(). */
+	public static PaletteColor darkAccent() {
+		return darkAccent(255);
+	}
+
+	/** @param alpha The opacity of the color [0..255] */
+	public static PaletteColor darkAccent(int alpha) {
+		return new PaletteColor(TYPE_DARK_ACCENT, alpha);
+	}
+
+	/** @return The ActionBar accent color. See AccentPalette.getActionBarAccentColor(). */
+	public static PaletteColor actionBarAccent() {
+		return actionBarAccent(255);
+	}
+
+	/** @param alpha The opacity of the color [0..255] */
+	public static PaletteColor actionBarAccent(int alpha) {
+		return new PaletteColor(TYPE_ACTIONBAR_ACCENT, alpha);
+	}
+
+	/** @return True if the color doesn't depend on the palette. */
+	public boolean isFixed() {
+		return mType == TYPE_FIXED;
+	}
+
+	/** @return The opacity of the color [0..255], the same for every palette. */
+	public int getAlpha() {
+		return mType == TYPE_FIXED ? Color.alpha(mValue) : mValue;
+	}
+
+	/**
+	 * Resolve the color for the given palette.
+	 * @param palette The palette. It may be null if the color is fixed.
+	 */
+	public int getColor(AccentPalette palette) {
+		switch (mType) {
+		case TYPE_ACCENT:
+			return palette.getAccentColor(mValue);
+		case TYPE_DARK_ACCENT:
+			return palette.getDarkAccentColor(mValue);
+		case TYPE_ACTIONBAR_ACCENT:
+			return palette.getActionBarAccentColor(mValue);
+		default:
+			return mValue;
+		}
+	}
+
+}
@@ -29,79 +29,103 @@ import android.util.DisplayMetrics;
 import android.util.TypedValue;
 
 import com.negusoft.holoaccent.AccentPalette;
+import com.negusoft.holoaccent.AccentPaletteHolder;
+import com.negusoft.holoaccent.PaletteColor;
 import com.negusoft.holoaccent.R;
 
-public class ActionBarBackgroundDrawable extends Drawable {
+public class ActionBarBackgroundDrawable extends Drawable implements AccentPaletteHolder.OnPaletteChangedListener {
 
     private static final int DEFAULT_OPACITY = 255;
 
-    private final Paint mFillPaint;
-    private final ActionBarBackgroundConstantState mState;
-    private final Paint mPaint;
+    private Paint mFillPaint;
+    private ActionBarBackgroundConstantState mState;
+    private Paint mPaint;
+
+    /** The geometry for the current bounds, updated in onBoundsChange(). */
+    private final Rect mFillRect = new Rect();
+    private float mLineY;
 
     public ActionBarBackgroundDrawable(Context c, AccentPalette palette, int styleAttribute, boolean overline) {
         TypedArray attrs = c.obtainStyledAttributes(null, R.styleable.ColoredActionBarStacked, styleAttribute, 0);
-        int lineColor = attrs.getColor(R.styleable.ColoredActionBarStacked_accentLineColor, palette.getDarkAccentColor());
         float lineWidthDp = attrs.getDimension(R.styleable.ColoredActionBarStacked_accentLineWidth, 0f);
         int lineOpacity = attrs.getInteger(R.styleable.ColoredActionBarStacked_accentLineOpacity, DEFAULT_OPACITY);
-        int backgroundColor = attrs.getColor(R.styleable.ColoredActionBarStacked_accentBackgroundColor, palette.getDarkAccentColor());
         int backgroundOpacity = attrs.getInteger(R.styleable.ColoredActionBarStacked_accentBackgroundOpacity, DEFAULT_OPACITY);
-
-        lineColor = Color.argb(lineOpacity, Color.red(lineColor), Color.green(lineColor), Color.blue(lineColor));
-        backgroundColor = Color.argb(backgroundOpacity, Color.red(backgroundColor), Color.green(backgroundColor), Color.blue(backgroundColor));
+        PaletteColor lineColor = getColor(attrs, R.styleable.ColoredActionBarStacked_accentLineColor, lineOpacity);
+        PaletteColor backgroundColor = getColor(attrs, R.styleable.ColoredActionBarStacked_accentBackgroundColor, backgroundOpacity);
 
         attrs.recycle();
 
         DisplayMetrics metrics = c.getResources().getDisplayMetrics();
-        mState = new ActionBarBackgroundConstantState(metrics, backgroundColor, lineColor, lineWidthDp, overline);
-        mPaint = initLinePaint(metrics, lineColor, lineWidthDp);
-        mFillPaint = initFillPaint(backgroundColor);
+        mState = new ActionBarBackgroundConstantState(metrics, palette, backgroundColor, lineColor, lineWidthDp, overline);
+        initPaints(mState);
     }
 
     public ActionBarBackgroundDrawable(Resources resources, int backgroundColor, int lineColor, float lineWidthDp, boolean overline) {
-        DisplayMetrics metrics = resources.getDisplayMetrics();
-        mState = new ActionBarBackgroundConstantState(metrics, backgroundColor, lineColor, lineWidthDp, overline);
-        mPaint = initLinePaint(metrics, lineColor, lineWidthDp);
-        mFillPaint = initFillPaint(backgroundColor);
+        mState = new ActionBarBackgroundConstantState(resources.getDisplayMetrics(), null,
+                PaletteColor.fixed(backgroundColor), PaletteColor.fixed(lineColor), lineWidthDp, overline);
+        initPaints(mState);
+    }
+
+    private ActionBarBackgroundDrawable(ActionBarBackgroundConstantState state) {
+        mState = state;
+        initPaints(state);
     }
 
-    private ActionBarBackgroundDrawable(DisplayMetrics metrics, int backgroundColor, int lineColor, float lineWidthDp, boolean overline) {
-        mState = new ActionBarBackgroundConstantState(metrics, backgroundColor, lineColor, lineWidthDp, overline);
-        mPaint = initLinePaint(metrics, lineColor, lineWidthDp);
-        mFillPaint = initFillPaint(backgroundColor);
+    /** @return The color set in the style with the given opacity, or the dark accent color if not set. */
+    private static PaletteColor getColor(TypedArray attrs, int index, int opacity) {
+        if (!attrs.hasValue(index))
+            return PaletteColor.darkAccent(opacity);
+        int color = attrs.getColor(index, 0);
+        return PaletteColor.fixed(Color.argb(opacity, Color.red(color), Color.green(color), Color.blue(color)));
+    }
+
+    private void initPaints(ActionBarBackgroundConstantState state) {
+        mPaint = initLinePaint(state.mDisplayMetrics, state.mLineColor.getColor(state.mPalette), state.mLineWidth);
+        mFillPaint = initFillPaint(state.mBackgroundColor.getColor(state.mPalette));
     }
 
     private Paint initFillPaint(int color) {
-        Paint paint = new Paint();
-        paint.setColor(color);
-        paint.setStyle(Paint.Style.FILL);
-        return paint;
+        return PaintRegistry.obtain(color, Paint.Style.FILL, 0f, false);
     }
 
     private Paint initLinePaint(DisplayMetrics displayMetrics, int color, float lineWidthDp) {
         float lineWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, lineWidthDp, displayMetrics);
-        Paint result = new Paint();
-        result.setColor(color);
-        result.setStyle(Paint.Style.STROKE);
-        result.setStrokeWidth(lineWidth);
-        return result;
+        return PaintRegistry.obtain(color, Paint.Style.STROKE, lineWidth, false);
+    }
+
+    /** Resolve the colors for the new palette. The colors set in the style don't change. */
+    @Override
+    public void onPaletteChanged(AccentPalette palette) {
+        if (mState.mPalette == palette)
+            return;
+        mState = mState.withPalette(palette);
+        initPaints(mState);
+        invalidateSelf();
     }
 
     @Override
     public void draw(Canvas canvas) {
-        Rect r = new Rect(getBounds());
+        if (mState.mLineWidth > 0f) {
+            Rect bounds = getBounds();
+            canvas.drawLine(bounds.left, mLineY, bounds.right, mLineY, mPaint);
+        }
+        if (mState.mBackgroundColor.getAlpha() > 0)
+            canvas.drawRect(mFillRect, mFillPaint);
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        Rect r = mFillRect;
+        r.set(bounds);
         if (mState.mLineWidth > 0f) {
             float margin = mPaint.getStrokeWidth() / 2f;
-            float posY = mState.mOverline ? r.top + margin : r.bottom - margin;
-            canvas.drawLine(r.left, posY, r.right, posY, mPaint);
+            mLineY = mState.mOverline ? r.top + margin : r.bottom - margin;
 
             if (mState.mOverline)
                 r.top += mState.mLineWidth;
             else
                 r.bottom -= mState.mLineWidth;
         }
-        if (Color.alpha(mState.mBackgroundColor) > 0)
-            canvas.drawRect(r, mFillPaint);
     }
 
     @Override
@@ -128,21 +152,32 @@ public class ActionBarBackgroundDrawable extends Drawable {
     public static class ActionBarBackgroundConstantState extends ConstantState {
 
         public final DisplayMetrics mDisplayMetrics;
-        public final int mBackgroundColor;
-        public final int mLineColor;
+        public final AccentPalette mPalette;
+        public final PaletteColor mBackgroundColor;
+        public final PaletteColor mLineColor;
         public final float mLineWidth;
         public final boolean mOverline;
 
         int changingConfigurationValue;
 
-        public ActionBarBackgroundConstantState(DisplayMetrics metrics, int backgroundColor, int lineColor, float lineWidth, boolean overline) {
+        public ActionBarBackgroundConstantState(DisplayMetrics metrics, AccentPalette palette, PaletteColor backgroundColor, PaletteColor lineColor,
+                float lineWidth, boolean overline) {
             mDisplayMetrics = metrics;
+            mPalette = palette;
             mBackgroundColor = backgroundColor;
             mLineColor = lineColor;
             mLineWidth = lineWidth;
             mOverline = overline;
         }
 
+        /** @return The state with the same values, resolving the colors for the given palette. */
+        ActionBarBackgroundConstantState withPalette(AccentPalette palette) {
+            ActionBarBackgroundConstantState result = new ActionBarBackgroundConstantState(mDisplayMetrics, palette,
+                    mBackgroundColor, mLineColor, mLineWidth, mOverline);
+            result.changingConfigurationValue = changingConfigurationValue;
+            return result;
+        }
+
         @Override
         public int getChangingConfigurations() {
             return changingConfigurationValue;
@@ -150,7 +185,7 @@ public class ActionBarBackgroundDrawable extends Drawable {
 
         @Override
         public Drawable newDrawable() {
-            return new ActionBarBackgroundDrawable(mDisplayMetrics, mBackgroundColor, mLineColor, mLineWidth, mOverline);
+            return new ActionBarBackgroundDrawable(this);
         }
 
     }
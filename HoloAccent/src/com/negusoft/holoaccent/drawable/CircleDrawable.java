@@ -26,66 +26,107 @@ import android.graphics.drawable.Drawable;
 import android.util.DisplayMetrics;
 import android.util.TypedValue;
 
-public class CircleDrawable extends Drawable {
+import com.negusoft.holoaccent.AccentPalette;
+import com.negusoft.holoaccent.AccentPaletteHolder;
+import com.negusoft.holoaccent.PaletteColor;
 
-	private final CircleConstantState mState;
-	private final Paint mFillPaint;
-	private final Paint mBorderPaint;
+public class CircleDrawable extends Drawable implements AccentPaletteHolder.OnPaletteChangedListener {
+
+	private CircleConstantState mState;
+	private Paint mFillPaint;
+	private Paint mBorderPaint;
+	private final float mRadius;
+	private final float mBorderWidth;
+	
+	/** The center for the current bounds, updated in onBoundsChange(). */
+	private float mCenterX;
+	private float mCenterY;
+
+	private final RasterCache.Slot mRaster = new RasterCache.Slot(this) {
+		@Override
+		void getRasterBounds(Rect out) {
+			float radius = mRadius;
+			if (mBorderPaint != null)
+				radius += mBorderWidth / 2;
+			RasterCache.setCircleBounds(out, mCenterX, mCenterY, radius);
+		}
+		@Override
+		void drawShape(Canvas canvas) {
+			drawCircles(canvas);
+		}
+	};
 	
 	public CircleDrawable(Resources res, float radiusDp, int fillColor, float borderWidthDp, int borderColor) {
-		DisplayMetrics metrics = res.getDisplayMetrics();
-		mState = new CircleConstantState(metrics, radiusDp, fillColor, borderWidthDp, borderColor);
-		mBorderPaint = initBorderPaint(metrics, borderWidthDp, borderColor);
-		mFillPaint = initFillPaint(fillColor);
+		this(res, null, radiusDp, PaletteColor.fixed(fillColor), borderWidthDp, PaletteColor.fixed(borderColor));
+	}
+	
+	public CircleDrawable(Resources res, AccentPalette palette, float radiusDp, PaletteColor fillColor, float borderWidthDp, PaletteColor borderColor) {
+		this(new CircleConstantState(res.getDisplayMetrics(), palette, radiusDp, fillColor, borderWidthDp, borderColor));
+	}
+	
+	CircleDrawable(CircleConstantState state) {
+		mState = state;
+		mRadius = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, state.mRadiusDp, state.mDisplayMetrics);
+		mBorderWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, state.mBorderWidthDp, state.mDisplayMetrics);
+		initPaints(state);
 	}
 	
-	CircleDrawable(DisplayMetrics metrics, float radiusDp, int fillColor, float borderWidthDp, int borderColor) {
-		mState = new CircleConstantState(metrics, radiusDp, fillColor, borderWidthDp, borderColor);
-		mBorderPaint = initBorderPaint(metrics, borderWidthDp, borderColor);
-		mFillPaint = initFillPaint(fillColor);
+	private void initPaints(CircleConstantState state) {
+		mBorderPaint = initBorderPaint(state.mBorderColor.getColor(state.mPalette));
+		mFillPaint = initFillPaint(state.mColor.getColor(state.mPalette));
 	}
 	
-	private Paint initBorderPaint(DisplayMetrics displayMetrics, float borderWidthDp, int borderColor) {
+	private Paint initBorderPaint(int borderColor) {
 		if (Color.alpha(borderColor) == 0)
 			return null;
-		if (borderWidthDp <= 0f)
+		if (mBorderWidth <= 0f)
 			return null;
 		
-        float borderWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, borderWidthDp, displayMetrics);
-		Paint result = new Paint();
-		result.setColor(borderColor);
-		result.setStyle(Paint.Style.STROKE);
-		result.setStrokeWidth(borderWidth);
-		result.setAntiAlias(true);
-		return result;
+		return PaintRegistry.obtain(borderColor, Paint.Style.STROKE, mBorderWidth, true);
 	}
 	
 	private Paint initFillPaint(int fillColor) {
 		if (Color.alpha(fillColor) == 0)
 			return null;
 		
-        Paint result = new Paint();
-		result.setColor(fillColor);
-		result.setStyle(Paint.Style.FILL);
-		result.setAntiAlias(true);
-		return result;
+		return PaintRegistry.obtain(fillColor, Paint.Style.FILL, 0f, true);
+	}
+	
+	/** Resolve the colors for the new palette. The shape doesn't change. */
+	@Override
+	public void onPaletteChanged(AccentPalette palette) {
+		if (mState.mPalette == palette)
+			return;
+		mState = mState.withPalette(palette);
+		initPaints(mState);
+		mRaster.reset();
+		invalidateSelf();
 	}
 	
 	@Override
 	public void draw(Canvas canvas) {
-		Rect r = getBounds();
-		float centerX = (r.left + r.right) / 2f;
-		float centerY = (r.top + r.bottom) / 2f;
-		float radius = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, mState.mRadiusDp, mState.mDisplayMetrics);
+		if (!mRaster.draw(canvas))
+			drawCircles(canvas);
+	}
+	
+	private void drawCircles(Canvas canvas) {
+		float radius = mRadius;
 		if (mBorderPaint != null) {
-			canvas.drawCircle(centerX, centerY, radius, mBorderPaint);
+			canvas.drawCircle(mCenterX, mCenterY, radius, mBorderPaint);
 		}
 		if (mFillPaint != null) {
 			if (mBorderPaint != null)
-				radius -= (mBorderPaint.getStrokeWidth() / 2);
-			canvas.drawCircle(centerX, centerY, radius, mFillPaint);
+				radius -= (mBorderWidth / 2);
+			canvas.drawCircle(mCenterX, mCenterY, radius, mFillPaint);
 		}
 	}
+	
+	@Override
+	protected void onBoundsChange(Rect r) {
+		mCenterX = (r.left + r.right) / 2f;
+		mCenterY = (r.top + r.bottom) / 2f;
+		mRaster.reset();
+	}
 
 	@Override
 	public int getOpacity() {
@@ -111,21 +152,30 @@ public class CircleDrawable extends Drawable {
 	public static class CircleConstantState extends ConstantState {
 
 		public final DisplayMetrics mDisplayMetrics;
+		public final AccentPalette mPalette;
 		public final float mRadiusDp;
-		public final int mColor;
+		public final PaletteColor mColor;
 		public final float mBorderWidthDp;
-		public final int mBorderColor;
+		public final PaletteColor mBorderColor;
 		
 		int changingConfigurationValue;
 		
-		public CircleConstantState(DisplayMetrics metrics, float radius, int color, float borderWidthDp, int borderColor) {
+		public CircleConstantState(DisplayMetrics metrics, AccentPalette palette, float radius, PaletteColor color, float borderWidthDp, PaletteColor borderColor) {
 			mDisplayMetrics = metrics;
+			mPalette = palette;
 			mRadiusDp = radius;
 			mColor = color;
 			mBorderWidthDp = borderWidthDp;
 			mBorderColor = borderColor;
 		}
 
+		/** @return The state with the same values, resolving the colors for the given palette. */
+		CircleConstantState withPalette(AccentPalette palette) {
+			CircleConstantState result = new CircleConstantState(mDisplayMetrics, palette, mRadiusDp, mColor, mBorderWidthDp, mBorderColor);
+			result.changingConfigurationValue = changingConfigurationValue;
+			return result;
+		}
+
 		@Override
 		public int getChangingConfigurations() {
 			return changingConfigurationValue;
@@ -133,7 +183,7 @@ public class CircleDrawable extends Drawable {
 
 		@Override
 		public Drawable newDrawable() {
-			return new CircleDrawable(mDisplayMetrics, mRadiusDp, mColor, mBorderWidthDp, mBorderColor);
+			return new CircleDrawable(this);
 		}
 		
 	}
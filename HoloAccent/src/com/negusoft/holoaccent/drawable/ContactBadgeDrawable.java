@@ -28,57 +28,93 @@ import android.graphics.drawable.Drawable;
 import android.util.DisplayMetrics;
 import android.util.TypedValue;
 
+import com.negusoft.holoaccent.AccentPalette;
+import com.negusoft.holoaccent.PaletteColor;
+
 public class ContactBadgeDrawable extends RectDrawable {
 
     private static final float SIDE_DP = 12f;
     private static final float LINE_WIDTH_DP = 2f;
 
     private ContactBadgeConstantState mState;
-    private final Paint mFillPaint;
-    private final Paint mLinePaint;
+    private Paint mFillPaint;
+    private Paint mLinePaint;
+
+    /** The mark for the current bounds, updated in onBoundsChange(). */
+    private final Path mMarkPath = new Path();
+    private final Path mLinePath = new Path();
+
+    private final RasterCache.Slot mRaster = new RasterCache.Slot(this) {
+        @Override
+        void getRasterBounds(Rect out) {
+            out.set(getBounds());
+        }
+        @Override
+        void drawShape(Canvas canvas) {
+            drawBadge(canvas);
+        }
+    };
 
 	public ContactBadgeDrawable(Resources res, int fillColor, float borderWidthDp, int borderColor, int markFillColor, int markLineColor) {
-        super(res, fillColor, borderWidthDp, borderColor);
-        mState = new ContactBadgeConstantState(res.getDisplayMetrics(), fillColor, borderWidthDp, borderColor, markFillColor, markLineColor);
-        mFillPaint = initFillPaint(markFillColor);
-        mLinePaint = initLinePaint(res.getDisplayMetrics(), markLineColor);
+        this(res, null, PaletteColor.fixed(fillColor), borderWidthDp, PaletteColor.fixed(borderColor),
+                PaletteColor.fixed(markFillColor), PaletteColor.fixed(markLineColor));
+	}
+
+	public ContactBadgeDrawable(Resources res, AccentPalette palette, PaletteColor fillColor, float borderWidthDp, PaletteColor borderColor,
+            PaletteColor markFillColor, PaletteColor markLineColor) {
+        this(new ContactBadgeConstantState(res.getDisplayMetrics(), palette, fillColor, borderWidthDp, borderColor, markFillColor, markLineColor));
 	}
 
-	ContactBadgeDrawable(DisplayMetrics metrics, int fillColor, float borderWidthDp, int borderColor, int markFillColor, int markLineColor) {
-        super(metrics, fillColor, borderWidthDp, borderColor);
-        mState = new ContactBadgeConstantState(metrics, fillColor, borderWidthDp, borderColor, markFillColor, markLineColor);
-        mFillPaint = initFillPaint(markFillColor);
-        mLinePaint = initLinePaint(metrics, markLineColor);
+	ContactBadgeDrawable(ContactBadgeConstantState state) {
+        super(new RectConstantState(state.mDisplayMetrics, state.mPalette, state.mColor, state.mBorderWidth, state.mBorderColor));
+        mState = state;
+        initMarkPaints(state);
 	}
 
+    private void initMarkPaints(ContactBadgeConstantState state) {
+        mFillPaint = initFillPaint(state.mMarkFillColor.getColor(state.mPalette));
+        mLinePaint = initLinePaint(state.mDisplayMetrics, state.mMarkLineColor.getColor(state.mPalette));
+    }
+
     private Paint initFillPaint(int color) {
-        Paint result = new Paint();
-        result.setStyle(Paint.Style.FILL);
-        result.setColor(color);
-        result.setAntiAlias(true);
-        return result;
+        return PaintRegistry.obtain(color, Paint.Style.FILL, 0f, true);
     }
 
     private Paint initLinePaint(DisplayMetrics metrics, int color) {
-        Paint result = new Paint();
-        result.setStyle(Paint.Style.FILL);
-        result.setColor(color);
-        result.setAntiAlias(true);
-        return result;
+        return PaintRegistry.obtain(color, Paint.Style.FILL, 0f, true);
+    }
+
+    @Override
+    public void onPaletteChanged(AccentPalette palette) {
+        if (mState.mPalette == palette)
+            return;
+        mState = mState.withPalette(palette);
+        initMarkPaints(mState);
+        mRaster.reset();
+        super.onPaletteChanged(palette);
     }
 
     @Override
     public void draw(Canvas canvas) {
+        if (!mRaster.draw(canvas))
+            drawBadge(canvas);
+    }
+
+    private void drawBadge(Canvas canvas) {
         super.draw(canvas);
+        canvas.drawPath(mMarkPath, mFillPaint);
+        canvas.drawPath(mLinePath, mLinePaint);
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        super.onBoundsChange(bounds);
+        mRaster.reset();
 
         float sideWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, SIDE_DP, mState.mDisplayMetrics);
         float lineWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, LINE_WIDTH_DP, mState.mDisplayMetrics);
-
-        Path mark = getMarkPath(canvas, sideWidth);
-        canvas.drawPath(mark, mFillPaint);
-
-        Path line = getLinePath(canvas, sideWidth, lineWidth);
-        canvas.drawPath(line, mLinePaint);
+        updateMarkPath(bounds, sideWidth);
+        updateLinePath(bounds, sideWidth, lineWidth);
     }
 
     @Override
@@ -91,40 +127,41 @@ public class ContactBadgeDrawable extends RectDrawable {
 
     }
 
-    private Path getMarkPath(Canvas canvas, float side) {
-        Rect bound = getBounds();
-        Path result = new Path();
+    private void updateMarkPath(Rect bound, float side) {
+        Path result = mMarkPath;
+        result.reset();
         result.moveTo(bound.right - side, bound.bottom);
         result.lineTo(bound.right, bound.bottom - side);
         result.lineTo(bound.right, bound.bottom);
         result.close();
-        return result;
     }
 
-    private Path getLinePath(Canvas canvas, float side, float width) {
-        Rect bound = getBounds();
-        Path result = new Path();
+    private void updateLinePath(Rect bound, float side, float width) {
+        Path result = mLinePath;
+        result.reset();
         result.moveTo(bound.right - side, bound.bottom);
         result.rLineTo(-width, 0f);
         result.lineTo(bound.right, bound.bottom - side - width);
         result.rLineTo(0f, width);
         result.close();
-        return result;
     }
 	
 	public static class ContactBadgeConstantState extends ConstantState {
 
 		public final DisplayMetrics mDisplayMetrics;
-		public final int mColor;
+		public final AccentPalette mPalette;
+		public final PaletteColor mColor;
 		public final float mBorderWidth;
-        public final int mBorderColor;
-        public final int mMarkFillColor;
-        public final int mMarkLineColor;
+        public final PaletteColor mBorderColor;
+        public final PaletteColor mMarkFillColor;
+        public final PaletteColor mMarkLineColor;
 		
 		int changingConfigurationValue;
 		
-		public ContactBadgeConstantState(DisplayMetrics metrics, int color, float borderWidth, int borderColor, int markFillColor, int markLineColor) {
+		public ContactBadgeConstantState(DisplayMetrics metrics, AccentPalette palette, PaletteColor color, float borderWidth, PaletteColor borderColor,
+                PaletteColor markFillColor, PaletteColor markLineColor) {
 			mDisplayMetrics = metrics;
+			mPalette = palette;
 			mColor = color;
 			mBorderWidth = borderWidth;
 			mBorderColor = borderColor;
@@ -132,6 +169,14 @@ public class ContactBadgeDrawable extends RectDrawable {
             mMarkLineColor = markLineColor;
 		}
 
+        /** @return The state with the same values, resolving the colors for the given palette. */
+        ContactBadgeConstantState withPalette(AccentPalette palette) {
+            ContactBadgeConstantState result = new ContactBadgeConstantState(mDisplayMetrics, palette, mColor, mBorderWidth, mBorderColor,
+                    mMarkFillColor, mMarkLineColor);
+            result.changingConfigurationValue = changingConfigurationValue;
+            return result;
+        }
+
 		@Override
 		public int getChangingConfigurations() {
 			return changingConfigurationValue;
@@ -139,7 +184,7 @@ public class ContactBadgeDrawable extends RectDrawable {
 
 		@Override
 		public Drawable newDrawable() {
-			return new ContactBadgeDrawable(mDisplayMetrics, mColor, mBorderWidth, mBorderColor, mMarkFillColor, mMarkLineColor);
+			return new ContactBadgeDrawable(this);
 		}
 		
 	}
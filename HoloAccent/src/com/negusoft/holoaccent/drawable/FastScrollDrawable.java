@@ -19,14 +19,16 @@ import android.graphics.Canvas;
 import android.graphics.ColorFilter;
 import android.graphics.Paint;
 import android.graphics.PixelFormat;
+import android.graphics.Rect;
 import android.graphics.RectF;
 import android.graphics.drawable.Drawable;
 import android.util.DisplayMetrics;
 import android.util.TypedValue;
 
 import com.negusoft.holoaccent.AccentPalette;
+import com.negusoft.holoaccent.AccentPaletteHolder;
 
-public class FastScrollDrawable extends Drawable {
+public class FastScrollDrawable extends Drawable implements AccentPaletteHolder.OnPaletteChangedListener {
 	
 	private static final float WIDTH_DP = 30f;
 	private static final float HEIGHT_DP = 54f;
@@ -41,8 +43,9 @@ public class FastScrollDrawable extends Drawable {
 	private static final int GLOW_ALPHA = 63;
 
 	private final DisplayMetrics mMetrics;
-	private final AccentPalette mPalette;
+	private AccentPalette mPalette;
 	private final boolean mPressed;
+	private int mAlpha = 255;
 	
 	private final Paint mFillPaint;
 	private final float mFillWidth;
@@ -54,7 +57,9 @@ public class FastScrollDrawable extends Drawable {
 	private final float mGlowHeight;
 	private final float mGlowRadius;
 	
-	private int mAlpha = 255;
+	/** The shapes for the current bounds, updated in onBoundsChange(). */
+	private final RectF mFillRect = new RectF();
+	private final RectF mGlowRect = new RectF();
 
 	public FastScrollDrawable(DisplayMetrics metrics, AccentPalette palette, boolean pressed) {
 		mMetrics = metrics;
@@ -72,11 +77,11 @@ public class FastScrollDrawable extends Drawable {
 		mGlowRadius = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, GLOW_RADIUS_DP, metrics);
 	}
 	
+	/** Not obtained from PaintRegistry: setAlpha() changes its color on every frame of the fade. */
 	private Paint initFillPaint(AccentPalette palette, boolean pressed) {
 		Paint result = new Paint();
 		result.setStyle(Paint.Style.FILL);
-		int color = getFillColor(palette, pressed, 255);
-		result.setColor(color);
+		result.setColor(getFillColor(palette, pressed, 255));
 		result.setAntiAlias(true);
 		return result;
 	}
@@ -116,28 +121,29 @@ public class FastScrollDrawable extends Drawable {
 	
 	@Override
 	public void draw(Canvas canvas) {
-		float centerX = getBounds().exactCenterX();
-		float centerY = getBounds().exactCenterY();
+		if (mGlowPaint != null)
+			canvas.drawRoundRect(mGlowRect, mGlowRadius, mGlowRadius, mGlowPaint);
+		canvas.drawRoundRect(mFillRect, mFillRadius, mFillRadius, mFillPaint);
+	}
+	
+	@Override
+	protected void onBoundsChange(Rect bounds) {
+		float centerX = bounds.exactCenterX();
+		float centerY = bounds.exactCenterY();
 		
-		if (mGlowPaint != null) {
-			float halfWidth = mGlowWidth / 2f;
-			float halfHeight = mGlowHeight / 2f;
-			RectF rect = new RectF(centerX - halfWidth, 
-					centerY - halfHeight, 
-					centerX + halfWidth, 
-					centerY + halfHeight);
-			mGlowPaint.setColor(getGlowColor(mPalette, mPressed, mAlpha));
-			canvas.drawRoundRect(rect, mGlowRadius, mGlowRadius, mGlowPaint);
-		}
+		float halfWidth = mGlowWidth / 2f;
+		float halfHeight = mGlowHeight / 2f;
+		mGlowRect.set(centerX - halfWidth, 
+				centerY - halfHeight, 
+				centerX + halfWidth, 
+				centerY + halfHeight);
 
-		float halfWidth = mFillWidth / 2f;
-		float halfHeight = mFillHeight / 2f;
-		RectF rect = new RectF(centerX - halfWidth, 
+		halfWidth = mFillWidth / 2f;
+		halfHeight = mFillHeight / 2f;
+		mFillRect.set(centerX - halfWidth, 
 				centerY - halfHeight, 
 				centerX + halfWidth, 
 				centerY + halfHeight);
-		mFillPaint.setColor(getFillColor(mPalette, mPressed, mAlpha));
-		canvas.drawRoundRect(rect, mFillRadius, mFillRadius, mFillPaint);
 	}
 
 	@Override
@@ -148,9 +154,26 @@ public class FastScrollDrawable extends Drawable {
 	@Override
 	public void setAlpha(int alpha) {
 		mAlpha = alpha;
+		updatePaintColors();
 		invalidateSelf();
 	}
 
+	/** Resolve the colors for the new palette, keeping the alpha. */
+	@Override
+	public void onPaletteChanged(AccentPalette palette) {
+		if (mPalette == palette)
+			return;
+		mPalette = palette;
+		updatePaintColors();
+		invalidateSelf();
+	}
+
+	private void updatePaintColors() {
+		if (mGlowPaint != null)
+			mGlowPaint.setColor(getGlowColor(mPalette, mPressed, mAlpha));
+		mFillPaint.setColor(getFillColor(mPalette, mPressed, mAlpha));
+	}
+
 	@Override
 	public void setColorFilter(ColorFilter cf) {
 		// empty
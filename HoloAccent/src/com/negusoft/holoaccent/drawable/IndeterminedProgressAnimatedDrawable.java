@@ -0,0 +1,248 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.drawable;
+
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Animatable;
+import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+import android.view.animation.Interpolator;
+
+import com.negusoft.holoaccent.AccentPalette;
+import com.negusoft.holoaccent.AccentPaletteHolder;
+import com.negusoft.holoaccent.PaletteColor;
+
+/**
+ * Drawable implementation to replace the "progress_indeterminate_horizontal"
+ * animation with a single drawable. It draws the same lines as the frames of
+ * IndeterminedProgressDrawable, but the gaps position is calculated from the
+ * elapsed time on every draw.
+ * <br/><br/>
+ * It invalidates itself after drawing while it is running, so it is redrawn on
+ * every display frame for as long as it is visible. It starts running when it
+ * is drawn for the first time, and can be stopped and restarted as Animatable.
+ */
+public class IndeterminedProgressAnimatedDrawable extends Drawable implements Animatable,
+		AccentPaletteHolder.OnPaletteChangedListener {
+
+	private static final int DEFAULT_SECTION_NUMBER = 5;
+
+	/** The time it takes for the gaps to move one section (20 frames of 20ms). */
+	private static final long CYCLE_DURATION_MS = 400;
+
+	private static final float MIN_WIDTH_DP = 256.0f;
+	private static final float MIN_HEIGHT_DP = 16.0f;
+	private static final float LINE_WIDTH_DP = 4.0f;
+	private static final float GAP_WIDTH_DP = 4.0f;
+
+	private IndeterminedProgressConstantState mState;
+    private Paint mPaint;
+    private final float mMinWidth;
+    private final float mGapWidth;
+    private final float[] mGapPercentages;
+
+    /** Used to calculate the gap positions in a accelarate shape. */
+    private final Interpolator mInterpolator = new Interpolator() {
+        @Override public float getInterpolation(float value) {
+            return value * value;
+        }
+    };
+
+    private boolean mRunning = true;
+    /** The time the animation started at, or -1 if it wasn't drawn since then. */
+    private long mStartTime = -1;
+
+	public IndeterminedProgressAnimatedDrawable(Resources res, int color) {
+		this(res, color, DEFAULT_SECTION_NUMBER);
+	}
+
+	public IndeterminedProgressAnimatedDrawable(Resources res, int color, int sectionCount) {
+		this(res, null, PaletteColor.fixed(color), sectionCount);
+	}
+
+	public IndeterminedProgressAnimatedDrawable(Resources res, AccentPalette palette, PaletteColor color) {
+		this(res, palette, color, DEFAULT_SECTION_NUMBER);
+	}
+
+	public IndeterminedProgressAnimatedDrawable(Resources res, AccentPalette palette, PaletteColor color, int sectionCount) {
+		this(new IndeterminedProgressConstantState(res.getDisplayMetrics(), palette, color, sectionCount));
+	}
+
+	IndeterminedProgressAnimatedDrawable(IndeterminedProgressConstantState state) {
+		mState = state;
+		mPaint = getPaint(state.mDisplayMetrics, state.mColor.getColor(state.mPalette));
+		mMinWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, MIN_WIDTH_DP, state.mDisplayMetrics);
+		mGapWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, GAP_WIDTH_DP, state.mDisplayMetrics);
+		mGapPercentages = new float[state.mSectionCount];
+		updateGapPercentages(0);
+	}
+
+	private Paint getPaint(DisplayMetrics displayMetrics, int color) {
+        float lineWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, LINE_WIDTH_DP, displayMetrics);
+		return PaintRegistry.obtain(color, Paint.Style.STROKE, lineWidth, false);
+	}
+
+	/** Resolve the color for the new palette. */
+	@Override
+	public void onPaletteChanged(AccentPalette palette) {
+		if (mState.mPalette == palette)
+			return;
+		mState = mState.withPalette(palette);
+		mPaint = getPaint(mState.mDisplayMetrics, mState.mColor.getColor(palette));
+		invalidateSelf();
+	}
+
+	/** Set the gap positions for the given time within the cycle. */
+	private void updateGapPercentages(long cycleTime) {
+		float sectionWidth = 1f / mGapPercentages.length;
+		float offset = sectionWidth * cycleTime / CYCLE_DURATION_MS;
+		for (int i=0; i<mGapPercentages.length; i++) {
+			float phase = offset + (i * sectionWidth);
+			mGapPercentages[i] = mInterpolator.getInterpolation(phase);
+		}
+	}
+
+	@Override
+	public int getMinimumWidth() {
+		return mMinWidth < 1.0f ? 1 : (int)mMinWidth;
+	}
+
+	@Override
+	public int getMinimumHeight() {
+		float height = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, MIN_HEIGHT_DP, mState.mDisplayMetrics);
+		return height < 1.0f ? 1 : (int)height;
+	}
+
+	@Override
+	public void draw(Canvas canvas) {
+		if (mRunning) {
+			long now = SystemClock.uptimeMillis();
+			if (mStartTime < 0)
+				mStartTime = now;
+			updateGapPercentages((now - mStartTime) % CYCLE_DURATION_MS);
+		}
+
+		Rect bounds = getBounds();
+
+		float totalWidth = bounds.width();
+		if (totalWidth < mMinWidth)
+			totalWidth = mMinWidth;
+
+        float gapWidth = mGapWidth;
+        float centerY = bounds.exactCenterY();
+        float startX = bounds.left;
+        float stopX;
+
+        totalWidth += gapWidth;
+
+		for (float startPercentage : mGapPercentages) {
+			stopX = bounds.left + (totalWidth * startPercentage) - gapWidth;
+			if (stopX < bounds.left) {
+				startX = bounds.left + (totalWidth * startPercentage);
+				continue;
+			}
+			canvas.drawLine(startX, centerY, stopX, centerY, mPaint);
+			startX = stopX + gapWidth;
+		}
+		canvas.drawLine(startX, centerY, totalWidth, centerY, mPaint);
+
+		if (mRunning)
+			invalidateSelf();
+	}
+
+	@Override
+	public void start() {
+		if (mRunning)
+			return;
+		mRunning = true;
+		mStartTime = -1;
+		invalidateSelf();
+	}
+
+	@Override
+	public void stop() {
+		mRunning = false;
+	}
+
+	@Override
+	public boolean isRunning() {
+		return mRunning;
+	}
+
+	@Override
+	public int getOpacity() {
+		return PixelFormat.TRANSLUCENT;
+	}
+
+	@Override
+	public void setAlpha(int alpha) {
+		// empty
+	}
+
+	@Override
+	public void setColorFilter(ColorFilter cf) {
+		// empty
+	}
+
+	@Override
+	public final ConstantState getConstantState() {
+		mState.changingConfigurationValue = super.getChangingConfigurations();
+		return mState;
+	}
+
+	public static class IndeterminedProgressConstantState extends ConstantState {
+
+		public final DisplayMetrics mDisplayMetrics;
+		public final AccentPalette mPalette;
+		public final PaletteColor mColor;
+		public final int mSectionCount;
+
+		int changingConfigurationValue;
+
+		public IndeterminedProgressConstantState(DisplayMetrics metrics, AccentPalette palette, PaletteColor color, int sectionCount) {
+			mDisplayMetrics = metrics;
+			mPalette = palette;
+			mColor = color;
+			mSectionCount = sectionCount;
+		}
+
+		/** @return The state with the same values, resolving the color for the given palette. */
+		IndeterminedProgressConstantState withPalette(AccentPalette palette) {
+			IndeterminedProgressConstantState result = new IndeterminedProgressConstantState(mDisplayMetrics, palette, mColor, mSectionCount);
+			result.changingConfigurationValue = changingConfigurationValue;
+			return result;
+		}
+
+		@Override
+		public int getChangingConfigurations() {
+			return changingConfigurationValue;
+		}
+
+		@Override
+		public Drawable newDrawable() {
+			return new IndeterminedProgressAnimatedDrawable(this);
+		}
+
+	}
+
+}
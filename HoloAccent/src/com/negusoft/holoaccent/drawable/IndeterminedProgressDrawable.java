@@ -28,6 +28,9 @@ import android.util.DisplayMetrics;
 import android.util.TypedValue;
 import android.view.animation.Interpolator;
 
+import com.negusoft.holoaccent.AccentPalette;
+import com.negusoft.holoaccent.AccentPaletteHolder;
+import com.negusoft.holoaccent.PaletteColor;
 import com.negusoft.holoaccent.R;
 
 /**
@@ -36,7 +39,7 @@ import com.negusoft.holoaccent.R;
  * <br/><br/>
  * The gaps position is calculated when loading
  */
-public class IndeterminedProgressDrawable extends Drawable {
+public class IndeterminedProgressDrawable extends Drawable implements AccentPaletteHolder.OnPaletteChangedListener {
 	
 	private static final int DEFAULT_SECTION_NUMBER = 5;
 
@@ -46,7 +49,11 @@ public class IndeterminedProgressDrawable extends Drawable {
 	private static final float GAP_WIDTH_DP = 4.0f;
 	
 	private final DisplayMetrics mDisplayMetrics;
-    private final Paint mPaint;
+	private final PaletteColor mColor;
+	private AccentPalette mPalette;
+    private Paint mPaint;
+    private final float mMinWidth;
+    private final float mGapWidth;
     private final float[] mGapPercentages;
 
     /** Used to calculate the gap positions in a accelarate shape. */
@@ -72,11 +79,14 @@ public class IndeterminedProgressDrawable extends Drawable {
 	public IndeterminedProgressDrawable(Context c, int frameIndex, int frameCount, int sectionCount) {
 		Resources res = c.getResources();
 		mDisplayMetrics = res.getDisplayMetrics();
+		mMinWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, MIN_WIDTH_DP, mDisplayMetrics);
+		mGapWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, GAP_WIDTH_DP, mDisplayMetrics);
 
 		TypedArray attrs = c.getTheme().obtainStyledAttributes(R.styleable.HoloAccent);
 		int color = attrs.getColor(R.styleable.HoloAccent_accentColor, res.getColor(R.color.ha__accent_default));
 		attrs.recycle();
 
+        mColor = PaletteColor.fixed(color);
         mPaint = getPaint(mDisplayMetrics, color);
         
         mGapPercentages = getGapPercentages(frameIndex, frameCount, sectionCount);
@@ -87,18 +97,36 @@ public class IndeterminedProgressDrawable extends Drawable {
 	}
 	
 	public IndeterminedProgressDrawable(Resources res, int color, int frameIndex, int frameCount, int sectionCount) {
+		this(res, null, PaletteColor.fixed(color), frameIndex, frameCount, sectionCount);
+	}
+	
+	public IndeterminedProgressDrawable(Resources res, AccentPalette palette, PaletteColor color, int frameIndex, int frameCount) {
+		this(res, palette, color, frameIndex, frameCount, DEFAULT_SECTION_NUMBER);
+	}
+	
+	public IndeterminedProgressDrawable(Resources res, AccentPalette palette, PaletteColor color, int frameIndex, int frameCount, int sectionCount) {
 		mDisplayMetrics = res.getDisplayMetrics();
-        mPaint = getPaint(mDisplayMetrics, color);
+		mMinWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, MIN_WIDTH_DP, mDisplayMetrics);
+		mGapWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, GAP_WIDTH_DP, mDisplayMetrics);
+		mColor = color;
+		mPalette = palette;
+        mPaint = getPaint(mDisplayMetrics, color.getColor(palette));
         mGapPercentages = getGapPercentages(frameIndex, frameCount, sectionCount);
 	}
 	
 	private Paint getPaint(DisplayMetrics displayMetrics, int color) {
         float lineWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, LINE_WIDTH_DP, displayMetrics);
-		Paint result = new Paint();
-		result.setColor(color);
-		result.setStyle(Paint.Style.STROKE);
-		result.setStrokeWidth(lineWidth);
-		return result;
+		return PaintRegistry.obtain(color, Paint.Style.STROKE, lineWidth, false);
+	}
+	
+	/** Resolve the color for the new palette. */
+	@Override
+	public void onPaletteChanged(AccentPalette palette) {
+		if (mPalette == palette)
+			return;
+		mPalette = palette;
+		mPaint = getPaint(mDisplayMetrics, mColor.getColor(palette));
+		invalidateSelf();
 	}
 	
 	private float[] getGapPercentages(int frameIndex, int frameCount, int sectionCount) {
@@ -114,8 +142,7 @@ public class IndeterminedProgressDrawable extends Drawable {
 	
 	@Override
 	public int getMinimumWidth() {
-		float width = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, MIN_WIDTH_DP, mDisplayMetrics);
-		return width < 1.0f ? 1 : (int)width;
+		return mMinWidth < 1.0f ? 1 : (int)mMinWidth;
 	}
 	
 	@Override
@@ -130,11 +157,10 @@ public class IndeterminedProgressDrawable extends Drawable {
 		Rect bounds = getBounds();
 		
 		float totalWidth = bounds.width();
-		float minWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, MIN_WIDTH_DP, mDisplayMetrics);
-		if (totalWidth < minWidth)
-			totalWidth = minWidth;
+		if (totalWidth < mMinWidth)
+			totalWidth = mMinWidth;
 
-        float gapWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, GAP_WIDTH_DP, mDisplayMetrics);
+        float gapWidth = mGapWidth;
         float centerY = bounds.exactCenterY();
         float startX = bounds.left;
         float stopX;
@@ -27,6 +27,9 @@ import android.graphics.drawable.Drawable;
 import android.util.DisplayMetrics;
 import android.util.TypedValue;
 
+import com.negusoft.holoaccent.AccentPalette;
+import com.negusoft.holoaccent.AccentPaletteHolder;
+import com.negusoft.holoaccent.PaletteColor;
 import com.negusoft.holoaccent.R;
 
 /**
@@ -37,7 +40,7 @@ import com.negusoft.holoaccent.R;
  * are taken from the original drawables, and represented as a 
  * percentage [0..1] of the whole width of the drawable.
  */
-public class IndeterminedProgressLegacyDrawable extends Drawable {
+public class IndeterminedProgressLegacyDrawable extends Drawable implements AccentPaletteHolder.OnPaletteChangedListener {
 
 	private static final float MIN_WIDTH_DP = 606.0f;
 	private static final float MIN_HEIGHT_DP = 16.0f;
@@ -60,7 +63,9 @@ public class IndeterminedProgressLegacyDrawable extends Drawable {
 			GAP_PERCENTAGES_5, GAP_PERCENTAGES_6, GAP_PERCENTAGES_7, GAP_PERCENTAGES_8 };
 	
 	private final DisplayMetrics mDisplayMetrics;
-    private final Paint mPaint;
+	private final PaletteColor mColor;
+	private AccentPalette mPalette;
+    private Paint mPaint;
     private final float[] mGapPercentages;
 	
 	public IndeterminedProgressLegacyDrawable(Context c, int index) {
@@ -71,24 +76,37 @@ public class IndeterminedProgressLegacyDrawable extends Drawable {
 		int color = attrs.getColor(R.styleable.HoloAccent_accentColor, res.getColor(R.color.ha__accent_default));
 		attrs.recycle();
 
+        mColor = PaletteColor.fixed(color);
         mPaint = getPaint(mDisplayMetrics, color);
         
         mGapPercentages = getGapPercentages(index);
 	}
 	
 	public IndeterminedProgressLegacyDrawable(Resources res, int color, int index) {
+		this(res, null, PaletteColor.fixed(color), index);
+	}
+	
+	public IndeterminedProgressLegacyDrawable(Resources res, AccentPalette palette, PaletteColor color, int index) {
 		mDisplayMetrics = res.getDisplayMetrics();
-        mPaint = getPaint(mDisplayMetrics, color);
+		mColor = color;
+		mPalette = palette;
+        mPaint = getPaint(mDisplayMetrics, color.getColor(palette));
         mGapPercentages = getGapPercentages(index);
 	}
 	
 	private Paint getPaint(DisplayMetrics displayMetrics, int color) {
         float lineWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, LINE_WIDTH_DP, displayMetrics);
-		Paint result = new Paint();
-		result.setColor(color);
-		result.setStyle(Paint.Style.STROKE);
-		result.setStrokeWidth(lineWidth);
-		return result;
+		return PaintRegistry.obtain(color, Paint.Style.STROKE, lineWidth, false);
+	}
+	
+	/** Resolve the color for the new palette. */
+	@Override
+	public void onPaletteChanged(AccentPalette palette) {
+		if (mPalette == palette)
+			return;
+		mPalette = palette;
+		mPaint = getPaint(mDisplayMetrics, mColor.getColor(palette));
+		invalidateSelf();
 	}
 	
 	private float[] getGapPercentages(int index) {
@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.drawable;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import android.graphics.ColorFilter;
+import android.graphics.MaskFilter;
+import android.graphics.Paint;
+import android.graphics.PathEffect;
+import android.graphics.Rasterizer;
+import android.graphics.Shader;
+import android.graphics.Typeface;
+import android.graphics.Xfermode;
+
+/**
+ * Shares the paints of the drawables. Most of them only differ in the color, style
+ * and stroke width, and the same ones are created for every row of a list, so the
+ * drawables with the same values get the same instance.
+ * <br/><br/>
+ * The paints are shared, so they can't be modified: their setters throw an
+ * UnsupportedOperationException. Only the paints that keep their values for the
+ * life of the drawable are obtained here. A drawable that changes its paint while
+ * animating (e.g. in setAlpha()) keeps its own Paint instead, so the frames of the
+ * animation don't fill the registry and evict the paints shared by the others.
+ */
+final class PaintRegistry {
+
+	private static final int MAX_CACHED_PAINTS = 64;
+
+	private static final Map<Key, Paint> sPaints =
+			new LinkedHashMap<Key, Paint>(MAX_CACHED_PAINTS, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, Paint> eldest) {
+			return size() > MAX_CACHED_PAINTS;
+		}
+	};
+
+	private PaintRegistry() { }
+
+	/**
+	 * Get the shared paint with the given values, created if necessary.
+	 * @param strokeWidth The width in pixels, ignored by the Paint.Style.FILL paints.
+	 */
+	static Paint obtain(int color, Paint.Style style, float strokeWidth, boolean antiAlias) {
+		if (style == Paint.Style.FILL)
+			strokeWidth = 0f;
+		Key key = new Key(color, style, strokeWidth, antiAlias);
+		synchronized (sPaints) {
+			Paint result = sPaints.get(key);
+			if (result == null) {
+				result = new SharedPaint(color, style, strokeWidth, antiAlias);
+				sPaints.put(key, result);
+			}
+			return result;
+		}
+	}
+
+	/** A paint that can't be modified once it is created. */
+	private static final class SharedPaint extends Paint {
+
+		private final boolean mSealed;
+
+		SharedPaint(int color, Paint.Style style, float strokeWidth, boolean antiAlias) {
+			super.setColor(color);
+			super.setStyle(style);
+			super.setStrokeWidth(strokeWidth);
+			super.setAntiAlias(antiAlias);
+			mSealed = true;
+		}
+
+		private void checkMutable() {
+			if (mSealed)
+				throw new UnsupportedOperationException("Shared paints can't be modified");
+		}
+
+		@Override public void set(Paint src) { checkMutable(); super.set(src); }
+		@Override public void reset() { checkMutable(); super.reset(); }
+		@Override public void setFlags(int flags) { checkMutable(); super.setFlags(flags); }
+		@Override public void setHinting(int mode) { checkMutable(); super.setHinting(mode); }
+		@Override public void setAntiAlias(boolean aa) { checkMutable(); super.setAntiAlias(aa); }
+		@Override public void setDither(boolean dither) { checkMutable(); super.setDither(dither); }
+		@Override public void setLinearText(boolean linearText) { checkMutable(); super.setLinearText(linearText); }
+		@Override public void setSubpixelText(boolean subpixelText) { checkMutable(); super.setSubpixelText(subpixelText); }
+		@Override public void setUnderlineText(boolean underlineText) { checkMutable(); super.setUnderlineText(underlineText); }
+		@Override public void setStrikeThruText(boolean strikeThruText) { checkMutable(); super.setStrikeThruText(strikeThruText); }
+		@Override public void setFakeBoldText(boolean fakeBoldText) { checkMutable(); super.setFakeBoldText(fakeBoldText); }
+		@Override public void setFilterBitmap(boolean filter) { checkMutable(); super.setFilterBitmap(filter); }
+		@Override public void setStyle(Paint.Style style) { checkMutable(); super.setStyle(style); }
+		@Override public void setColor(int color) { checkMutable(); super.setColor(color); }
+		@Override public void setAlpha(int a) { checkMutable(); super.setAlpha(a); }
+		@Override public void setARGB(int a, int r, int g, int b) { checkMutable(); super.setARGB(a, r, g, b); }
+		@Override public void setStrokeWidth(float width) { checkMutable(); super.setStrokeWidth(width); }
+		@Override public void setStrokeMiter(float miter) { checkMutable(); super.setStrokeMiter(miter); }
+		@Override public void setStrokeCap(Paint.Cap cap) { checkMutable(); super.setStrokeCap(cap); }
+		@Override public void setStrokeJoin(Paint.Join join) { checkMutable(); super.setStrokeJoin(join); }
+		@Override public Shader setShader(Shader shader) { checkMutable(); return super.setShader(shader); }
+		@Override public ColorFilter setColorFilter(ColorFilter filter) { checkMutable(); return super.setColorFilter(filter); }
+		@Override public Xfermode setXfermode(Xfermode xfermode) { checkMutable(); return super.setXfermode(xfermode); }
+		@Override public PathEffect setPathEffect(PathEffect effect) { checkMutable(); return super.setPathEffect(effect); }
+		@Override public MaskFilter setMaskFilter(MaskFilter maskfilter) { checkMutable(); return super.setMaskFilter(maskfilter); }
+		@Override public Typeface setTypeface(Typeface typeface) { checkMutable(); return super.setTypeface(typeface); }
+		@Override public Rasterizer setRasterizer(Rasterizer rasterizer) { checkMutable(); return super.setRasterizer(rasterizer); }
+		@Override public void setShadowLayer(float radius, float dx, float dy, int color) { checkMutable(); super.setShadowLayer(radius, dx, dy, color); }
+		@Override public void clearShadowLayer() { checkMutable(); super.clearShadowLayer(); }
+		@Override public void setTextAlign(Paint.Align align) { checkMutable(); super.setTextAlign(align); }
+		@Override public void setTextLocale(Locale locale) { checkMutable(); super.setTextLocale(locale); }
+		@Override public void setTextSize(float textSize) { checkMutable(); super.setTextSize(textSize); }
+		@Override public void setTextScaleX(float scaleX) { checkMutable(); super.setTextScaleX(scaleX); }
+		@Override public void setTextSkewX(float skewX) { checkMutable(); super.setTextSkewX(skewX); }
+	}
+
+	private static final class Key {
+		final int color;
+		final Paint.Style style;
+		final int strokeWidthBits;
+		final boolean antiAlias;
+
+		Key(int color, Paint.Style style, float strokeWidth, boolean antiAlias) {
+			this.color = color;
+			this.style = style;
+			this.strokeWidthBits = Float.floatToIntBits(strokeWidth);
+			this.antiAlias = antiAlias;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key))
+				return false;
+			Key other = (Key)o;
+			return color == other.color && style == other.style
+					&& strokeWidthBits == other.strokeWidthBits && antiAlias == other.antiAlias;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = color;
+			result = 31 * result + style.ordinal();
+			result = 31 * result + strokeWidthBits;
+			result = 31 * result + (antiAlias ? 1 : 0);
+			return result;
+		}
+	}
+
+}
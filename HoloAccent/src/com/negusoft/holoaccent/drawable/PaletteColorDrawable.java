@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.drawable;
+
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+
+import com.negusoft.holoaccent.AccentPalette;
+import com.negusoft.holoaccent.AccentPaletteHolder;
+import com.negusoft.holoaccent.PaletteColor;
+
+/**
+ * ColorDrawable filled with one of the palette colors. The color is resolved
+ * again when the palette changes, so the drawable doesn't need to be replaced.
+ */
+public class PaletteColorDrawable extends ColorDrawable implements AccentPaletteHolder.OnPaletteChangedListener {
+
+	private PaletteColorState mState;
+	private int mAlpha = 255;
+
+	public PaletteColorDrawable(AccentPalette palette, PaletteColor color) {
+		this(new PaletteColorState(palette, color));
+	}
+
+	PaletteColorDrawable(PaletteColorState state) {
+		super(state.mColor.getColor(state.mPalette));
+		mState = state;
+	}
+
+	/** Resolve the color for the new palette, keeping the alpha. */
+	@Override
+	public void onPaletteChanged(AccentPalette palette) {
+		if (mState.mPalette == palette)
+			return;
+		mState = mState.withPalette(palette);
+		// setColor() drops the alpha set to the drawable
+		setColor(mState.mColor.getColor(palette));
+		super.setAlpha(mAlpha);
+	}
+
+	@Override
+	public void setAlpha(int alpha) {
+		mAlpha = alpha;
+		super.setAlpha(alpha);
+	}
+
+	@Override
+	public ConstantState getConstantState() {
+		mState.changingConfigurationValue = super.getChangingConfigurations();
+		return mState;
+	}
+
+	public static class PaletteColorState extends ConstantState {
+
+		public final AccentPalette mPalette;
+		public final PaletteColor mColor;
+
+		int changingConfigurationValue;
+
+		public PaletteColorState(AccentPalette palette, PaletteColor color) {
+			mPalette = palette;
+			mColor = color;
+		}
+
+		/** @return The state with the same values, resolving the color for the given palette. */
+		PaletteColorState withPalette(AccentPalette palette) {
+			PaletteColorState result = new PaletteColorState(palette, mColor);
+			result.changingConfigurationValue = changingConfigurationValue;
+			return result;
+		}
+
+		@Override
+		public int getChangingConfigurations() {
+			return changingConfigurationValue;
+		}
+
+		@Override
+		public Drawable newDrawable() {
+			return new PaletteColorDrawable(this);
+		}
+
+	}
+
+}
@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.drawable;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.Drawable.ConstantState;
+import android.util.LruCache;
+
+/**
+ * Keeps small procedural drawables rasterized, so they are drawn with a single
+ * drawBitmap() instead of tessellating their anti-aliased shapes on every draw.
+ * It is meant for the drawables that appear on every row of a list, like the
+ * spinner arrows, the contact badges or the seekbar thumbs.
+ * <br/><br/>
+ * The bitmaps are shared by the drawables with the same constant state and size.
+ * The state holds the color, type and display metrics, and the drawables the
+ * interceptors return for a resource are created from the same state. The cache
+ * is bounded by the number of bytes of the bitmaps.
+ * <br/><br/>
+ * It is disabled by default. Call setMaxSize() before the views are inflated to
+ * enable it, for example from Application.onCreate().
+ */
+public class RasterCache {
+
+	/** Enough for a few hundred small drawables (256KB). */
+	public static final int DEFAULT_MAX_SIZE_BYTES = 256 * 1024;
+
+	private static volatile LruCache<Key, Raster> sCache;
+
+	/**
+	 * Enable the cache with the given size, replacing the existing one.
+	 * @param maxSize The maximum number of bytes of the bitmaps to keep, or 0 to
+	 * disable it.
+	 */
+	public static void setMaxSize(int maxSize) {
+		if (maxSize < 0)
+			throw new IllegalArgumentException("maxSize < 0");
+		sCache = maxSize == 0 ? null : new LruCache<Key, Raster>(maxSize) {
+			@Override
+			protected int sizeOf(Key key, Raster value) {
+				return value.bitmap.getByteCount();
+			}
+		};
+	}
+
+	/** @return The maximum number of bytes of the bitmaps, or 0 if it is disabled. */
+	public static int getMaxSize() {
+		LruCache<Key, Raster> cache = sCache;
+		return cache == null ? 0 : cache.maxSize();
+	}
+
+	/** Remove all the bitmaps, for example when the system is low on memory. */
+	public static void evictAll() {
+		LruCache<Key, Raster> cache = sCache;
+		if (cache != null)
+			cache.evictAll();
+	}
+
+	/** Set the bounds of a circle, with a pixel of margin for the anti-aliasing. */
+	static void setCircleBounds(Rect out, float centerX, float centerY, float radius) {
+		int extent = (int)Math.ceil(radius) + 1;
+		out.set((int)Math.floor(centerX) - extent, (int)Math.floor(centerY) - extent,
+				(int)Math.ceil(centerX) + extent, (int)Math.ceil(centerY) + extent);
+	}
+
+	/**
+	 * Kept by each drawable to draw through the cache. It holds the raster found
+	 * for the current bounds, so drawing doesn't even need a lookup.
+	 */
+	static abstract class Slot {
+
+		private final Drawable mDrawable;
+		/** The cache the raster was taken from. */
+		private LruCache<Key, Raster> mCache;
+		private Raster mRaster;
+
+		Slot(Drawable drawable) {
+			mDrawable = drawable;
+		}
+
+		/** Set the area covered by the drawable for its current bounds. */
+		abstract void getRasterBounds(Rect out);
+
+		/** Draw the drawable without going through the cache. */
+		abstract void drawShape(Canvas canvas);
+
+		/** Forget the raster, because the bounds changed. */
+		void reset() {
+			mRaster = null;
+		}
+
+		/**
+		 * Draw the raster for the current bounds, creating it if necessary.
+		 * @return False if the cache is disabled, so the caller draws the shape.
+		 */
+		boolean draw(Canvas canvas) {
+			LruCache<Key, Raster> cache = sCache;
+			if (cache == null) {
+				mRaster = null;
+				return false;
+			}
+			Rect bounds = mDrawable.getBounds();
+			if (mRaster == null || mCache != cache) {
+				mRaster = obtain(cache, bounds);
+				mCache = cache;
+				if (mRaster == null)
+					return false;
+			}
+			canvas.drawBitmap(mRaster.bitmap, bounds.left + mRaster.offsetX, bounds.top + mRaster.offsetY, null);
+			return true;
+		}
+
+		private Raster obtain(LruCache<Key, Raster> cache, Rect bounds) {
+			ConstantState state = mDrawable.getConstantState();
+			if (state == null || bounds.isEmpty())
+				return null;
+			Key key = new Key(state, bounds.width(), bounds.height());
+			Raster result = cache.get(key);
+			if (result != null)
+				return result;
+
+			Rect rasterBounds = new Rect();
+			getRasterBounds(rasterBounds);
+			if (rasterBounds.isEmpty())
+				return null;
+			Bitmap bitmap = Bitmap.createBitmap(rasterBounds.width(), rasterBounds.height(), Bitmap.Config.ARGB_8888);
+			bitmap.setDensity(Bitmap.DENSITY_NONE);
+			Canvas canvas = new Canvas(bitmap);
+			canvas.translate(-rasterBounds.left, -rasterBounds.top);
+			drawShape(canvas);
+
+			result = new Raster(bitmap, rasterBounds.left - bounds.left, rasterBounds.top - bounds.top);
+			cache.put(key, result);
+			return result;
+		}
+	}
+
+	/** The bitmap and its position relative to the bounds of the drawable. */
+	private static final class Raster {
+		final Bitmap bitmap;
+		final int offsetX;
+		final int offsetY;
+
+		Raster(Bitmap bitmap, int offsetX, int offsetY) {
+			this.bitmap = bitmap;
+			this.offsetX = offsetX;
+			this.offsetY = offsetY;
+		}
+	}
+
+	private static final class Key {
+		final ConstantState state;
+		final int width;
+		final int height;
+
+		Key(ConstantState state, int width, int height) {
+			this.state = state;
+			this.width = width;
+			this.height = height;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key))
+				return false;
+			Key other = (Key)o;
+			return state == other.state && width == other.width && height == other.height;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = System.identityHashCode(state);
+			result = 31 * result + width;
+			result = 31 * result + height;
+			return result;
+		}
+	}
+
+}
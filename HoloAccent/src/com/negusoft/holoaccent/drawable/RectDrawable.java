@@ -27,23 +27,36 @@ import android.graphics.drawable.Drawable;
 import android.util.DisplayMetrics;
 import android.util.TypedValue;
 
-public class RectDrawable extends Drawable {
+import com.negusoft.holoaccent.AccentPalette;
+import com.negusoft.holoaccent.AccentPaletteHolder;
+import com.negusoft.holoaccent.PaletteColor;
 
-	private final RectConstantState mState;
-	private final Paint mFillPaint;
-	private final Paint mBorderPaint;
+public class RectDrawable extends Drawable implements AccentPaletteHolder.OnPaletteChangedListener {
+
+	private RectConstantState mState;
+	private Paint mFillPaint;
+	private Paint mBorderPaint;
+
+	/** The shapes for the current bounds, updated in onBoundsChange(). */
+	private final RectF mFillRect = new RectF();
+	private final RectF mBorderRect = new RectF();
 	
 	public RectDrawable(Resources res, int fillColor, float borderWidthDp, int borderColor) {
-		DisplayMetrics metrics = res.getDisplayMetrics();
-		mState = new RectConstantState(metrics, fillColor, borderWidthDp, borderColor);
-		mBorderPaint = initBorderPaint(metrics, borderWidthDp, borderColor);
-		mFillPaint = initFillPaint(fillColor);
+		this(res, null, PaletteColor.fixed(fillColor), borderWidthDp, PaletteColor.fixed(borderColor));
 	}
 	
-	RectDrawable(DisplayMetrics metrics, int fillColor, float borderWidthDp, int borderColor) {
-		mState = new RectConstantState(metrics, fillColor, borderWidthDp, borderColor);
-		mBorderPaint = initBorderPaint(metrics, borderWidthDp, borderColor);
-		mFillPaint = initFillPaint(fillColor);
+	public RectDrawable(Resources res, AccentPalette palette, PaletteColor fillColor, float borderWidthDp, PaletteColor borderColor) {
+		this(new RectConstantState(res.getDisplayMetrics(), palette, fillColor, borderWidthDp, borderColor));
+	}
+	
+	RectDrawable(RectConstantState state) {
+		mState = state;
+		initPaints(state);
+	}
+	
+	private void initPaints(RectConstantState state) {
+		mBorderPaint = initBorderPaint(state.mDisplayMetrics, state.mBorderWidth, state.mBorderColor.getColor(state.mPalette));
+		mFillPaint = initFillPaint(state.mColor.getColor(state.mPalette));
 	}
 	
 	private Paint initBorderPaint(DisplayMetrics displayMetrics, float borderWidthDp, int borderColor) {
@@ -53,49 +66,43 @@ public class RectDrawable extends Drawable {
 			return null;
 		
         float borderWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, borderWidthDp, displayMetrics);
-		Paint result = new Paint();
-		result.setColor(borderColor);
-		result.setStyle(Paint.Style.STROKE);
-		result.setStrokeWidth(borderWidth);
-		result.setAntiAlias(true);
-		return result;
+		return PaintRegistry.obtain(borderColor, Paint.Style.STROKE, borderWidth, true);
 	}
 	
 	private Paint initFillPaint(int fillColor) {
 		if (Color.alpha(fillColor) == 0)
 			return null;
 		
-        Paint result = new Paint();
-		result.setColor(fillColor);
-		result.setStyle(Paint.Style.FILL);
-		result.setAntiAlias(true);
-		return result;
+		return PaintRegistry.obtain(fillColor, Paint.Style.FILL, 0f, true);
+	}
+
+	/** Resolve the colors for the new palette. The shapes don't change. */
+	@Override
+	public void onPaletteChanged(AccentPalette palette) {
+		if (mState.mPalette == palette)
+			return;
+		mState = mState.withPalette(palette);
+		initPaints(mState);
+		invalidateSelf();
 	}
 	
 	@Override
 	public void draw(Canvas canvas) {
-		Rect r = getBounds();
-		if (mFillPaint != null) {
-			float fillMargin = 0f;
-			if (mBorderPaint != null)
-				fillMargin = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, mState.mBorderWidth, mState.mDisplayMetrics);
-			float left = r.left + fillMargin;
-			float top = r.top + fillMargin;
-			float right = r.right - fillMargin;
-			float bottom = r.bottom - fillMargin;
-			RectF fillRect = new RectF(left, top, right, bottom);
-			canvas.drawRect(fillRect, mFillPaint);
-		}
-		if (mBorderPaint != null) {
-			float borderMargin = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, mState.mBorderWidth, mState.mDisplayMetrics);
-			borderMargin = borderMargin / 2f;
-			float left = r.left + borderMargin;
-			float top = r.top + borderMargin;
-			float right = r.right - borderMargin;
-			float bottom = r.bottom - borderMargin;
-			RectF borderRect = new RectF(left, top, right, bottom);
-			canvas.drawRect(borderRect, mBorderPaint);
-		}
+		if (mFillPaint != null)
+			canvas.drawRect(mFillRect, mFillPaint);
+		if (mBorderPaint != null)
+			canvas.drawRect(mBorderRect, mBorderPaint);
+	}
+	
+	@Override
+	protected void onBoundsChange(Rect r) {
+		float borderWidth = mBorderPaint != null ? mBorderPaint.getStrokeWidth() : 0f;
+		
+		float fillMargin = borderWidth;
+		mFillRect.set(r.left + fillMargin, r.top + fillMargin, r.right - fillMargin, r.bottom - fillMargin);
+		
+		float borderMargin = borderWidth / 2f;
+		mBorderRect.set(r.left + borderMargin, r.top + borderMargin, r.right - borderMargin, r.bottom - borderMargin);
 	}
 
 	@Override
@@ -122,19 +129,28 @@ public class RectDrawable extends Drawable {
 	public static class RectConstantState extends ConstantState {
 
 		public final DisplayMetrics mDisplayMetrics;
-		public final int mColor;
+		public final AccentPalette mPalette;
+		public final PaletteColor mColor;
 		public final float mBorderWidth;
-		public final int mBorderColor;
+		public final PaletteColor mBorderColor;
 		
 		int changingConfigurationValue;
 		
-		public RectConstantState(DisplayMetrics metrics, int color, float borderWidth, int borderColor) {
+		public RectConstantState(DisplayMetrics metrics, AccentPalette palette, PaletteColor color, float borderWidth, PaletteColor borderColor) {
 			mDisplayMetrics = metrics;
+			mPalette = palette;
 			mColor = color;
 			mBorderWidth = borderWidth;
 			mBorderColor = borderColor;
 		}
 
+		/** @return The state with the same values, resolving the colors for the given palette. */
+		RectConstantState withPalette(AccentPalette palette) {
+			RectConstantState result = new RectConstantState(mDisplayMetrics, palette, mColor, mBorderWidth, mBorderColor);
+			result.changingConfigurationValue = changingConfigurationValue;
+			return result;
+		}
+
 		@Override
 		public int getChangingConfigurations() {
 			return changingConfigurationValue;
@@ -142,7 +158,7 @@ public class RectDrawable extends Drawable {
 
 		@Override
 		public Drawable newDrawable() {
-			return new RectDrawable(mDisplayMetrics, mColor, mBorderWidth, mBorderColor);
+			return new RectDrawable(this);
 		}
 		
 	}
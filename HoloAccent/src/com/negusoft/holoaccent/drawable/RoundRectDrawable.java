@@ -28,6 +28,10 @@ import android.graphics.drawable.Drawable;
 import android.util.DisplayMetrics;
 import android.util.TypedValue;
 
+import com.negusoft.holoaccent.AccentPalette;
+import com.negusoft.holoaccent.AccentPaletteHolder;
+import com.negusoft.holoaccent.PaletteColor;
+
 /**
  * Rectangle shape with rounded corners. The size of the corner is the outer 
  * part size, even with a border.
@@ -35,20 +39,42 @@ import android.util.TypedValue;
  * IMPORTANT: If a border is specified, this is drawn over the fill color. So 
  * if the border color is translucent, it will be blended with the background.
  */
-public class RoundRectDrawable extends Drawable {
+public class RoundRectDrawable extends Drawable implements AccentPaletteHolder.OnPaletteChangedListener {
+
+	private RoundRectConstantState mState;
+	private Paint mFillPaint;
+	private Paint mBorderPaint;
+	private final float mCornerSize;
 
-	private final RoundRectConstantState mState;
-	private final Paint mFillPaint;
-	private final Paint mBorderPaint;
+	/** The shape for the current bounds, updated in onBoundsChange(). */
+	private final Path mPath = new Path();
+	private final RectF mArcRect = new RectF();
 
 	public RoundRectDrawable(DisplayMetrics metrics, int fillColor, float cornerSizeDp) {
 		this(metrics, fillColor, 0f, 0, cornerSizeDp);
 	}
 	
 	public RoundRectDrawable(DisplayMetrics metrics, int fillColor, float borderWidthDp, int borderColor, float cornerSizeDp) {
-		mState = new RoundRectConstantState(metrics, fillColor, borderWidthDp, borderColor, cornerSizeDp);
-		mBorderPaint = initBorderPaint(metrics, borderWidthDp, borderColor);
-		mFillPaint = initFillPaint(metrics, borderWidthDp, fillColor);
+		this(metrics, null, PaletteColor.fixed(fillColor), borderWidthDp, PaletteColor.fixed(borderColor), cornerSizeDp);
+	}
+	
+	public RoundRectDrawable(DisplayMetrics metrics, AccentPalette palette, PaletteColor fillColor, float cornerSizeDp) {
+		this(metrics, palette, fillColor, 0f, PaletteColor.TRANSPARENT, cornerSizeDp);
+	}
+	
+	public RoundRectDrawable(DisplayMetrics metrics, AccentPalette palette, PaletteColor fillColor, float borderWidthDp, PaletteColor borderColor, float cornerSizeDp) {
+		this(new RoundRectConstantState(metrics, palette, fillColor, borderWidthDp, borderColor, cornerSizeDp));
+	}
+	
+	RoundRectDrawable(RoundRectConstantState state) {
+		mState = state;
+		initPaints(state);
+		mCornerSize = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, state.mCorenerSize, state.mDisplayMetrics);
+	}
+	
+	private void initPaints(RoundRectConstantState state) {
+		mBorderPaint = initBorderPaint(state.mDisplayMetrics, state.mBorderWidth, state.mBorderColor.getColor(state.mPalette));
+		mFillPaint = initFillPaint(state.mDisplayMetrics, state.mBorderWidth, state.mColor.getColor(state.mPalette));
 	}
 	
 	private Paint initBorderPaint(DisplayMetrics displayMetrics, float borderWidthDp, int borderColor) {
@@ -58,12 +84,7 @@ public class RoundRectDrawable extends Drawable {
 			return null;
 		
         float borderWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, borderWidthDp, displayMetrics);
-		Paint result = new Paint();
-		result.setColor(borderColor);
-		result.setStyle(Paint.Style.STROKE);
-		result.setStrokeWidth(borderWidth);
-		result.setAntiAlias(true);
-		return result;
+		return PaintRegistry.obtain(borderColor, Paint.Style.STROKE, borderWidth, true);
 	}
 	
 	private Paint initFillPaint(DisplayMetrics displayMetrics, float borderWidthDp, int fillColor) {
@@ -71,75 +92,84 @@ public class RoundRectDrawable extends Drawable {
 			return null;
 
         float borderWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, borderWidthDp, displayMetrics);
-        Paint result = new Paint();
-		result.setColor(fillColor);
-		result.setStyle(Paint.Style.FILL_AND_STROKE);
-		result.setStrokeWidth(borderWidth);
-		result.setAntiAlias(true);
-		return result;
+		return PaintRegistry.obtain(fillColor, Paint.Style.FILL_AND_STROKE, borderWidth, true);
+	}
+	
+	/** Resolve the colors for the new palette. The shape doesn't change. */
+	@Override
+	public void onPaletteChanged(AccentPalette palette) {
+		if (mState.mPalette == palette)
+			return;
+		mState = mState.withPalette(palette);
+		initPaints(mState);
+		invalidateSelf();
 	}
 	
 	@Override
 	public void draw(Canvas canvas) {
+        if (mFillPaint != null)
+			canvas.drawPath(mPath, mFillPaint);
+		if (mBorderPaint != null)
+			canvas.drawPath(mPath, mBorderPaint);
+	}
+	
+	@Override
+	protected void onBoundsChange(Rect bounds) {
 		float borderWidth = mBorderPaint != null ? mBorderPaint.getStrokeWidth() : 0f;
 		float margin = borderWidth / 2f;
-        float cornerSize = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, mState.mCorenerSize, mState.mDisplayMetrics);
 		
         // correct the border so it represents the outer part of the shape (not the center of the border)
-        cornerSize -= borderWidth / 2f;
+        float cornerSize = mCornerSize - borderWidth / 2f;
         
-        Path path = getPath(getBounds(), margin, cornerSize);
-        if (mFillPaint != null)
-			canvas.drawPath(path, mFillPaint);
-		if (mBorderPaint != null)
-			canvas.drawPath(path, mBorderPaint);
+        updatePath(bounds, margin, cornerSize);
 	}
 	
-	private Path getPath(Rect bounds, float margin, float cornerSize) {
-		Path result = new Path();
+	private void updatePath(Rect bounds, float margin, float cornerSize) {
+		Path result = mPath;
+		RectF arc = mArcRect;
+		result.reset();
 		float top = bounds.top + margin;
 		float bottom = bounds.bottom - margin;
 		float left = bounds.left + margin;
 		float right = bounds.right - margin;
 		
 		// Top left corner (clockwise)
-		RectF topLeftArc = new RectF(
+		arc.set(
 				left,
 				top,
 				left + cornerSize,
 				top + cornerSize
 				);
-		result.arcTo(topLeftArc, 180, 90);
+		result.arcTo(arc, 180, 90);
 
 		// Top right corner (clockwise)
-		RectF topRightArc = new RectF(
+		arc.set(
 				right - cornerSize,
 				top,
 				right,
 				top + cornerSize
 				);
-		result.arcTo(topRightArc, 270, 90);
+		result.arcTo(arc, 270, 90);
 
 		// Bottom right corner (clockwise)
-		RectF bottomRightArc = new RectF(
+		arc.set(
 				right - cornerSize,
 				bottom - cornerSize,
 				right,
 				bottom
 				);
-		result.arcTo(bottomRightArc, 0, 90);
+		result.arcTo(arc, 0, 90);
 
 		// Bottom left corner (clockwise)
-		RectF bottomLeftArc = new RectF(
+		arc.set(
 				left,
 				bottom - cornerSize,
 				left + cornerSize,
 				bottom
 				);
-		result.arcTo(bottomLeftArc, 90, 90);
+		result.arcTo(arc, 90, 90);
 		
 		result.close();
-		return result;
 	}
 
 	@Override
@@ -166,21 +196,30 @@ public class RoundRectDrawable extends Drawable {
 	public static class RoundRectConstantState extends ConstantState {
 
 		public final DisplayMetrics mDisplayMetrics;
-		public final int mColor;
+		public final AccentPalette mPalette;
+		public final PaletteColor mColor;
 		public final float mBorderWidth;
-		public final int mBorderColor;
+		public final PaletteColor mBorderColor;
 		public final float mCorenerSize;
 		
 		int changingConfigurationValue;
 		
-		public RoundRectConstantState(DisplayMetrics metrics, int color, float borderWidth, int borderColor, float cornerSize) {
+		public RoundRectConstantState(DisplayMetrics metrics, AccentPalette palette, PaletteColor color, float borderWidth, PaletteColor borderColor, float cornerSize) {
 			mDisplayMetrics = metrics;
+			mPalette = palette;
 			mColor = color;
 			mBorderWidth = borderWidth;
 			mBorderColor = borderColor;
 			mCorenerSize = cornerSize;
 		}
 
+		/** @return The state with the same values, resolving the colors for the given palette. */
+		RoundRectConstantState withPalette(AccentPalette palette) {
+			RoundRectConstantState result = new RoundRectConstantState(mDisplayMetrics, palette, mColor, mBorderWidth, mBorderColor, mCorenerSize);
+			result.changingConfigurationValue = changingConfigurationValue;
+			return result;
+		}
+
 		@Override
 		public int getChangingConfigurations() {
 			return changingConfigurationValue;
@@ -188,12 +227,12 @@ public class RoundRectDrawable extends Drawable {
 
 		@Override
 		public Drawable newDrawable() {
-			return new RoundRectDrawable(mDisplayMetrics, mColor, mBorderWidth, mBorderColor, mCorenerSize);
+			return new RoundRectDrawable(this);
 		}
 		
 		@Override
 		public Drawable newDrawable(Resources res) {
-			return new RoundRectDrawable(res.getDisplayMetrics(), mColor, mBorderWidth, mBorderColor, mCorenerSize);
+			return new RoundRectDrawable(res.getDisplayMetrics(), mPalette, mColor, mBorderWidth, mBorderColor, mCorenerSize);
 		}
 		
 	}
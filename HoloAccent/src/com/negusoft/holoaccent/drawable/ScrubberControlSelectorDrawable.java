@@ -25,12 +25,13 @@ import android.util.DisplayMetrics;
 import android.util.TypedValue;
 
 import com.negusoft.holoaccent.AccentPalette;
+import com.negusoft.holoaccent.AccentPaletteHolder;
 
 /**
  * Seekbar's round drawable. It is drawn in a different way depending 
  * on the SelectorType.
  */
-public class ScrubberControlSelectorDrawable extends Drawable {
+public class ScrubberControlSelectorDrawable extends Drawable implements AccentPaletteHolder.OnPaletteChangedListener {
 	
 	public enum SelectorType { NORMAL, DISABLED, PRESSED, FOCUSED }
 
@@ -48,16 +49,38 @@ public class ScrubberControlSelectorDrawable extends Drawable {
 
 	private static final int COLOR_DISABLED = 0x4D888888;
 
-	private final CircleConstantState mState;
-	private final Paint mCenterPaint;
+	private CircleConstantState mState;
+	private Paint mCenterPaint;
 	private final float mCenterRadius;
-	private final Paint mOuterPaint;
+	private Paint mOuterPaint;
 	private final float mOuterRadius;
-	private final Paint mBorderPaint;
+	private Paint mBorderPaint;
 	private final float mBorderRadius;
+
+	private final RasterCache.Slot mRaster = new RasterCache.Slot(this) {
+		@Override
+		void getRasterBounds(Rect out) {
+			float radius = Math.max(mOuterRadius, mCenterRadius);
+			if (mBorderPaint != null)
+				radius = Math.max(radius, mBorderRadius + (mBorderPaint.getStrokeWidth() / 2));
+			Rect r = getBounds();
+			RasterCache.setCircleBounds(out, r.exactCenterX(), r.exactCenterY(), radius);
+		}
+		@Override
+		void drawShape(Canvas canvas) {
+			drawCircles(canvas);
+		}
+	};
 	
 	public ScrubberControlSelectorDrawable(DisplayMetrics metrics, AccentPalette palette, SelectorType type) {
-		mState = new CircleConstantState(metrics, palette, type);
+		this(new CircleConstantState(metrics, palette, type));
+	}
+	
+	ScrubberControlSelectorDrawable(CircleConstantState state) {
+		DisplayMetrics metrics = state.mDisplayMetrics;
+		AccentPalette palette = state.mPalette;
+		SelectorType type = state.mType;
+		mState = state;
 		mCenterPaint = initCenterPaint(palette);
 		mCenterRadius = initCenterRadius(metrics, type);
 		mOuterPaint = initOuterPaint(palette, type);
@@ -66,12 +89,21 @@ public class ScrubberControlSelectorDrawable extends Drawable {
 		mBorderRadius = initBorderRadius(metrics);
 	}
 	
+	/** Resolve the colors for the new palette. The circles don't change. */
+	@Override
+	public void onPaletteChanged(AccentPalette palette) {
+		if (mState.mPalette == palette)
+			return;
+		mState = mState.withPalette(palette);
+		mCenterPaint = initCenterPaint(palette);
+		mOuterPaint = initOuterPaint(palette, mState.mType);
+		mBorderPaint = initBorderPaint(mState.mDisplayMetrics, palette, mState.mType);
+		mRaster.reset();
+		invalidateSelf();
+	}
+	
 	private Paint initCenterPaint(AccentPalette palette) {
-        Paint result = new Paint();
-		result.setColor(palette.accentColor);
-		result.setStyle(Paint.Style.FILL);
-		result.setAntiAlias(true);
-		return result;
+		return PaintRegistry.obtain(palette.accentColor, Paint.Style.FILL, 0f, true);
 	}
 	
 	private float initCenterRadius(DisplayMetrics metrics, SelectorType type) {
@@ -80,11 +112,7 @@ public class ScrubberControlSelectorDrawable extends Drawable {
 	}
 	
 	private Paint initOuterPaint(AccentPalette palette, SelectorType type) {
-        Paint result = new Paint();
-		result.setColor(getOuterColor(palette, type));
-		result.setStyle(Paint.Style.FILL);
-		result.setAntiAlias(true);
-		return result;
+		return PaintRegistry.obtain(getOuterColor(palette, type), Paint.Style.FILL, 0f, true);
 	}
 	
 	private int getOuterColor(AccentPalette palette, SelectorType type) {
@@ -105,13 +133,8 @@ public class ScrubberControlSelectorDrawable extends Drawable {
 	private Paint initBorderPaint(DisplayMetrics metrics, AccentPalette palette, SelectorType type) {
 		if (type != SelectorType.PRESSED)
 			return null;
-        Paint result = new Paint();
-		result.setColor(palette.accentColor);
-		result.setStyle(Paint.Style.STROKE);
 		float width = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, BORDER_WIDTH_DP, metrics);
-		result.setStrokeWidth(width);
-		result.setAntiAlias(true);
-		return result;
+		return PaintRegistry.obtain(palette.accentColor, Paint.Style.STROKE, width, true);
 	}
 	
 	private float initBorderRadius(DisplayMetrics metrics) {
@@ -120,6 +143,16 @@ public class ScrubberControlSelectorDrawable extends Drawable {
 
 	@Override
 	public void draw(Canvas canvas) {
+		if (!mRaster.draw(canvas))
+			drawCircles(canvas);
+	}
+	
+	@Override
+	protected void onBoundsChange(Rect bounds) {
+		mRaster.reset();
+	}
+	
+	private void drawCircles(Canvas canvas) {
 		Rect r = getBounds();
 		float centerX = r.exactCenterX();
 		float centerY = r.exactCenterY();
@@ -185,6 +218,13 @@ public class ScrubberControlSelectorDrawable extends Drawable {
 			mType = type;
 		}
 
+		/** @return The state with the same values, resolving the colors for the given palette. */
+		CircleConstantState withPalette(AccentPalette palette) {
+			CircleConstantState result = new CircleConstantState(mDisplayMetrics, palette, mType);
+			result.changingConfigurationValue = changingConfigurationValue;
+			return result;
+		}
+
 		@Override
 		public int getChangingConfigurations() {
 			return changingConfigurationValue;
@@ -192,7 +232,7 @@ public class ScrubberControlSelectorDrawable extends Drawable {
 
 		@Override
 		public Drawable newDrawable() {
-			return new ScrubberControlSelectorDrawable(mDisplayMetrics, mPalette, mType);
+			return new ScrubberControlSelectorDrawable(this);
 		}
 		
 	}
@@ -25,26 +25,33 @@ import android.util.DisplayMetrics;
 import android.util.TypedValue;
 
 import com.negusoft.holoaccent.AccentPalette;
+import com.negusoft.holoaccent.AccentPaletteHolder;
 
 /**
  * Simple solid drawable that changes will fill the container based on the current level.
  */
-public class ScrubberProgressDrawable extends Drawable {
+public class ScrubberProgressDrawable extends Drawable implements AccentPaletteHolder.OnPaletteChangedListener {
 	
 	private static final float LINE_WIDTH_DP = 4f;
 	
-	private final ScrubberProgressConstantState mState;
+	private ScrubberProgressConstantState mState;
 	private final Paint mPaint;
+	private int mAlpha = 255;
 	
 	public ScrubberProgressDrawable(DisplayMetrics metrics, AccentPalette palette) {
 		this(metrics, palette, 255);
 	}
 	
 	public ScrubberProgressDrawable(DisplayMetrics metrics, AccentPalette palette, int alpha) {
-		mState = new ScrubberProgressConstantState(metrics, palette, alpha);
-		mPaint = initPaint(metrics, palette, alpha);
+		this(new ScrubberProgressConstantState(metrics, palette, alpha));
 	}
 	
+	ScrubberProgressDrawable(ScrubberProgressConstantState state) {
+		mState = state;
+		mPaint = initPaint(state.mDisplayMetrics, state.mPalette, state.mBaseAlpha);
+	}
+	
+	/** Not obtained from PaintRegistry: setAlpha() changes its color on every frame of the fade. */
 	private Paint initPaint(DisplayMetrics metrics, AccentPalette palette, int alpha) {
 		float width = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, LINE_WIDTH_DP, metrics);
 		Paint result = new Paint();
@@ -78,7 +85,22 @@ public class ScrubberProgressDrawable extends Drawable {
 
 	@Override
 	public void setAlpha(int alpha) {
-		float alphaPrecentage = alpha / 255f;
+		mAlpha = alpha;
+		updatePaintColor();
+	}
+
+	/** Resolve the color for the new palette, keeping the alpha. */
+	@Override
+	public void onPaletteChanged(AccentPalette palette) {
+		if (mState.mPalette == palette)
+			return;
+		mState = mState.withPalette(palette);
+		updatePaintColor();
+		invalidateSelf();
+	}
+
+	private void updatePaintColor() {
+		float alphaPrecentage = mAlpha / 255f;
 		float resultAlpha = mState.mBaseAlpha * alphaPrecentage;
 		int color = mState.mPalette.getAccentColor((int)resultAlpha);
 		mPaint.setColor(color);
@@ -109,6 +131,13 @@ public class ScrubberProgressDrawable extends Drawable {
 			mBaseAlpha = baseAlpha;
 		}
 
+		/** @return The state with the same values, resolving the color for the given palette. */
+		ScrubberProgressConstantState withPalette(AccentPalette palette) {
+			ScrubberProgressConstantState result = new ScrubberProgressConstantState(mDisplayMetrics, palette, mBaseAlpha);
+			result.changingConfigurationValue = changingConfigurationValue;
+			return result;
+		}
+
 		@Override
 		public int getChangingConfigurations() {
 			return changingConfigurationValue;
@@ -116,7 +145,7 @@ public class ScrubberProgressDrawable extends Drawable {
 
 		@Override
 		public Drawable newDrawable() {
-			return new ScrubberProgressDrawable(mDisplayMetrics, mPalette, mBaseAlpha);
+			return new ScrubberProgressDrawable(this);
 		}
 		
 	}
@@ -10,52 +10,74 @@ import android.graphics.drawable.Drawable;
 import android.util.DisplayMetrics;
 import android.util.TypedValue;
 
-public class SearchViewDrawable extends Drawable {
+import com.negusoft.holoaccent.AccentPalette;
+import com.negusoft.holoaccent.AccentPaletteHolder;
+import com.negusoft.holoaccent.PaletteColor;
+
+public class SearchViewDrawable extends Drawable implements AccentPaletteHolder.OnPaletteChangedListener {
 	
 	private static final float LINED_WIDTH_DP = 1f;
 	private static final float HEIGHT_DP = 4f;
 	private static final float PADDING_HORIZONTAL_DP = 1.5f;
 
-	private final SearchViewConstantState mState;
-	private final Paint mPaint;
+	private SearchViewConstantState mState;
+	private Paint mPaint;
 	private final float mHeight;
+	/** The outline for the current bounds, updated in onBoundsChange(). */
+	private final Path mPath = new Path();
 	
 	public SearchViewDrawable(DisplayMetrics metrics, int color) {
-		mState = new SearchViewConstantState(metrics, color);
-		mPaint = initPaint(metrics, color, LINED_WIDTH_DP);
-		mHeight = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, HEIGHT_DP, metrics);
+		this(metrics, null, PaletteColor.fixed(color));
+	}
+	
+	public SearchViewDrawable(DisplayMetrics metrics, AccentPalette palette, PaletteColor color) {
+		this(new SearchViewConstantState(metrics, palette, color));
+	}
+	
+	SearchViewDrawable(SearchViewConstantState state) {
+		mState = state;
+		mPaint = initPaint(state.mDisplayMetrics, state.mColor.getColor(state.mPalette), LINED_WIDTH_DP);
+		mHeight = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, HEIGHT_DP, state.mDisplayMetrics);
 	}
 	
 	private Paint initPaint(DisplayMetrics displayMetrics, int color, float lineWidthDp) {
         float lineWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, lineWidthDp, displayMetrics);
-		Paint result = new Paint();
-		result.setColor(color);
-		result.setStyle(Paint.Style.STROKE);
-		result.setStrokeJoin(Paint.Join.MITER);
-		result.setStrokeWidth(lineWidth);
-		return result;
+		return PaintRegistry.obtain(color, Paint.Style.STROKE, lineWidth, false);
+	}
+	
+	/** Resolve the color for the new palette. */
+	@Override
+	public void onPaletteChanged(AccentPalette palette) {
+		if (mState.mPalette == palette)
+			return;
+		mState = mState.withPalette(palette);
+		mPaint = initPaint(mState.mDisplayMetrics, mState.mColor.getColor(palette), LINED_WIDTH_DP);
+		invalidateSelf();
 	}
 	
 	@Override
 	public void draw(Canvas canvas) {
-		Path path = getPath(getBounds(), mPaint.getStrokeWidth(), mHeight);
-		canvas.drawPath(path, mPaint);
+		canvas.drawPath(mPath, mPaint);
+	}
+	
+	@Override
+	protected void onBoundsChange(Rect bounds) {
+		updatePath(bounds, mHeight);
 	}
 	
-	private Path getPath(Rect bounds, float lineWidth, float delimiterHeight) {
+	private void updatePath(Rect bounds, float delimiterHeight) {
 		float margin = mPaint.getStrokeWidth() / 2f;
 		float top = bounds.bottom - delimiterHeight;
 		float bottom = bounds.bottom - margin;
 		float left = bounds.left + margin;
 		float right = bounds.right - margin;
 		
-		Path result = new Path();
+		Path result = mPath;
+		result.reset();
 		result.moveTo(left, top);
 		result.lineTo(left, bottom);
 		result.lineTo(right, bottom);
 		result.lineTo(right, top);
-		
-		return result;
 	}
 
 	@Override
@@ -98,15 +120,24 @@ public class SearchViewDrawable extends Drawable {
 	public static class SearchViewConstantState extends ConstantState {
 
 		public final DisplayMetrics mDisplayMetrics;
-		public final int mColor;
+		public final AccentPalette mPalette;
+		public final PaletteColor mColor;
 		
 		int changingConfigurationValue;
 		
-		public SearchViewConstantState(DisplayMetrics metrics, int color) {
+		public SearchViewConstantState(DisplayMetrics metrics, AccentPalette palette, PaletteColor color) {
 			mDisplayMetrics = metrics;
+			mPalette = palette;
 			mColor = color;
 		}
 
+		/** @return The state with the same values, resolving the color for the given palette. */
+		SearchViewConstantState withPalette(AccentPalette palette) {
+			SearchViewConstantState result = new SearchViewConstantState(mDisplayMetrics, palette, mColor);
+			result.changingConfigurationValue = changingConfigurationValue;
+			return result;
+		}
+
 		@Override
 		public int getChangingConfigurations() {
 			return changingConfigurationValue;
@@ -114,7 +145,7 @@ public class SearchViewDrawable extends Drawable {
 
 		@Override
 		public Drawable newDrawable() {
-			return new SearchViewDrawable(mDisplayMetrics, mColor);
+			return new SearchViewDrawable(this);
 		}
 		
 	}
@@ -8,6 +8,7 @@ import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.PixelFormat;
 import android.graphics.Rect;
+import android.graphics.RectF;
 import android.graphics.drawable.Drawable;
 import android.util.DisplayMetrics;
 import android.util.TypedValue;
@@ -23,6 +24,23 @@ public class SpinnerDrawable extends Drawable {
 
 	private final SpinnerConstantState mState;
 	private final Paint mPaint;
+	/** The triangle for the current bounds, updated in onBoundsChange(). */
+	private final Path mPath = new Path();
+
+	private final RasterCache.Slot mRaster = new RasterCache.Slot(this) {
+		@Override
+		void getRasterBounds(Rect out) {
+			// The triangle is drawn partially outside the bounds
+			RectF pathBounds = new RectF();
+			mPath.computeBounds(pathBounds, true);
+			pathBounds.roundOut(out);
+			out.inset(-1, -1);
+		}
+		@Override
+		void drawShape(Canvas canvas) {
+			canvas.drawPath(mPath, mPaint);
+		}
+	};
 	
 	public SpinnerDrawable(Resources res, int color, Type type) {
 		DisplayMetrics metrics = res.getDisplayMetrics();
@@ -30,44 +48,47 @@ public class SpinnerDrawable extends Drawable {
 		mPaint = initPaint(color);
 	}
 	
-	SpinnerDrawable(DisplayMetrics metrics, int color, Type type) {
-		mState = new SpinnerConstantState(metrics, color, type);
-		mPaint = initPaint(color);
+	SpinnerDrawable(SpinnerConstantState state) {
+		mState = state;
+		mPaint = initPaint(state.mColor);
 	}
 	
 	private Paint initPaint(int fillColor) {
 		if (Color.alpha(fillColor) == 0)
 			return null;
 		
-        Paint result = new Paint();
-		result.setColor(fillColor);
-		result.setStyle(Paint.Style.FILL);
-		result.setAntiAlias(true);
-		return result;
+		return PaintRegistry.obtain(fillColor, Paint.Style.FILL, 0f, true);
 	}
 
 	@Override
 	public void draw(Canvas canvas) {
-		Path path = getPath(getBounds(), mState.mType);
-		canvas.drawPath(path, mPaint);
+		if (!mRaster.draw(canvas))
+			canvas.drawPath(mPath, mPaint);
 	}
 	
-	private Path getPath(Rect bounds, Type type) {
-		switch (type) {
+	@Override
+	protected void onBoundsChange(Rect bounds) {
+		mRaster.reset();
+		mPath.reset();
+		switch (mState.mType) {
 		case DEFAULT:
-			return getPathDefault(bounds);
+			updatePathDefault(mPath, bounds);
+			break;
 		case DEFAULT_INVERSE:
-			return getPathDefaultInverse(bounds);
+			updatePathDefaultInverse(mPath, bounds);
+			break;
 		case ACTIONBAR:
-			return getPathActionbar(bounds);
+			updatePathActionbar(mPath, bounds);
+			break;
 		case ACTIONBAR_INVERSE:
-			return getPathActionbarInverse(bounds);
+			updatePathActionbarInverse(mPath, bounds);
+			break;
 		default:
-			return getPathDefault(bounds);
+			updatePathDefault(mPath, bounds);
 		}
 	}
 
-	private Path getPathDefault(Rect bounds) {
+	private void updatePathDefault(Path result, Rect bounds) {
 		float lineWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, LINE_WIDTH_DP, mState.mDisplayMetrics);
 		float triangleSide = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, TRIANGLE_SIDE_DP, mState.mDisplayMetrics);
 		float verticalOffset = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, VERTICAL_OFFSET_DP, mState.mDisplayMetrics);
@@ -80,7 +101,6 @@ public class SpinnerDrawable extends Drawable {
 		float vTop = vBottom - triangleSide;
 		float vCenter = vBottom - lineWidth;
 		
-		Path result = new Path();
 		//start from the top corner and go down
 		result.moveTo(hRight, vTop);
 		result.lineTo(hRight, vBottom);
@@ -88,11 +108,9 @@ public class SpinnerDrawable extends Drawable {
 		result.lineTo(hLeft, vCenter);
 		result.lineTo(hCenter, vCenter);
 		result.close();
-		
-		return result;
 	}
 
-	private Path getPathDefaultInverse(Rect bounds) {
+	private void updatePathDefaultInverse(Path result, Rect bounds) {
 		float lineWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, LINE_WIDTH_DP, mState.mDisplayMetrics);
 		float triangleSide = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, TRIANGLE_SIDE_DP, mState.mDisplayMetrics);
 		float verticalOffset = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, VERTICAL_OFFSET_DP, mState.mDisplayMetrics);
@@ -105,7 +123,6 @@ public class SpinnerDrawable extends Drawable {
 		float vTop = vBottom - triangleSide;
 		float vCenter = vBottom - lineWidth;
 		
-		Path result = new Path();
 		//start from the top corner and go down
 		result.moveTo(hLeft, vTop);
 		result.lineTo(hLeft, vBottom);
@@ -113,11 +130,9 @@ public class SpinnerDrawable extends Drawable {
 		result.lineTo(hRight, vCenter);
 		result.lineTo(hCenter, vCenter);
 		result.close();
-		
-		return result;
 	}
 
-	private Path getPathActionbar(Rect bounds) {
+	private void updatePathActionbar(Path result, Rect bounds) {
 		float triangleSide = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, TRIANGLE_SIDE_DP, mState.mDisplayMetrics);
 		float margin = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, AB_BOTTOM_MARGIN_DP, mState.mDisplayMetrics);
 
@@ -126,17 +141,14 @@ public class SpinnerDrawable extends Drawable {
 		float bottom = bounds.bottom - margin;
 		float top = bottom - triangleSide;
 		
-		Path result = new Path();
 		//start from the top corner and go down
 		result.moveTo(right, top);
 		result.lineTo(right, bottom);
 		result.lineTo(left, bottom);
 		result.close();
-		
-		return result;
 	}
 
-	private Path getPathActionbarInverse(Rect bounds) {
+	private void updatePathActionbarInverse(Path result, Rect bounds) {
 		float triangleSide = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, TRIANGLE_SIDE_DP, mState.mDisplayMetrics);
 		float margin = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, AB_BOTTOM_MARGIN_DP, mState.mDisplayMetrics);
 
@@ -145,14 +157,11 @@ public class SpinnerDrawable extends Drawable {
 		float bottom = bounds.bottom - margin;
 		float top = bottom - triangleSide;
 		
-		Path result = new Path();
 		//start from the top corner and go down
 		result.moveTo(left, top);
 		result.lineTo(left, bottom);
 		result.lineTo(right, bottom);
 		result.close();
-		
-		return result;
 	}
 
 	@Override
@@ -197,7 +206,7 @@ public class SpinnerDrawable extends Drawable {
 
 		@Override
 		public Drawable newDrawable() {
-			return new SpinnerDrawable(mDisplayMetrics, mColor, mType);
+			return new SpinnerDrawable(this);
 		}
 		
 	}
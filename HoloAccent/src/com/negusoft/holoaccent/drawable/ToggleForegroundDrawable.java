@@ -28,14 +28,18 @@ import android.graphics.drawable.Drawable;
 import android.util.DisplayMetrics;
 import android.util.TypedValue;
 
-public class ToggleForegroundDrawable extends Drawable {
+import com.negusoft.holoaccent.AccentPalette;
+import com.negusoft.holoaccent.AccentPaletteHolder;
+import com.negusoft.holoaccent.PaletteColor;
+
+public class ToggleForegroundDrawable extends Drawable implements AccentPaletteHolder.OnPaletteChangedListener {
 
 	private static final float LINE_WIDTH_DP = 2.0f;
 	private static final float MARGIN_SIDE_DP = 2.0f;
 	private static final float MARGIN_BOTTOM_DP = 10.0f;
 
-    private final Paint mPaint;
-    private final ToggleConstantState mState;
+    private Paint mPaint;
+    private ToggleConstantState mState;
 	
 	public ToggleForegroundDrawable(Context c) {
 		Resources res = c.getResources();
@@ -49,30 +53,40 @@ public class ToggleForegroundDrawable extends Drawable {
         float marginSide = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, MARGIN_SIDE_DP, displayMetrics);
         float marginBottom = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, MARGIN_BOTTOM_DP, displayMetrics);
         
-        mState = new ToggleConstantState(displayMetrics, color, marginSide, marginBottom);
+        mState = new ToggleConstantState(displayMetrics, null, PaletteColor.fixed(color), marginSide, marginBottom);
 	}
 	
-	ToggleForegroundDrawable(DisplayMetrics metrics, int color, float marginSide, float marginBottom) {
-		mState = new ToggleConstantState(metrics, color, marginSide, marginBottom);
-		mPaint = getPaint(metrics, color);
+	ToggleForegroundDrawable(ToggleConstantState state) {
+		mState = state;
+		mPaint = getPaint(state.mDisplayMetrics, state.mColor.getColor(state.mPalette));
 	}
 	
 	public ToggleForegroundDrawable(Resources res, int color) {
+		this(res, null, PaletteColor.fixed(color));
+	}
+	
+	public ToggleForegroundDrawable(Resources res, AccentPalette palette, PaletteColor color) {
 		DisplayMetrics displayMetrics = res.getDisplayMetrics();
-        mPaint = getPaint(displayMetrics, color);
+        mPaint = getPaint(displayMetrics, color.getColor(palette));
         float marginSide = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, MARGIN_SIDE_DP, displayMetrics);
         float marginBottom = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, MARGIN_BOTTOM_DP, displayMetrics);
 
-        mState = new ToggleConstantState(displayMetrics, color, marginSide, marginBottom);
+        mState = new ToggleConstantState(displayMetrics, palette, color, marginSide, marginBottom);
 	}
 	
 	private Paint getPaint(DisplayMetrics displayMetrics, int color) {
         float lineWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, LINE_WIDTH_DP, displayMetrics);
-		Paint result = new Paint();
-		result.setColor(color);
-		result.setStyle(Paint.Style.STROKE);
-		result.setStrokeWidth(lineWidth);
-		return result;
+		return PaintRegistry.obtain(color, Paint.Style.STROKE, lineWidth, false);
+	}
+	
+	/** Resolve the color for the new palette. */
+	@Override
+	public void onPaletteChanged(AccentPalette palette) {
+		if (mState.mPalette == palette)
+			return;
+		mState = mState.withPalette(palette);
+		mPaint = getPaint(mState.mDisplayMetrics, mState.mColor.getColor(palette));
+		invalidateSelf();
 	}
 	
 	/**
@@ -111,19 +125,28 @@ public class ToggleForegroundDrawable extends Drawable {
 	public static class ToggleConstantState extends ConstantState {
 
 		public final DisplayMetrics mDisplayMetrics;
-		public final int mColor;
+		public final AccentPalette mPalette;
+		public final PaletteColor mColor;
 		public final float mMarginSide;
 		public final float mMarginBottom;
 		
 		int changingConfigurationValue;
 		
-		public ToggleConstantState(DisplayMetrics metrics, int color, float marginSide, float marginBottom) {
+		public ToggleConstantState(DisplayMetrics metrics, AccentPalette palette, PaletteColor color, float marginSide, float marginBottom) {
 			mDisplayMetrics = metrics;
+			mPalette = palette;
 			mColor = color;
 			mMarginSide = marginSide;
 			mMarginBottom = marginBottom;
 		}
 
+		/** @return The state with the same values, resolving the color for the given palette. */
+		ToggleConstantState withPalette(AccentPalette palette) {
+			ToggleConstantState result = new ToggleConstantState(mDisplayMetrics, palette, mColor, mMarginSide, mMarginBottom);
+			result.changingConfigurationValue = changingConfigurationValue;
+			return result;
+		}
+
 		@Override
 		public int getChangingConfigurations() {
 			return changingConfigurationValue;
@@ -131,7 +154,7 @@ public class ToggleForegroundDrawable extends Drawable {
 
 		@Override
 		public Drawable newDrawable() {
-			return new ToggleForegroundDrawable(mDisplayMetrics, mColor, mMarginSide, mMarginBottom);
+			return new ToggleForegroundDrawable(this);
 		}
 		
 	}
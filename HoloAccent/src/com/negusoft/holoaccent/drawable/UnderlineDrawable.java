@@ -25,39 +25,52 @@ import android.graphics.drawable.Drawable;
 import android.util.DisplayMetrics;
 import android.util.TypedValue;
 
-public class UnderlineDrawable extends Drawable {
+import com.negusoft.holoaccent.AccentPalette;
+import com.negusoft.holoaccent.AccentPaletteHolder;
+import com.negusoft.holoaccent.PaletteColor;
 
-	private final UnderlineConstantState mState;
-	private final Paint mPaint;
+public class UnderlineDrawable extends Drawable implements AccentPaletteHolder.OnPaletteChangedListener {
+
+	private UnderlineConstantState mState;
+	private Paint mPaint;
+	private final float mLineWidth;
 	
 	public UnderlineDrawable(Resources res, int color, float lineWidthDp) {
 		this(res, color, lineWidthDp, false);
 	}
 	
 	public UnderlineDrawable(Resources res, int color, float lineWidthDp, boolean overline) {
-		DisplayMetrics metrics = res.getDisplayMetrics();
-		mState = new UnderlineConstantState(metrics, color, lineWidthDp, overline);
-		mPaint = initPaint(metrics, color, lineWidthDp);
+		this(res, null, PaletteColor.fixed(color), lineWidthDp, overline);
+	}
+	
+	public UnderlineDrawable(Resources res, AccentPalette palette, PaletteColor color, float lineWidthDp, boolean overline) {
+		this(new UnderlineConstantState(res.getDisplayMetrics(), palette, color, lineWidthDp, overline));
+	}
+	
+	UnderlineDrawable(UnderlineConstantState state) {
+		mState = state;
+		mLineWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, state.mLineWidth, state.mDisplayMetrics);
+		mPaint = initPaint(state.mColor.getColor(state.mPalette));
 	}
 	
-	UnderlineDrawable(DisplayMetrics metrics, int color, float lineWidthDp, boolean overline) {
-		mState = new UnderlineConstantState(metrics, color, lineWidthDp, overline);
-		mPaint = initPaint(metrics, color, lineWidthDp);
+	private Paint initPaint(int color) {
+		return PaintRegistry.obtain(color, Paint.Style.STROKE, mLineWidth, false);
 	}
 	
-	private Paint initPaint(DisplayMetrics displayMetrics, int color, float lineWidthDp) {
-        float lineWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, lineWidthDp, displayMetrics);
-		Paint result = new Paint();
-		result.setColor(color);
-		result.setStyle(Paint.Style.STROKE);
-		result.setStrokeWidth(lineWidth);
-		return result;
+	/** Resolve the color for the new palette. */
+	@Override
+	public void onPaletteChanged(AccentPalette palette) {
+		if (mState.mPalette == palette)
+			return;
+		mState = mState.withPalette(palette);
+		mPaint = initPaint(mState.mColor.getColor(palette));
+		invalidateSelf();
 	}
 	
 	@Override
 	public void draw(Canvas canvas) {
 		Rect r = getBounds();
-		float margin = mPaint.getStrokeWidth() / 2f;
+		float margin = mLineWidth / 2f;
 		float posY = mState.mOverline ? r.top + margin : r.bottom - margin;
 		canvas.drawLine(r.left, posY, r.right, posY, mPaint);
 	}
@@ -86,19 +99,28 @@ public class UnderlineDrawable extends Drawable {
 	public static class UnderlineConstantState extends ConstantState {
 
 		public final DisplayMetrics mDisplayMetrics;
-		public final int mColor;
+		public final AccentPalette mPalette;
+		public final PaletteColor mColor;
 		public final float mLineWidth;
 		public final boolean mOverline;
 		
 		int changingConfigurationValue;
 		
-		public UnderlineConstantState(DisplayMetrics metrics, int color, float lineWidth, boolean overline) {
+		public UnderlineConstantState(DisplayMetrics metrics, AccentPalette palette, PaletteColor color, float lineWidth, boolean overline) {
 			mDisplayMetrics = metrics;
+			mPalette = palette;
 			mColor = color;
 			mLineWidth = lineWidth;
 			mOverline = overline;
 		}
 
+		/** @return The state with the same values, resolving the color for the given palette. */
+		UnderlineConstantState withPalette(AccentPalette palette) {
+			UnderlineConstantState result = new UnderlineConstantState(mDisplayMetrics, palette, mColor, mLineWidth, mOverline);
+			result.changingConfigurationValue = changingConfigurationValue;
+			return result;
+		}
+
 		@Override
 		public int getChangingConfigurations() {
 			return changingConfigurationValue;
@@ -106,7 +128,7 @@ public class UnderlineDrawable extends Drawable {
 
 		@Override
 		public Drawable newDrawable() {
-			return new UnderlineDrawable(mDisplayMetrics, mColor, mLineWidth, mOverline);
+			return new UnderlineDrawable(this);
 		}
 		
 	}
@@ -25,17 +25,28 @@ import com.negusoft.holoaccent.R;
 import com.negusoft.holoaccent.drawable.ActionBarBackgroundDrawable;
 
 /** Drawables for the bottom and stacked action bars. Only used in ColoredActionBar themes. */
-public class ActionBarBackgroundInterceptor implements AccentResources.Interceptor {
+public class ActionBarBackgroundInterceptor implements AccentResources.IdentifiedInterceptor {
 
     private static final float LINE_WIDTH_DP_BOTTOM = 1.5f;
     private static final float LINE_WIDTH_DP_STACKED = 1f;
 
+    private static final int[] DRAWABLE_IDS = new int[] {
+            R.drawable.ha__ab_background_reference,
+            R.drawable.ha__ab_background_bottom_reference,
+            R.drawable.ha__ab_background_stacked_reference
+    };
+
     private final Context mContext;
 
     public ActionBarBackgroundInterceptor(Context c) {
         mContext = c;
     }
 
+    @Override
+    public int[] getDrawableIds() {
+        return DRAWABLE_IDS;
+    }
+
 	@Override
 	public Drawable getDrawable(Resources res, AccentPalette palette, int resId) {
         if (resId == R.drawable.ha__ab_background_reference)
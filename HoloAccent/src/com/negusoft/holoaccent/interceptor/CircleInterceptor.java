@@ -21,24 +21,36 @@ import android.graphics.drawable.Drawable;
 
 import com.negusoft.holoaccent.AccentPalette;
 import com.negusoft.holoaccent.AccentResources;
+import com.negusoft.holoaccent.PaletteColor;
 import com.negusoft.holoaccent.R;
 import com.negusoft.holoaccent.drawable.CircleDrawable;
 
-public class CircleInterceptor implements AccentResources.Interceptor {
+public class CircleInterceptor implements AccentResources.IdentifiedInterceptor {
 	
+	private static final int[] DRAWABLE_IDS = new int[] {
+			R.drawable.ha__circle_pressed,
+			R.drawable.ha__circle_focused,
+			R.drawable.ha__circle_disabled_focused
+	};
+
+	@Override
+	public int[] getDrawableIds() {
+		return DRAWABLE_IDS;
+	}
+
 	@Override
 	public Drawable getDrawable(Resources res, AccentPalette palette, int resId) {
 		if (resId == R.drawable.ha__circle_pressed) {
-			int backColor = palette.getAccentColor(0x88);
-			return new CircleDrawable(res, 16f, backColor, 0f, Color.TRANSPARENT);
+			PaletteColor backColor = PaletteColor.accent(0x88);
+			return new CircleDrawable(res, palette, 16f, backColor, 0f, PaletteColor.TRANSPARENT);
 		}
 		if (resId == R.drawable.ha__circle_focused) {
-			int borderColor = palette.getAccentColor(0xAA);
-			return new CircleDrawable(res, 11f, Color.TRANSPARENT, 1.5f, borderColor);
+			PaletteColor borderColor = PaletteColor.accent(0xAA);
+			return new CircleDrawable(res, palette, 11f, PaletteColor.TRANSPARENT, 1.5f, borderColor);
 		}
 		if (resId == R.drawable.ha__circle_disabled_focused) {
-			int borderColor = palette.getAccentColor(0x55);
-			return new CircleDrawable(res, 11f, Color.TRANSPARENT, 1.5f, borderColor);
+			PaletteColor borderColor = PaletteColor.accent(0x55);
+			return new CircleDrawable(res, palette, 11f, PaletteColor.TRANSPARENT, 1.5f, borderColor);
 		}
 		return null;
 	}
@@ -20,41 +20,56 @@ import android.graphics.drawable.Drawable;
 
 import com.negusoft.holoaccent.AccentPalette;
 import com.negusoft.holoaccent.AccentResources;
+import com.negusoft.holoaccent.PaletteColor;
 import com.negusoft.holoaccent.R;
 import com.negusoft.holoaccent.drawable.ContactBadgeDrawable;
 import com.negusoft.holoaccent.drawable.RectDrawable;
 
-public class ContactBadgeInterceptor implements AccentResources.Interceptor {
+public class ContactBadgeInterceptor implements AccentResources.IdentifiedInterceptor {
 
     private static final int FILL_COLOR_DARK = 0xccaaaaaa;
     private static final int LINE_COLOR_DARK = 0xcc090909;
     private static final int FILL_COLOR_LIGHT = 0x96333333;
     private static final int LINE_COLOR_LIGHT = 0xccffffff;
 	
+	private static final int[] DRAWABLE_IDS = new int[] {
+			R.drawable.ha__contact_badge_normal,
+			R.drawable.ha__contact_badge_focused,
+			R.drawable.ha__contact_badge_pressed,
+			R.drawable.ha__contact_badge_normal_light,
+			R.drawable.ha__contact_badge_focused_light,
+			R.drawable.ha__contact_badge_pressed_light
+	};
+
+	@Override
+	public int[] getDrawableIds() {
+		return DRAWABLE_IDS;
+	}
+
 	@Override
 	public Drawable getDrawable(Resources res, AccentPalette palette, int resId) {
         if (resId == R.drawable.ha__contact_badge_normal)
             return new ContactBadgeDrawable(res, 0, 0f, 0, FILL_COLOR_DARK, LINE_COLOR_DARK);
         if (resId == R.drawable.ha__contact_badge_focused) {
-            int backColor = palette.getActionBarAccentColor(0x55);
-            int borderColor = palette.getActionBarAccentColor(0xAA);
-            return new ContactBadgeDrawable(res, backColor, 2f, borderColor, palette.accentColor, LINE_COLOR_DARK);
+            PaletteColor backColor = PaletteColor.actionBarAccent(0x55);
+            PaletteColor borderColor = PaletteColor.actionBarAccent(0xAA);
+            return new ContactBadgeDrawable(res, palette, backColor, 2f, borderColor, PaletteColor.accent(), PaletteColor.fixed(LINE_COLOR_DARK));
         }
         if (resId == R.drawable.ha__contact_badge_pressed) {
-            int borderColor = palette.getActionBarAccentColor(0xAA);
-            return new ContactBadgeDrawable(res, borderColor, 0f, 0, palette.accentColor, LINE_COLOR_DARK);
+            PaletteColor borderColor = PaletteColor.actionBarAccent(0xAA);
+            return new ContactBadgeDrawable(res, palette, borderColor, 0f, PaletteColor.TRANSPARENT, PaletteColor.accent(), PaletteColor.fixed(LINE_COLOR_DARK));
         }
 
         if (resId == R.drawable.ha__contact_badge_normal_light)
             return new ContactBadgeDrawable(res, 0, 0f, 0, FILL_COLOR_LIGHT, LINE_COLOR_LIGHT);
         if (resId == R.drawable.ha__contact_badge_focused_light) {
-            int backColor = palette.getActionBarAccentColor(0x55);
-            int borderColor = palette.getActionBarAccentColor(0xAA);
-            return new ContactBadgeDrawable(res, backColor, 2f, borderColor, palette.accentColor, LINE_COLOR_LIGHT);
+            PaletteColor backColor = PaletteColor.actionBarAccent(0x55);
+            PaletteColor borderColor = PaletteColor.actionBarAccent(0xAA);
+            return new ContactBadgeDrawable(res, palette, backColor, 2f, borderColor, PaletteColor.accent(), PaletteColor.fixed(LINE_COLOR_LIGHT));
         }
         if (resId == R.drawable.ha__contact_badge_pressed_light) {
-            int borderColor = palette.getActionBarAccentColor(0xAA);
-            return new ContactBadgeDrawable(res, borderColor, 0f, 0, palette.accentColor, LINE_COLOR_LIGHT);
+            PaletteColor borderColor = PaletteColor.actionBarAccent(0xAA);
+            return new ContactBadgeDrawable(res, palette, borderColor, 0f, PaletteColor.TRANSPARENT, PaletteColor.accent(), PaletteColor.fixed(LINE_COLOR_LIGHT));
         }
 
 		return null;
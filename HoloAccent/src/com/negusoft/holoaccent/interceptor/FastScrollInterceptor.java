@@ -23,8 +23,18 @@ import com.negusoft.holoaccent.AccentResources;
 import com.negusoft.holoaccent.R;
 import com.negusoft.holoaccent.drawable.FastScrollDrawable;
 
-public class FastScrollInterceptor implements AccentResources.Interceptor {
+public class FastScrollInterceptor implements AccentResources.IdentifiedInterceptor {
 	
+	private static final int[] DRAWABLE_IDS = new int[] {
+			R.drawable.ha__fastscroll_thumb_default,
+			R.drawable.ha__fastscroll_thumb_pressed
+	};
+
+	@Override
+	public int[] getDrawableIds() {
+		return DRAWABLE_IDS;
+	}
+
 	@Override
 	public Drawable getDrawable(Resources res, AccentPalette palette, int resId) {
 		if (resId == R.drawable.ha__fastscroll_thumb_default)
@@ -20,11 +20,13 @@ import android.graphics.drawable.Drawable;
 
 import com.negusoft.holoaccent.AccentPalette;
 import com.negusoft.holoaccent.AccentResources;
+import com.negusoft.holoaccent.PaletteColor;
 import com.negusoft.holoaccent.R;
+import com.negusoft.holoaccent.drawable.IndeterminedProgressAnimatedDrawable;
 import com.negusoft.holoaccent.drawable.IndeterminedProgressDrawable;
 import com.negusoft.holoaccent.drawable.IndeterminedProgressLegacyDrawable;
 
-public class IndeterminateInterceptor implements AccentResources.Interceptor {
+public class IndeterminateInterceptor implements AccentResources.IdentifiedInterceptor {
 
 	private final int[] LEGACY_DRAWABLE_IDS = new int[] {
 			R.drawable.ha__progressbar_indeterminate_legacy_1,
@@ -59,16 +61,27 @@ public class IndeterminateInterceptor implements AccentResources.Interceptor {
 			R.drawable.ha__progressbar_indeterminate_19,
 			R.drawable.ha__progressbar_indeterminate_20
 	};
+
+	@Override
+	public int[] getDrawableIds() {
+		int[] result = new int[1 + INDETERMINATE_DRAWABLE_IDS.length + LEGACY_DRAWABLE_IDS.length];
+		result[0] = R.drawable.ha__progressbar_indeterminate;
+		System.arraycopy(INDETERMINATE_DRAWABLE_IDS, 0, result, 1, INDETERMINATE_DRAWABLE_IDS.length);
+		System.arraycopy(LEGACY_DRAWABLE_IDS, 0, result, 1 + INDETERMINATE_DRAWABLE_IDS.length, LEGACY_DRAWABLE_IDS.length);
+		return result;
+	}
 	
 	@Override
 	public Drawable getDrawable(Resources res, AccentPalette palette, int resId) {
+		if (resId == R.drawable.ha__progressbar_indeterminate)
+			return new IndeterminedProgressAnimatedDrawable(res, palette, PaletteColor.accent());
 		for (int i=0; i< INDETERMINATE_DRAWABLE_IDS.length; i++) {
 			if (resId == INDETERMINATE_DRAWABLE_IDS[i])
-				return new IndeterminedProgressDrawable(res, palette.accentColor, i, INDETERMINATE_DRAWABLE_IDS.length);
+				return new IndeterminedProgressDrawable(res, palette, PaletteColor.accent(), i, INDETERMINATE_DRAWABLE_IDS.length);
 		}
 		for (int i=0; i< LEGACY_DRAWABLE_IDS.length; i++) {
 			if (resId == LEGACY_DRAWABLE_IDS[i])
-				return new IndeterminedProgressLegacyDrawable(res, palette.accentColor, i);
+				return new IndeterminedProgressLegacyDrawable(res, palette, PaletteColor.accent(), i);
 		}
 		return null;
 	}
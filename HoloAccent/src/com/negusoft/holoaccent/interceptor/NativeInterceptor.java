@@ -25,7 +25,27 @@ import com.negusoft.holoaccent.R;
 import com.negusoft.holoaccent.util.NativeResources;
 
 /** Access the android private drawables that we don't have directly access to. */
-public class NativeInterceptor implements AccentResources.Interceptor {
+public class NativeInterceptor implements AccentResources.IdentifiedInterceptor {
+
+	private static final int[] DRAWABLE_IDS = new int[] {
+			R.drawable.ha__native_ic_cab_done,
+			R.drawable.ha__native_ic_cab_done_light,
+			R.drawable.ha__native_ic_menu_copy,
+			R.drawable.ha__native_ic_menu_copy_light,
+			R.drawable.ha__native_ic_menu_cut,
+			R.drawable.ha__native_ic_menu_cut_light,
+			R.drawable.ha__native_ic_menu_paste,
+			R.drawable.ha__native_ic_menu_paste_light,
+			R.drawable.ha__native_ic_menu_selectall,
+			R.drawable.ha__native_ic_menu_selectall_light,
+			R.drawable.ha__native_ab_back,
+			R.drawable.ha__native_ab_back_light
+	};
+
+	@Override
+	public int[] getDrawableIds() {
+		return DRAWABLE_IDS;
+	}
 
 	@Override
 	public Drawable getDrawable(Resources res, AccentPalette palette, int resId) {
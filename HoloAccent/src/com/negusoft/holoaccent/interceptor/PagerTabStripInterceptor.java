@@ -16,24 +16,35 @@
 package com.negusoft.holoaccent.interceptor;
 
 import android.content.res.Resources;
-import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
 
 import com.negusoft.holoaccent.AccentPalette;
 import com.negusoft.holoaccent.AccentResources;
+import com.negusoft.holoaccent.PaletteColor;
 import com.negusoft.holoaccent.R;
+import com.negusoft.holoaccent.drawable.PaletteColorDrawable;
 
-public class PagerTabStripInterceptor implements AccentResources.Interceptor {
+public class PagerTabStripInterceptor implements AccentResources.IdentifiedInterceptor {
 
 	private static final int DEFAULT_ALPHA = 96;
 	private static final int LIGHT_ALPHA = 48;
 
+	private static final int[] DRAWABLE_IDS = new int[] {
+			R.drawable.ha__pager_tab_strip_background_reference,
+			R.drawable.ha__pager_tab_strip_background_reference_light
+	};
+
+	@Override
+	public int[] getDrawableIds() {
+		return DRAWABLE_IDS;
+	}
+
 	@Override
 	public Drawable getDrawable(Resources res, AccentPalette palette, int resId) {
 		if (resId == R.drawable.ha__pager_tab_strip_background_reference)
-			return new ColorDrawable(palette.getDarkAccentColor(DEFAULT_ALPHA));
+			return new PaletteColorDrawable(palette, PaletteColor.darkAccent(DEFAULT_ALPHA));
 		if (resId == R.drawable.ha__pager_tab_strip_background_reference_light)
-			return new ColorDrawable(palette.getDarkAccentColor(LIGHT_ALPHA));
+			return new PaletteColorDrawable(palette, PaletteColor.darkAccent(LIGHT_ALPHA));
 		return null;
 	}
 
@@ -20,24 +20,36 @@ import android.graphics.drawable.Drawable;
 
 import com.negusoft.holoaccent.AccentPalette;
 import com.negusoft.holoaccent.AccentResources;
+import com.negusoft.holoaccent.PaletteColor;
 import com.negusoft.holoaccent.R;
 import com.negusoft.holoaccent.drawable.RectDrawable;
 
-public class RectInterceptor implements AccentResources.Interceptor {
+public class RectInterceptor implements AccentResources.IdentifiedInterceptor {
 	
+	private static final int[] DRAWABLE_IDS = new int[] {
+			R.drawable.ha__rect_focused_background,
+			R.drawable.ha__rect_focused_border,
+			R.drawable.ha__ab_rect_focused_background
+	};
+
+	@Override
+	public int[] getDrawableIds() {
+		return DRAWABLE_IDS;
+	}
+
 	@Override
 	public Drawable getDrawable(Resources res, AccentPalette palette, int resId) {
 		if (resId == R.drawable.ha__rect_focused_background) {
-			int backColor = palette.getAccentColor(0x55);
-			int borderColor = palette.getAccentColor(0xAA);
-			return new RectDrawable(res, backColor, 2f, borderColor);
+			PaletteColor backColor = PaletteColor.accent(0x55);
+			PaletteColor borderColor = PaletteColor.accent(0xAA);
+			return new RectDrawable(res, palette, backColor, 2f, borderColor);
 		}
 		if (resId == R.drawable.ha__rect_focused_border)
-			return new RectDrawable(res, 0, 1f, palette.getAccentColor(0x99));
+			return new RectDrawable(res, palette, PaletteColor.TRANSPARENT, 1f, PaletteColor.accent(0x99));
         if (resId == R.drawable.ha__ab_rect_focused_background) {
-            int backColor = palette.getActionBarAccentColor(0x55);
-            int borderColor = palette.getActionBarAccentColor(0xAA);
-            return new RectDrawable(res, backColor, 2f, borderColor);
+            PaletteColor backColor = PaletteColor.actionBarAccent(0x55);
+            PaletteColor borderColor = PaletteColor.actionBarAccent(0xAA);
+            return new RectDrawable(res, palette, backColor, 2f, borderColor);
         }
 		return null;
 	}
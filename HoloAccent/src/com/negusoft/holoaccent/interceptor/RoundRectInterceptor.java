@@ -20,46 +20,69 @@ import android.graphics.drawable.Drawable;
 
 import com.negusoft.holoaccent.AccentPalette;
 import com.negusoft.holoaccent.AccentResources;
+import com.negusoft.holoaccent.PaletteColor;
 import com.negusoft.holoaccent.R;
 import com.negusoft.holoaccent.drawable.RoundRectDrawable;
 
-public class RoundRectInterceptor implements AccentResources.Interceptor {
+public class RoundRectInterceptor implements AccentResources.IdentifiedInterceptor {
 
 	private static final float BORDER_WIDTH_DP = 2.0f;
 	private static final float BORDER_WIDTH_DISABLED_DP = 0.8f;
 	private static final float CORNER_RADIUS_DP = 3f;
 	private static final float BUTTION_GLOW_CORNER_RADIUS_DP = 10f;
 	
+	private static final int[] DRAWABLE_IDS = new int[] {
+			R.drawable.ha__roundrect_check_pressed,
+			R.drawable.ha__roundrect_spinner_pressed,
+			R.drawable.ha__roundrect_spinner_focussed,
+			R.drawable.ha__ab_roundrect_spinner_pressed,
+			R.drawable.ha__ab_roundrect_spinner_focussed,
+			R.drawable.ha__roundrect_button_pressed_glow,
+			R.drawable.ha__roundrect_button_pressed_fill,
+			R.drawable.ha__roundrect_button_pressed_fill_colored,
+			R.drawable.ha__roundrect_button_focused,
+			R.drawable.ha__roundrect_button_disabled_focused,
+			R.drawable.ha__roundrect_button_normal_colored,
+			R.drawable.ha__roundrect_button_normal_colored_bright,
+			R.drawable.ha__roundrect_button_disabled_colored,
+			R.drawable.ha__roundrect_button_disabled_focused_colored
+	};
+
+	@Override
+	public int[] getDrawableIds() {
+		return DRAWABLE_IDS;
+	}
+
 	@Override
 	public Drawable getDrawable(Resources res, AccentPalette palette, int resId) {
 		if (resId == R.drawable.ha__roundrect_check_pressed)
-			return new RoundRectDrawable(res.getDisplayMetrics(), palette.getAccentColor(0x88), CORNER_RADIUS_DP);
+			return new RoundRectDrawable(res.getDisplayMetrics(), palette, PaletteColor.accent(0x88), CORNER_RADIUS_DP);
         if (resId == R.drawable.ha__roundrect_spinner_pressed)
-            return new RoundRectDrawable(res.getDisplayMetrics(), palette.getAccentColor(0xAA), CORNER_RADIUS_DP);
+            return new RoundRectDrawable(res.getDisplayMetrics(), palette, PaletteColor.accent(0xAA), CORNER_RADIUS_DP);
         if (resId == R.drawable.ha__roundrect_spinner_focussed)
-            return new RoundRectDrawable(res.getDisplayMetrics(), palette.getAccentColor(0x55), BORDER_WIDTH_DP, palette.getAccentColor(0xAA), CORNER_RADIUS_DP);
+            return new RoundRectDrawable(res.getDisplayMetrics(), palette, PaletteColor.accent(0x55), BORDER_WIDTH_DP, PaletteColor.accent(0xAA), CORNER_RADIUS_DP);
         if (resId == R.drawable.ha__ab_roundrect_spinner_pressed)
-            return new RoundRectDrawable(res.getDisplayMetrics(), palette.getActionBarAccentColor(0xAA), CORNER_RADIUS_DP);
+            return new RoundRectDrawable(res.getDisplayMetrics(), palette, PaletteColor.actionBarAccent(0xAA), CORNER_RADIUS_DP);
         if (resId == R.drawable.ha__ab_roundrect_spinner_focussed)
-            return new RoundRectDrawable(res.getDisplayMetrics(), palette.getActionBarAccentColor(0x55), BORDER_WIDTH_DP, palette.getActionBarAccentColor(0xAA), CORNER_RADIUS_DP);
+            return new RoundRectDrawable(res.getDisplayMetrics(), palette, PaletteColor.actionBarAccent(0x55), BORDER_WIDTH_DP, PaletteColor.actionBarAccent(0xAA), CORNER_RADIUS_DP);
 		if (resId == R.drawable.ha__roundrect_button_pressed_glow)
-			return new RoundRectDrawable(res.getDisplayMetrics(), palette.getAccentColor(0x55), BUTTION_GLOW_CORNER_RADIUS_DP);
+			return new RoundRectDrawable(res.getDisplayMetrics(), palette, PaletteColor.accent(0x55), BUTTION_GLOW_CORNER_RADIUS_DP);
 		if (resId == R.drawable.ha__roundrect_button_pressed_fill)
-			return new RoundRectDrawable(res.getDisplayMetrics(), palette.accentColor, CORNER_RADIUS_DP);
+			return new RoundRectDrawable(res.getDisplayMetrics(), palette, PaletteColor.accent(), CORNER_RADIUS_DP);
 		if (resId == R.drawable.ha__roundrect_button_pressed_fill_colored)
-			return new RoundRectDrawable(res.getDisplayMetrics(), palette.getAccentColor(0x55), CORNER_RADIUS_DP);
+			return new RoundRectDrawable(res.getDisplayMetrics(), palette, PaletteColor.accent(0x55), CORNER_RADIUS_DP);
 		if (resId == R.drawable.ha__roundrect_button_focused)
-			return new RoundRectDrawable(res.getDisplayMetrics(), palette.getAccentColor(0x66), BORDER_WIDTH_DP, palette.accentColor, CORNER_RADIUS_DP);
+			return new RoundRectDrawable(res.getDisplayMetrics(), palette, PaletteColor.accent(0x66), BORDER_WIDTH_DP, PaletteColor.accent(), CORNER_RADIUS_DP);
 		if (resId == R.drawable.ha__roundrect_button_disabled_focused)
-			return new RoundRectDrawable(res.getDisplayMetrics(), palette.getAccentColor(0x22), BORDER_WIDTH_DP, palette.getAccentColor(0x33), CORNER_RADIUS_DP);
+			return new RoundRectDrawable(res.getDisplayMetrics(), palette, PaletteColor.accent(0x22), BORDER_WIDTH_DP, PaletteColor.accent(0x33), CORNER_RADIUS_DP);
 		if (resId == R.drawable.ha__roundrect_button_normal_colored)
-			return new RoundRectDrawable(res.getDisplayMetrics(), palette.getDarkAccentColor(), CORNER_RADIUS_DP);
+			return new RoundRectDrawable(res.getDisplayMetrics(), palette, PaletteColor.darkAccent(), CORNER_RADIUS_DP);
 		if (resId == R.drawable.ha__roundrect_button_normal_colored_bright)
-			return new RoundRectDrawable(res.getDisplayMetrics(), palette.accentColor, CORNER_RADIUS_DP);
+			return new RoundRectDrawable(res.getDisplayMetrics(), palette, PaletteColor.accent(), CORNER_RADIUS_DP);
 		if (resId == R.drawable.ha__roundrect_button_disabled_colored)
-			return new RoundRectDrawable(res.getDisplayMetrics(), palette.getAccentColor(0x22), BORDER_WIDTH_DISABLED_DP, palette.getAccentColor(0x55), CORNER_RADIUS_DP);
+			return new RoundRectDrawable(res.getDisplayMetrics(), palette, PaletteColor.accent(0x22), BORDER_WIDTH_DISABLED_DP, PaletteColor.accent(0x55), CORNER_RADIUS_DP);
 		if (resId == R.drawable.ha__roundrect_button_disabled_focused_colored)
-			return new RoundRectDrawable(res.getDisplayMetrics(), palette.getAccentColor(0x22), BORDER_WIDTH_DP, palette.getAccentColor(0x88), CORNER_RADIUS_DP);
+			return new RoundRectDrawable(res.getDisplayMetrics(), palette, PaletteColor.accent(0x22), BORDER_WIDTH_DP, PaletteColor.accent(0x88), CORNER_RADIUS_DP);
 		return null;
 	}
 
@@ -25,8 +25,22 @@ import com.negusoft.holoaccent.drawable.ScrubberControlSelectorDrawable;
 import com.negusoft.holoaccent.drawable.ScrubberControlSelectorDrawable.SelectorType;
 import com.negusoft.holoaccent.drawable.ScrubberProgressDrawable;
 
-public class ScrubberInterceptor implements AccentResources.Interceptor {
+public class ScrubberInterceptor implements AccentResources.IdentifiedInterceptor {
 	
+	private static final int[] DRAWABLE_IDS = new int[] {
+			R.drawable.ha__scrubber_control_disabled,
+			R.drawable.ha__scrubber_control_focused,
+			R.drawable.ha__scrubber_control_normal,
+			R.drawable.ha__scrubber_control_pressed,
+			R.drawable.ha__scrubber_comp_primary,
+			R.drawable.ha__scrubber_comp_secondary
+	};
+
+	@Override
+	public int[] getDrawableIds() {
+		return DRAWABLE_IDS;
+	}
+
 	@Override
 	public Drawable getDrawable(Resources res, AccentPalette palette, int resId) {
 		// control selector
@@ -5,18 +5,30 @@ import android.graphics.drawable.Drawable;
 
 import com.negusoft.holoaccent.AccentPalette;
 import com.negusoft.holoaccent.AccentResources;
+import com.negusoft.holoaccent.PaletteColor;
 import com.negusoft.holoaccent.R;
 import com.negusoft.holoaccent.drawable.SearchViewDrawable;
 
-public class SearchViewTextFieldInterceptor implements AccentResources.Interceptor {
+public class SearchViewTextFieldInterceptor implements AccentResources.IdentifiedInterceptor {
 	
 	public static final int DEFAULT_COLOR = 0x4Dffffff;
 	public static final int DEFAULT_COLOR_LIGHT = 0x4D000000;
 
+	private static final int[] DRAWABLE_IDS = new int[] {
+			R.drawable.ha__ab_searchview_textfield_focused,
+			R.drawable.ha__ab_searchview_textfield_default,
+			R.drawable.ha__ab_searchview_textfield_default_light
+	};
+
+	@Override
+	public int[] getDrawableIds() {
+		return DRAWABLE_IDS;
+	}
+
 	@Override
 	public Drawable getDrawable(Resources res, AccentPalette palette, int resId) {
 		if (resId == R.drawable.ha__ab_searchview_textfield_focused)
-			return new SearchViewDrawable(res.getDisplayMetrics(), palette.accentColor);
+			return new SearchViewDrawable(res.getDisplayMetrics(), palette, PaletteColor.accent());
 		if (resId == R.drawable.ha__ab_searchview_textfield_default)
 			return new SearchViewDrawable(res.getDisplayMetrics(), DEFAULT_COLOR);
 		if (resId == R.drawable.ha__ab_searchview_textfield_default_light)
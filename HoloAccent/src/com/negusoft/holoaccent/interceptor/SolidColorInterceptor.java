@@ -16,32 +16,47 @@
 package com.negusoft.holoaccent.interceptor;
 
 import android.content.res.Resources;
-import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
 
 import com.negusoft.holoaccent.AccentPalette;
 import com.negusoft.holoaccent.AccentResources;
+import com.negusoft.holoaccent.PaletteColor;
 import com.negusoft.holoaccent.R;
+import com.negusoft.holoaccent.drawable.PaletteColorDrawable;
 
-public class SolidColorInterceptor implements AccentResources.Interceptor {
+public class SolidColorInterceptor implements AccentResources.IdentifiedInterceptor {
 
 	private static final int PRESSED_ALPHA = 0xAA;
 	private static final int FOCUSED_ALPHA = 0x55;
 
+	private static final int[] DRAWABLE_IDS = new int[] {
+			R.drawable.ha__solid_accent,
+			R.drawable.ha__solid_accent_dark,
+			R.drawable.ha__solid_pressed,
+			R.drawable.ha__solid_focused,
+			R.drawable.ha__ab_solid_pressed,
+			R.drawable.ha__ab_solid_focused
+	};
+
+	@Override
+	public int[] getDrawableIds() {
+		return DRAWABLE_IDS;
+	}
+
 	@Override
 	public Drawable getDrawable(Resources res, AccentPalette palette, int resId) {
 		if (resId == R.drawable.ha__solid_accent)
-			return new ColorDrawable(palette.accentColor);
+			return new PaletteColorDrawable(palette, PaletteColor.accent());
 		if (resId == R.drawable.ha__solid_accent_dark)
-			return new ColorDrawable(palette.getDarkAccentColor());
+			return new PaletteColorDrawable(palette, PaletteColor.darkAccent());
         if (resId == R.drawable.ha__solid_pressed)
-            return new ColorDrawable(palette.getAccentColor(PRESSED_ALPHA));
+            return new PaletteColorDrawable(palette, PaletteColor.accent(PRESSED_ALPHA));
         if (resId == R.drawable.ha__solid_focused)
-            return new ColorDrawable(palette.getAccentColor(FOCUSED_ALPHA));
+            return new PaletteColorDrawable(palette, PaletteColor.accent(FOCUSED_ALPHA));
         if (resId == R.drawable.ha__ab_solid_pressed)
-            return new ColorDrawable(palette.getActionBarAccentColor(PRESSED_ALPHA));
+            return new PaletteColorDrawable(palette, PaletteColor.actionBarAccent(PRESSED_ALPHA));
         if (resId == R.drawable.ha__ab_solid_focused)
-            return new ColorDrawable(palette.getActionBarAccentColor(FOCUSED_ALPHA));
+            return new PaletteColorDrawable(palette, PaletteColor.actionBarAccent(FOCUSED_ALPHA));
 		return null;
 	}
 
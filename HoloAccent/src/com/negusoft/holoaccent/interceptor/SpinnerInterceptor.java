@@ -23,13 +23,37 @@ import com.negusoft.holoaccent.AccentResources;
 import com.negusoft.holoaccent.R;
 import com.negusoft.holoaccent.drawable.SpinnerDrawable;
 
-public class SpinnerInterceptor implements AccentResources.Interceptor {
+public class SpinnerInterceptor implements AccentResources.IdentifiedInterceptor {
 
 	private static final int COLOR_DEFAULT_DARK = 0x99cccccc;
 	private static final int COLOR_DISABLED_DARK = 0x32cccccc;
 	private static final int COLOR_DEFAULT_LIGHT = 0x96333333;
 	private static final int COLOR_DISABLED_LIGHT = 0x32333333;
 	
+	private static final int[] DRAWABLE_IDS = new int[] {
+			R.drawable.ha__spinner_indicator,
+			R.drawable.ha__spinner_indicator_disabled,
+			R.drawable.ha__spinner_indicator_light,
+			R.drawable.ha__spinner_indicator_disabled_light,
+			R.drawable.ha__spinner_indicator_rtl,
+			R.drawable.ha__spinner_indicator_rtl_disabled,
+			R.drawable.ha__spinner_indicator_rtl_light,
+			R.drawable.ha__spinner_indicator_rtl_disabled_light,
+			R.drawable.ha__ab_spinner_indicator,
+			R.drawable.ha__ab_spinner_indicator_disabled,
+			R.drawable.ha__ab_spinner_indicator_light,
+			R.drawable.ha__ab_spinner_indicator_disabled_light,
+			R.drawable.ha__ab_spinner_indicator_rtl,
+			R.drawable.ha__ab_spinner_indicator_rtl_disabled,
+			R.drawable.ha__ab_spinner_indicator_rtl_light,
+			R.drawable.ha__ab_spinner_indicator_rtl_disabled_light
+	};
+
+	@Override
+	public int[] getDrawableIds() {
+		return DRAWABLE_IDS;
+	}
+
 	@Override
 	public Drawable getDrawable(Resources res, AccentPalette palette, int resId) {
 		// Default
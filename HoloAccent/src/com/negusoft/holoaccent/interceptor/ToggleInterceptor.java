@@ -21,23 +21,37 @@ import android.graphics.drawable.Drawable;
 
 import com.negusoft.holoaccent.AccentPalette;
 import com.negusoft.holoaccent.AccentResources;
+import com.negusoft.holoaccent.PaletteColor;
 import com.negusoft.holoaccent.R;
 import com.negusoft.holoaccent.drawable.ToggleForegroundDrawable;
 
-public class ToggleInterceptor implements AccentResources.Interceptor {
+public class ToggleInterceptor implements AccentResources.IdentifiedInterceptor {
 
 	private final int COLOR_ON_PRESSED = Color.rgb(255, 255, 255);
 	private final int COLOR_OFF = Color.argb(128, 0, 0, 0);
 	private final int COLOR_OFF_DISABLED = Color.argb(64, 0, 0, 0);
 
+	private static final int[] DRAWABLE_IDS = new int[] {
+			R.drawable.ha__btn_toggle_comp_on_foreground,
+			R.drawable.ha__btn_toggle_comp_on_foreground_pressed,
+			R.drawable.ha__btn_toggle_comp_on_foreground_disabled,
+			R.drawable.ha__btn_toggle_comp_off_foreground,
+			R.drawable.ha__btn_toggle_comp_off_foreground_disabled
+	};
+
+	@Override
+	public int[] getDrawableIds() {
+		return DRAWABLE_IDS;
+	}
+
 	@Override
 	public Drawable getDrawable(Resources res, AccentPalette palette, int resId) {
 		if (resId == R.drawable.ha__btn_toggle_comp_on_foreground)
-			return new ToggleForegroundDrawable(res, palette.accentColor);
+			return new ToggleForegroundDrawable(res, palette, PaletteColor.accent());
 		if (resId == R.drawable.ha__btn_toggle_comp_on_foreground_pressed)
 			return new ToggleForegroundDrawable(res, COLOR_ON_PRESSED);
 		if (resId == R.drawable.ha__btn_toggle_comp_on_foreground_disabled)
-			return new ToggleForegroundDrawable(res, palette.getAccentColor(128));
+			return new ToggleForegroundDrawable(res, palette, PaletteColor.accent(128));
 		if (resId == R.drawable.ha__btn_toggle_comp_off_foreground)
 			return new ToggleForegroundDrawable(res, COLOR_OFF);
 		if (resId == R.drawable.ha__btn_toggle_comp_off_foreground_disabled)
@@ -20,24 +20,38 @@ import android.graphics.drawable.Drawable;
 
 import com.negusoft.holoaccent.AccentPalette;
 import com.negusoft.holoaccent.AccentResources;
+import com.negusoft.holoaccent.PaletteColor;
 import com.negusoft.holoaccent.R;
 import com.negusoft.holoaccent.drawable.UnderlineDrawable;
 
-public class UnderlineInterceptor implements AccentResources.Interceptor {
+public class UnderlineInterceptor implements AccentResources.IdentifiedInterceptor {
+
+	private static final int[] DRAWABLE_IDS = new int[] {
+			R.drawable.ha__underline_1_5,
+			R.drawable.ha__underline_3,
+			R.drawable.ha__underline_6,
+			R.drawable.ha__ab_underline_6,
+			R.drawable.ha__overline_3
+	};
+
+	@Override
+	public int[] getDrawableIds() {
+		return DRAWABLE_IDS;
+	}
 
 	@Override
 	public Drawable getDrawable(Resources res, AccentPalette palette, int resId) {
 		if (resId == R.drawable.ha__underline_1_5)
-			return new UnderlineDrawable(res, palette.accentColor, 1.5f);
+			return new UnderlineDrawable(res, palette, PaletteColor.accent(), 1.5f, false);
 		if (resId == R.drawable.ha__underline_3)
-			return new UnderlineDrawable(res, palette.accentColor, 3f);
+			return new UnderlineDrawable(res, palette, PaletteColor.accent(), 3f, false);
         if (resId == R.drawable.ha__underline_6)
-            return new UnderlineDrawable(res, palette.accentColor, 6f);
+            return new UnderlineDrawable(res, palette, PaletteColor.accent(), 6f, false);
         if (resId == R.drawable.ha__ab_underline_6)
-            return new UnderlineDrawable(res, palette.accentColorActionBar, 6f);
+            return new UnderlineDrawable(res, palette, PaletteColor.actionBarAccent(), 6f, false);
 		// overline
 		if (resId == R.drawable.ha__overline_3)
-			return new UnderlineDrawable(res, palette.accentColor, 3f, true);
+			return new UnderlineDrawable(res, palette, PaletteColor.accent(), 3f, true);
 		return null;
 	}
 
@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.util;
+
+/**
+ * The part of each row of an image that is not fully transparent, from the first
+ * to the last pixel with an alpha value above 0. The kernels can be restricted to
+ * these spans, as the transparent pixels are still transparent once tinted.
+ * <br/><br/>
+ * Most of the resources tinted by the library are transparent around a small
+ * shape, so the spans are computed once per resource and kept.
+ */
+public class AlphaSpans {
+
+	private final int mWidth;
+	private final int[] mStarts;
+	private final int[] mEnds;
+	private final int mPixelCount;
+
+	private AlphaSpans(int width, int[] starts, int[] ends, int pixelCount) {
+		mWidth = width;
+		mStarts = starts;
+		mEnds = ends;
+		mPixelCount = pixelCount;
+	}
+
+	/** Find the spans in the given pixels, row by row. */
+	public static AlphaSpans compute(int[] pixels, int width, int height) {
+		int[] starts = new int[height];
+		int[] ends = new int[height];
+		int pixelCount = 0;
+		for (int y = 0; y < height; y++)
+			pixelCount += computeRow(pixels, y * width, width, starts, ends, y);
+		return new AlphaSpans(width, starts, ends, pixelCount);
+	}
+
+	public static AlphaSpans compute(PixelBuffer buffer) {
+		return compute(buffer.getPixels(), buffer.getWidth(), buffer.getHeight());
+	}
+
+	/** Find the spans in the given rows, reading a band of them at a time. */
+	public static AlphaSpans compute(PixelRows rows) {
+		int width = rows.getWidth();
+		int height = rows.getHeight();
+		int[] starts = new int[height];
+		int[] ends = new int[height];
+		int pixelCount = 0;
+		int bandRows = Math.max(1, Math.min(height, UncompressedPngEncoder.BAND_PIXELS / Math.max(1, width)));
+		int[] band = new int[bandRows * width];
+		for (int firstRow = 0; firstRow < height; firstRow += bandRows) {
+			int rowCount = Math.min(bandRows, height - firstRow);
+			rows.readRows(band, firstRow, rowCount);
+			for (int i = 0; i < rowCount; i++)
+				pixelCount += computeRow(band, i * width, width, starts, ends, firstRow + i);
+		}
+		return new AlphaSpans(width, starts, ends, pixelCount);
+	}
+
+	/** Find the span of the row starting at 'offset'. @return Its length. */
+	private static int computeRow(int[] pixels, int offset, int width, int[] starts, int[] ends, int y) {
+		int start = 0;
+		while (start < width && (pixels[offset + start] >>> 24) == 0)
+			start++;
+		int end = width;
+		while (end > start && (pixels[offset + end - 1] >>> 24) == 0)
+			end--;
+		starts[y] = start;
+		ends[y] = end;
+		return end - start;
+	}
+
+	/** @return The width of the image the spans were computed for. */
+	public int getWidth() {
+		return mWidth;
+	}
+
+	/** @return The height of the image the spans were computed for. */
+	public int getHeight() {
+		return mStarts.length;
+	}
+
+	/** @return True if the spans were computed for an image of the given size. */
+	public boolean matches(int width, int height) {
+		return mWidth == width && mStarts.length == height;
+	}
+
+	/** @return The number of pixels within the spans. */
+	public int getPixelCount() {
+		return mPixelCount;
+	}
+
+	/** @return The number of pixels in the image, including the ones out of the spans. */
+	public int getTotalPixelCount() {
+		return mWidth * mStarts.length;
+	}
+
+	/**
+	 * Get a kernel that only applies the given one to the pixels within the spans.
+	 * It must be applied to whole rows, like PixelTiles and TintKernels do.
+	 */
+	public PixelTiles.Kernel restrict(final PixelTiles.Kernel kernel) {
+		return new PixelTiles.Kernel() {
+			@Override
+			public void apply(int[] pixels, int offset, int count) {
+				int width = mWidth;
+				if (width == 0)
+					return;
+				applyToRows(kernel, pixels, offset, offset / width, count / width);
+			}
+		};
+	}
+
+	/**
+	 * Get rows that apply the given kernel to the pixels within the spans as they
+	 * are read from 'source', which must be the image the spans were computed for.
+	 */
+	public PixelRows restrict(final PixelRows source, final PixelTiles.Kernel kernel) {
+		if (!matches(source.getWidth(), source.getHeight()))
+			throw new IllegalArgumentException("The spans are for a " + mWidth + "x" + mStarts.length
+					+ " image but the rows are " + source.getWidth() + "x" + source.getHeight());
+		return new PixelRows() {
+			@Override
+			public int getWidth() {
+				return source.getWidth();
+			}
+
+			@Override
+			public int getHeight() {
+				return source.getHeight();
+			}
+
+			@Override
+			public void readRows(int[] pixels, int firstRow, int rowCount) {
+				source.readRows(pixels, firstRow, rowCount);
+				applyToRows(kernel, pixels, 0, firstRow, rowCount);
+			}
+		};
+	}
+
+	/** Apply the kernel to the spans of the given rows, stored from 'offset'. */
+	private void applyToRows(PixelTiles.Kernel kernel, int[] pixels, int offset, int firstRow, int rowCount) {
+		int width = mWidth;
+		for (int i = 0; i < rowCount; i++) {
+			int y = firstRow + i;
+			int start = mStarts[y];
+			int length = mEnds[y] - start;
+			if (length > 0)
+				kernel.apply(pixels, offset + (i * width) + start, length);
+		}
+	}
+
+}
@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.util;
+
+/** A PixelBuffer backed by an int array. */
+public class ArrayPixelBuffer implements PixelBuffer {
+
+	private final int mWidth;
+	private final int mHeight;
+	private final int[] mPixels;
+
+	/** Create a buffer with every pixel transparent. */
+	public ArrayPixelBuffer(int width, int height) {
+		this(new int[width * height], width, height);
+	}
+
+	/** Create a buffer using the given pixels, which are not copied. */
+	public ArrayPixelBuffer(int[] pixels, int width, int height) {
+		if (pixels.length != width * height)
+			throw new IllegalArgumentException("Expected " + (width * height) + " pixels but got " + pixels.length);
+		mWidth = width;
+		mHeight = height;
+		mPixels = pixels;
+	}
+
+	@Override
+	public int getWidth() {
+		return mWidth;
+	}
+
+	@Override
+	public int getHeight() {
+		return mHeight;
+	}
+
+	@Override
+	public int[] getPixels() {
+		return mPixels;
+	}
+
+}
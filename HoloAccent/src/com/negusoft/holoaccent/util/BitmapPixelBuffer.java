@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.util;
+
+import android.graphics.Bitmap;
+
+/**
+ * A PixelBuffer holding a copy of the pixels of a bitmap. Call toBitmap() to
+ * create a bitmap with the result once the kernels are applied.
+ */
+public class BitmapPixelBuffer extends ArrayPixelBuffer {
+
+	public BitmapPixelBuffer(Bitmap bitmap) {
+		super(bitmap.getWidth(), bitmap.getHeight());
+		int width = getWidth();
+		bitmap.getPixels(getPixels(), 0, width, 0, 0, width, getHeight());
+	}
+
+	/** @return A new ARGB_8888 bitmap with the current pixels. */
+	public Bitmap toBitmap() {
+		return Bitmap.createBitmap(getPixels(), getWidth(), getHeight(), Bitmap.Config.ARGB_8888);
+	}
+
+}
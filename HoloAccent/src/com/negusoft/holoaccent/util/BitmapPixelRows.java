@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.util;
+
+import android.graphics.Bitmap;
+
+/** The PixelRows of a bitmap, read with Bitmap.getPixels() as they are needed. */
+public class BitmapPixelRows implements PixelRows {
+
+	private final Bitmap mBitmap;
+
+	public BitmapPixelRows(Bitmap bitmap) {
+		mBitmap = bitmap;
+	}
+
+	@Override
+	public int getWidth() {
+		return mBitmap.getWidth();
+	}
+
+	@Override
+	public int getHeight() {
+		return mBitmap.getHeight();
+	}
+
+	@Override
+	public void readRows(int[] pixels, int firstRow, int rowCount) {
+		int width = mBitmap.getWidth();
+		mBitmap.getPixels(pixels, 0, width, 0, firstRow, width, rowCount);
+	}
+
+}
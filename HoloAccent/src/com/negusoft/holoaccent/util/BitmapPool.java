@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.util;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+import android.graphics.Bitmap;
+
+/**
+ * Keeps mutable bitmaps that are no longer used, so they can be reused to decode
+ * other images of the same size (see BitmapFactory.Options.inBitmap) instead of
+ * allocating new ones. The bitmaps are grouped by width, height and config, as
+ * the decoder only reuses bitmaps that match exactly before KitKat.
+ * <br/><br/>
+ * It is bounded by the total number of bytes of the bitmaps it holds, removing
+ * the ones released the longest ago first.
+ */
+public class BitmapPool {
+
+	public static final int DEFAULT_MAX_SIZE_BYTES = 512 * 1024;
+
+	private final Map<Key, LinkedList<Bitmap>> mBuckets = new HashMap<Key, LinkedList<Bitmap>>();
+	/** The bitmaps in the order they were released, to evict the oldest first. */
+	private final LinkedList<Bitmap> mBitmaps = new LinkedList<Bitmap>();
+
+	private int mMaxSize;
+	private int mSize;
+
+	private int mHitCount;
+	private int mMissCount;
+	private int mEvictionCount;
+
+	public BitmapPool() {
+		this(DEFAULT_MAX_SIZE_BYTES);
+	}
+
+	/** @param maxSize The maximum number of bytes of the bitmaps to keep. */
+	public BitmapPool(int maxSize) {
+		if (maxSize <= 0)
+			throw new IllegalArgumentException("maxSize <= 0");
+		mMaxSize = maxSize;
+	}
+
+	/**
+	 * Take a bitmap with the given size and config out of the pool.
+	 * @return The bitmap or null if there is none.
+	 */
+	public synchronized Bitmap get(int width, int height, Bitmap.Config config) {
+		LinkedList<Bitmap> bucket = mBuckets.get(new Key(width, height, config));
+		if (bucket == null || bucket.isEmpty()) {
+			mMissCount++;
+			return null;
+		}
+		Bitmap result = bucket.removeLast();
+		mBitmaps.remove(result);
+		mSize -= result.getByteCount();
+		mHitCount++;
+		return result;
+	}
+
+	/**
+	 * Give a bitmap that is no longer used to the pool. It is recycled instead if it
+	 * can't be reused or it doesn't fit.
+	 */
+	public synchronized void put(Bitmap bitmap) {
+		if (bitmap.isRecycled())
+			return;
+		int size = bitmap.getByteCount();
+		if (!bitmap.isMutable() || size > mMaxSize) {
+			bitmap.recycle();
+			return;
+		}
+
+		Key key = new Key(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig());
+		LinkedList<Bitmap> bucket = mBuckets.get(key);
+		if (bucket == null) {
+			bucket = new LinkedList<Bitmap>();
+			mBuckets.put(key, bucket);
+		}
+		bucket.addLast(bitmap);
+		mBitmaps.addLast(bitmap);
+		mSize += size;
+		trimToSize(mMaxSize);
+	}
+
+	private void trimToSize(int maxSize) {
+		while (mSize > maxSize && !mBitmaps.isEmpty()) {
+			Bitmap bitmap = mBitmaps.removeFirst();
+			Key key = new Key(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig());
+			LinkedList<Bitmap> bucket = mBuckets.get(key);
+			bucket.remove(bitmap);
+			if (bucket.isEmpty())
+				mBuckets.remove(key);
+			mSize -= bitmap.getByteCount();
+			bitmap.recycle();
+			mEvictionCount++;
+		}
+	}
+
+	/** Change the maximum number of bytes, evicting bitmaps if necessary. */
+	public synchronized void setMaxSize(int maxSize) {
+		if (maxSize <= 0)
+			throw new IllegalArgumentException("maxSize <= 0");
+		mMaxSize = maxSize;
+		trimToSize(maxSize);
+	}
+
+	/** Remove and recycle all the bitmaps. */
+	public synchronized void evictAll() {
+		trimToSize(-1);
+	}
+
+	/** @return The number of bytes of the bitmaps currently in the pool. */
+	public synchronized int size() {
+		return mSize;
+	}
+
+	/** @return The maximum number of bytes to be kept. */
+	public synchronized int maxSize() {
+		return mMaxSize;
+	}
+
+	/** @return The number of times a bitmap was reused. */
+	public synchronized int hitCount() {
+		return mHitCount;
+	}
+
+	/** @return The number of times there was no bitmap to reuse. */
+	public synchronized int missCount() {
+		return mMissCount;
+	}
+
+	/** @return The number of bitmaps recycled to stay within the size limit. */
+	public synchronized int evictionCount() {
+		return mEvictionCount;
+	}
+
+	/** @return The percentage of requests that reused a bitmap. */
+	public synchronized int reuseRate() {
+		int requests = mHitCount + mMissCount;
+		return requests != 0 ? (100 * mHitCount / requests) : 0;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("BitmapPool[size=%d,maxSize=%d,hits=%d,misses=%d,evictions=%d,reuseRate=%d%%]",
+				mSize, mMaxSize, mHitCount, mMissCount, mEvictionCount, reuseRate());
+	}
+
+	private static final class Key {
+		final int width;
+		final int height;
+		final Bitmap.Config config;
+
+		Key(int width, int height, Bitmap.Config config) {
+			this.width = width;
+			this.height = height;
+			this.config = config;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key))
+				return false;
+			Key other = (Key)o;
+			return width == other.width && height == other.height && config == other.config;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = width;
+			result = 31 * result + height;
+			result = 31 * result + (config != null ? config.hashCode() : 0);
+			return result;
+		}
+	}
+
+}
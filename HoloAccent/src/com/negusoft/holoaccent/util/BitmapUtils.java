@@ -38,11 +38,27 @@ import java.io.IOException;
 
 import android.graphics.Bitmap;
 import android.graphics.Bitmap.CompressFormat;
-import android.graphics.Color;
 import android.os.Environment;
 
 public class BitmapUtils {
 	
+	private static volatile PixelTiles sPixelTiles;
+	
+	/**
+	 * Process large bitmaps in parallel tiles. By default every bitmap is processed 
+	 * on the calling thread.
+	 * @param pixelTiles Defines the executor and the minimum size to process a bitmap 
+	 * in parallel, or null to process them sequentially.
+	 */
+	public static void setPixelTiles(PixelTiles pixelTiles) {
+		sPixelTiles = pixelTiles;
+	}
+	
+	/** @return The PixelTiles set with setPixelTiles(), or null. */
+	public static PixelTiles getPixelTiles() {
+		return sPixelTiles;
+	}
+	
 	/**
 	 * Creates a copy of the bitmap by replacing the color of every pixel 
 	 * by accentColor while keeping the alpha value.
@@ -51,21 +67,9 @@ public class BitmapUtils {
 	 * @return A copy of the given bitmap with the accent color applied.
 	 */
 	public static Bitmap applyColor(Bitmap bitmap, int accentColor) {
-		int r = Color.red(accentColor);
-		int g = Color.green(accentColor);
-		int b = Color.blue(accentColor);
-		
-		int width = bitmap.getWidth();
-		int height = bitmap.getHeight();
-		int[] pixels = new int[width * height];
-		bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
-		
-		for (int i=0; i<pixels.length; i++) {
-			int color = pixels[i];
-			int alpha = Color.alpha(color);
-			pixels[i] = Color.argb(alpha, r, g, b);
-		}
-		return Bitmap.createBitmap(pixels, width, height, Bitmap.Config.ARGB_8888);
+		BitmapPixelBuffer buffer = new BitmapPixelBuffer(bitmap);
+		TintKernels.applyColor(buffer, accentColor, sPixelTiles);
+		return buffer.toBitmap();
 	}
 	
 	/**
@@ -77,38 +81,9 @@ public class BitmapUtils {
 	 * @return A copy of the given bitmap with the tint color changed.
 	 */
 	public static Bitmap changeTintColor(Bitmap bitmap, int originalColor, int destinationColor) {
-		// original tint color
-		int[] o = new int[] {
-				Color.red(originalColor),
-				Color.green(originalColor),
-				Color.blue(originalColor) };
-		// destination tint color
-		int[] d = new int[] {
-				Color.red(destinationColor),
-				Color.green(destinationColor),
-				Color.blue(destinationColor) };
-		
-		int width = bitmap.getWidth();
-		int height = bitmap.getHeight();
-		int[] pixels = new int[width * height];
-		bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
-
-		int maxIndex = getMaxIndex(o);
-		int mintIndex = getMinIndex(o);
-		
-		for (int i=0; i<pixels.length; i++) {
-			int color = pixels[i];
-			// pixel color
-			int[] p = new int[] {
-					Color.red(color),
-					Color.green(color),
-					Color.blue(color) };
-			int alpha = Color.alpha(color);
-
-			float[] transformation = calculateTransformation(o[maxIndex], o[mintIndex], p[maxIndex], p[mintIndex]);
-			pixels[i] = applyTransformation(d, alpha, transformation);
-		}
-		return Bitmap.createBitmap(pixels, width, height, Bitmap.Config.ARGB_8888);
+		BitmapPixelBuffer buffer = new BitmapPixelBuffer(bitmap);
+		TintKernels.changeTintColor(buffer, originalColor, destinationColor, sPixelTiles);
+		return buffer.toBitmap();
 	}
 	
 	/**
@@ -122,33 +97,9 @@ public class BitmapUtils {
 	 * significant and the blue value can be ignored.
 	 */
 	public static Bitmap createTintTransformationMap(Bitmap bitmap, int tintColor) {
-		// tint color
-		int[] t = new int[] {
-				Color.red(tintColor),
-				Color.green(tintColor),
-				Color.blue(tintColor) };
-		
-		int width = bitmap.getWidth();
-		int height = bitmap.getHeight();
-		int[] pixels = new int[width * height];
-		bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
-
-		int maxIndex = getMaxIndex(t);
-		int mintIndex = getMinIndex(t);
-		
-		for (int i=0; i<pixels.length; i++) {
-			int color = pixels[i];
-			// pixel color
-			int[] p = new int[] {
-					Color.red(color),
-					Color.green(color),
-					Color.blue(color) };
-			int alpha = Color.alpha(color);
-
-			float[] transformation = calculateTransformation(t[maxIndex], t[mintIndex], p[maxIndex], p[mintIndex]);
-			pixels[i] = Color.argb(alpha, (int)(transformation[0]*255), (int)(transformation[1]*255), 0);
-		}
-		return Bitmap.createBitmap(pixels, width, height, Bitmap.Config.ARGB_8888);
+		BitmapPixelBuffer buffer = new BitmapPixelBuffer(bitmap);
+		TintKernels.createTintTransformationMap(buffer, tintColor, sPixelTiles);
+		return buffer.toBitmap();
 	}
 	
 	/**
@@ -158,71 +109,9 @@ public class BitmapUtils {
 	 * @return A bitmap with the with the tint color set.
 	 */
 	public static Bitmap processTintTransformationMap(Bitmap transformationMap, int tintColor) {
-		// tint color
-		int[] t = new int[] {
-				Color.red(tintColor),
-				Color.green(tintColor),
-				Color.blue(tintColor) };
-		
-		int width = transformationMap.getWidth();
-		int height = transformationMap.getHeight();
-		int[] pixels = new int[width * height];
-		transformationMap.getPixels(pixels, 0, width, 0, 0, width, height);
-		
-		float[] transformation = new float[2];
-		
-		for (int i=0; i<pixels.length; i++) {
-			int color = pixels[i];
-			int alpha = Color.alpha(color);
-			transformation[0] = Color.red(color) / 255f;
-			transformation[1] = Color.green(color) / 255f;
-			pixels[i] = applyTransformation(t, alpha, transformation);
-		}
-		return Bitmap.createBitmap(pixels, width, height, Bitmap.Config.ARGB_8888);
-	}
-	
-	private static int getMaxIndex(int[] values) {
-		int result = 0;
-		for (int i=1; i<values.length; i++) {
-			if (values[result] < values[i])
-				result = i;
-		}
-		return result;
-	}
-	
-	private static int getMinIndex(int[] values) {
-		int result = 0;
-		for (int i=1; i<values.length; i++) {
-			if (values[result] > values[i])
-				result = i;
-		}
-		return result;
-	}
-	
-	private static float[] calculateTransformation(int tintA, int tintB, int colorA, int colorB) {
-		float a = tintA / 255f;
-		float aP = tintB / 255f;
-		float b = colorA / 255f;
-		float bP = colorB / 255f;
-		
-		float[] result = new float[2];
-		result[0] = (b-bP) / ((b*aP)+a-(bP*a)-aP);
-		result[1] = (bP-(aP*result[0])) / (1f-(aP*result[0]));
-		
-		return result;
-	}
-	
-	private static int applyTransformation(int[] tintComponents, int alpha, float[] transformation) {
-		return Color.argb(
-				alpha,
-				(int)applyTransformation(tintComponents[0], transformation),
-				(int)applyTransformation(tintComponents[1], transformation),
-				(int)applyTransformation(tintComponents[2], transformation));
-	}
-	
-	private static float applyTransformation(int colorComponent, float[] transformation) {
-		float firstStep = colorComponent*transformation[0];
-		return firstStep + ((255-firstStep) * transformation[1]);
+		BitmapPixelBuffer buffer = new BitmapPixelBuffer(transformationMap);
+		TintKernels.processTintTransformationMap(buffer, tintColor, sPixelTiles);
+		return buffer.toBitmap();
 	}
 	
 	/**
@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.util;
+
+/**
+ * The ARGB pixels of an image, row by row, in the same format as
+ * android.graphics.Color. The kernels in TintKernels work on this interface, so
+ * the same code runs on the device (BitmapPixelBuffer), on a plain JVM
+ * (ArrayPixelBuffer) and in the build tools (on a BufferedImage).
+ */
+public interface PixelBuffer {
+
+	public int getWidth();
+
+	public int getHeight();
+
+	/**
+	 * @return The pixels, getWidth() * getHeight() of them. The kernels modify
+	 * them in place, so it must not be a copy.
+	 */
+	public int[] getPixels();
+
+}
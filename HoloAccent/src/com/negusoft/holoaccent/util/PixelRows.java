@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.util;
+
+/**
+ * The ARGB pixels of an image, read a band of rows at a time instead of being
+ * kept in a single array. UncompressedPngEncoder and AlphaSpans read them this
+ * way, so a decoded bitmap can be processed without a full size copy of its
+ * pixels (see BitmapPixelRows).
+ */
+public interface PixelRows {
+
+	public int getWidth();
+
+	public int getHeight();
+
+	/**
+	 * Copy the given rows to the start of the array, row by row.
+	 * @param pixels The array to copy them to, with room for rowCount * getWidth() pixels.
+	 */
+	public void readRows(int[] pixels, int firstRow, int rowCount);
+
+}
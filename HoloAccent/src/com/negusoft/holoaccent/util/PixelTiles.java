@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.util;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a pixel kernel over an image split in tiles of whole rows, using an
+ * executor to process several tiles at the same time. Images smaller than the
+ * threshold are processed on the calling thread in a single pass.
+ * <br/><br/>
+ * The calling thread processes tiles as well, taking the ones the executor didn't
+ * start yet, so it never waits for tiles that are queued behind other work. This
+ * makes it safe to use the same executor the call is made from.
+ */
+public class PixelTiles {
+
+	/** Images with fewer pixels are processed sequentially by default (256x256). */
+	public static final int DEFAULT_THRESHOLD = 256 * 256;
+
+	/** A kernel that processes 'count' pixels starting at 'offset'. */
+	public interface Kernel {
+		public void apply(int[] pixels, int offset, int count);
+	}
+
+	private final Executor mExecutor;
+	private final int mThreshold;
+	private final int mParallelism;
+
+	/**
+	 * @param executor The executor to run the tiles on.
+	 * @param threshold The minimum number of pixels to process an image in parallel.
+	 */
+	public PixelTiles(Executor executor, int threshold) {
+		this(executor, threshold, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param executor The executor to run the tiles on.
+	 * @param threshold The minimum number of pixels to process an image in parallel.
+	 * @param parallelism The number of tiles to split the images in.
+	 */
+	public PixelTiles(Executor executor, int threshold, int parallelism) {
+		if (executor == null)
+			throw new IllegalArgumentException("executor == null");
+		mExecutor = executor;
+		mThreshold = threshold;
+		mParallelism = Math.max(1, parallelism);
+	}
+
+	public int getThreshold() {
+		return mThreshold;
+	}
+
+	/**
+	 * Apply the kernel to every pixel, returning once all of them are processed.
+	 * @param pixels The pixels of the image, row by row.
+	 * @param width The width of the image.
+	 */
+	public void run(int[] pixels, int width, Kernel kernel) {
+		int height = width == 0 ? 0 : pixels.length / width;
+		int tileCount = Math.min(mParallelism, height);
+		if (pixels.length < mThreshold || tileCount < 2) {
+			kernel.apply(pixels, 0, pixels.length);
+			return;
+		}
+
+		Tiles tiles = new Tiles(pixels, width, height, tileCount, kernel);
+		try {
+			for (int i=1; i<tileCount; i++)
+				mExecutor.execute(tiles);
+		} catch (RejectedExecutionException e) {
+			// The calling thread processes the remaining tiles
+		}
+		tiles.run();
+		tiles.await();
+	}
+
+	/** The tiles of one image, taken in order by whichever thread gets them first. */
+	private static class Tiles implements Runnable {
+
+		private final int[] mPixels;
+		private final int mWidth;
+		private final int mHeight;
+		private final int mRowsPerTile;
+		private final int mTileCount;
+		private final Kernel mKernel;
+
+		private final AtomicInteger mNextTile = new AtomicInteger();
+		/** Guarded by 'this'. */
+		private int mFinishedTiles;
+		/** Guarded by 'this'. */
+		private RuntimeException mException;
+
+		Tiles(int[] pixels, int width, int height, int tileCount, Kernel kernel) {
+			mPixels = pixels;
+			mWidth = width;
+			mHeight = height;
+			mRowsPerTile = (height + tileCount - 1) / tileCount;
+			mTileCount = (height + mRowsPerTile - 1) / mRowsPerTile;
+			mKernel = kernel;
+		}
+
+		@Override
+		public void run() {
+			int tile;
+			while ((tile = mNextTile.getAndIncrement()) < mTileCount) {
+				RuntimeException exception = null;
+				try {
+					int firstRow = tile * mRowsPerTile;
+					int rows = Math.min(mRowsPerTile, mHeight - firstRow);
+					mKernel.apply(mPixels, firstRow * mWidth, rows * mWidth);
+				} catch (RuntimeException e) {
+					exception = e;
+				}
+				finishTile(exception);
+			}
+		}
+
+		private synchronized void finishTile(RuntimeException exception) {
+			if (exception != null && mException == null)
+				mException = exception;
+			mFinishedTiles++;
+			if (mFinishedTiles == mTileCount)
+				notifyAll();
+		}
+
+		/** Wait for the tiles taken by other threads, rethrowing their exceptions. */
+		synchronized void await() {
+			boolean interrupted = false;
+			while (mFinishedTiles < mTileCount) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted)
+				Thread.currentThread().interrupt();
+			if (mException != null)
+				throw mException;
+		}
+	}
+
+}
@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.util;
+
+/**
+ * The pixel operations behind BitmapUtils, working in place on arrays of non
+ * premultiplied ARGB colors (as returned by Bitmap.getPixels()).
+ * <br/><br/>
+ * Nothing is allocated inside the pixel loops: the components are read into
+ * primitive locals, and the transformation is kept in two floats.
+ * <br/><br/>
+ * It doesn't depend on the Android classes, so the exact same code can be run
+ * on a plain JVM. It is used by the build-time pre-tinting tool.
+ */
+public class PixelUtils {
+
+	/**
+	 * Replace the color of every pixel by accentColor while keeping the alpha value.
+	 * @param pixels The pixels to modify.
+	 * @param accentColor The color to apply to every pixel.
+	 */
+	public static void applyColor(int[] pixels, int accentColor) {
+		applyColor(pixels, 0, pixels.length, accentColor);
+	}
+
+	/** Same as applyColor(int[], int) for 'count' pixels starting at 'offset'. */
+	public static void applyColor(int[] pixels, int offset, int count, int accentColor) {
+		int r = red(accentColor);
+		int g = green(accentColor);
+		int b = blue(accentColor);
+
+		int end = offset + count;
+		for (int i=offset; i<end; i++) {
+			int color = pixels[i];
+			int alpha = alpha(color);
+			pixels[i] = argb(alpha, r, g, b);
+		}
+	}
+
+	/**
+	 * Calculate the transformation of every pixel based on the original color
+	 * and apply it to the the destination color.
+	 * @param pixels The pixels to modify.
+	 * @param originalColor Tint color in the original pixels.
+	 * @param destinationColor Tint color to be applied.
+	 */
+	public static void changeTintColor(int[] pixels, int originalColor, int destinationColor) {
+		changeTintColor(pixels, 0, pixels.length, originalColor, destinationColor);
+	}
+
+	/** Same as changeTintColor(int[], int, int) for 'count' pixels starting at 'offset'. */
+	public static void changeTintColor(int[] pixels, int offset, int count, int originalColor, int destinationColor) {
+		// original tint color
+		int maxShift = getComponentShift(getMaxIndex(originalColor));
+		int minShift = getComponentShift(getMinIndex(originalColor));
+		float a = ((originalColor >> maxShift) & 0xFF) / 255f;
+		float aP = ((originalColor >> minShift) & 0xFF) / 255f;
+		// destination tint color
+		int dR = red(destinationColor);
+		int dG = green(destinationColor);
+		int dB = blue(destinationColor);
+
+		int end = offset + count;
+		for (int i=offset; i<end; i++) {
+			int color = pixels[i];
+			float b = ((color >> maxShift) & 0xFF) / 255f;
+			float bP = ((color >> minShift) & 0xFF) / 255f;
+
+			float t0 = (b-bP) / ((b*aP)+a-(bP*a)-aP);
+			float t1 = (bP-(aP*t0)) / (1f-(aP*t0));
+
+			pixels[i] = argb(
+					alpha(color),
+					(int)applyTransformation(dR, t0, t1),
+					(int)applyTransformation(dG, t0, t1),
+					(int)applyTransformation(dB, t0, t1));
+		}
+	}
+
+	/**
+	 * Replace every pixel by the transformation to make to get the same pixel
+	 * with a new tint color. The transformation values are stored in the red
+	 * and green values. The alpha value is kept and the blue value is set to 0.
+	 * @param pixels The pixels to modify.
+	 * @param tintColor Tint color in the original pixels.
+	 */
+	public static void createTintTransformationMap(int[] pixels, int tintColor) {
+		createTintTransformationMap(pixels, 0, pixels.length, tintColor);
+	}
+
+	/** Same as createTintTransformationMap(int[], int) for 'count' pixels starting at 'offset'. */
+	public static void createTintTransformationMap(int[] pixels, int offset, int count, int tintColor) {
+		// tint color
+		int maxShift = getComponentShift(getMaxIndex(tintColor));
+		int minShift = getComponentShift(getMinIndex(tintColor));
+		float a = ((tintColor >> maxShift) & 0xFF) / 255f;
+		float aP = ((tintColor >> minShift) & 0xFF) / 255f;
+
+		int end = offset + count;
+		for (int i=offset; i<end; i++) {
+			int color = pixels[i];
+			float b = ((color >> maxShift) & 0xFF) / 255f;
+			float bP = ((color >> minShift) & 0xFF) / 255f;
+
+			float t0 = (b-bP) / ((b*aP)+a-(bP*a)-aP);
+			float t1 = (bP-(aP*t0)) / (1f-(aP*t0));
+
+			pixels[i] = argb(alpha(color), (int)(t0*255), (int)(t1*255), 0);
+		}
+	}
+
+	/**
+	 * Apply the given tint color to the transformation map. This is the float 
+	 * reference for TintTransformationTable, which is the one used to generate 
+	 * the resources.
+	 * @param pixels The transformation map pixels, replaced by the result.
+	 * @param tintColor Tint color to be applied.
+	 */
+	public static void processTintTransformationMap(int[] pixels, int tintColor) {
+		// tint color
+		int tR = red(tintColor);
+		int tG = green(tintColor);
+		int tB = blue(tintColor);
+
+		for (int i=0; i<pixels.length; i++) {
+			int color = pixels[i];
+			float t0 = red(color) / 255f;
+			float t1 = green(color) / 255f;
+
+			pixels[i] = argb(
+					alpha(color),
+					(int)applyTransformation(tR, t0, t1),
+					(int)applyTransformation(tG, t0, t1),
+					(int)applyTransformation(tB, t0, t1));
+		}
+	}
+
+	/** @return The index (0: red, 1: green, 2: blue) of the highest component, the first one on ties. */
+	private static int getMaxIndex(int color) {
+		int result = 0;
+		int value = red(color);
+		if (value < green(color)) {
+			result = 1;
+			value = green(color);
+		}
+		if (value < blue(color))
+			result = 2;
+		return result;
+	}
+
+	/** @return The index (0: red, 1: green, 2: blue) of the lowest component, the first one on ties. */
+	private static int getMinIndex(int color) {
+		int result = 0;
+		int value = red(color);
+		if (value > green(color)) {
+			result = 1;
+			value = green(color);
+		}
+		if (value > blue(color))
+			result = 2;
+		return result;
+	}
+
+	/** @return The shift to apply to get the component with the given index. */
+	private static int getComponentShift(int index) {
+		return 16 - (index * 8);
+	}
+
+	/**
+	 * The operations are written the same way as they were when the transformation
+	 * was passed around in a float[], so the results don't change.
+	 */
+	private static float applyTransformation(int colorComponent, float t0, float t1) {
+		float firstStep = colorComponent*t0;
+		return firstStep + ((255-firstStep) * t1);
+	}
+
+	// Same as the android.graphics.Color methods
+
+	static int alpha(int color) {
+		return color >>> 24;
+	}
+
+	static int red(int color) {
+		return (color >> 16) & 0xFF;
+	}
+
+	static int green(int color) {
+		return (color >> 8) & 0xFF;
+	}
+
+	static int blue(int color) {
+		return color & 0xFF;
+	}
+
+	static int argb(int alpha, int red, int green, int blue) {
+		return (alpha << 24) | (red << 16) | (green << 8) | blue;
+	}
+
+}
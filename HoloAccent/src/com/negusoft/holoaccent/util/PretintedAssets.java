@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Layout of the tinted resources generated at build time by the "pretintResources"
+ * Gradle task. They are stored in the assets as:
+ * <br/><br/>
+ * holoaccent/pretint/&lt;color&gt;/&lt;density&gt;/&lt;resource name&gt;.png
+ * <br/><br/>
+ * where the color is the RGB value in hex and the density is the one of the bucket
+ * the original resource is taken from (e.g. 320 for drawable-xhdpi).
+ * <br/><br/>
+ * It doesn't depend on the Android classes, as it is shared with the build tool.
+ */
+public class PretintedAssets {
+
+	/** Directory in the assets containing a subdirectory for each color. */
+	public static final String ROOT = "holoaccent/pretint";
+
+	/** @return The name of the directory holding the resources for the given color. */
+	public static String getColorName(int color) {
+		return String.format("%06x", color & 0xFFFFFF);
+	}
+
+	/** @return The path of the resource relative to the assets directory. */
+	public static String getPath(String resourceName, int color, int density) {
+		return ROOT + "/" + getColorName(color) + "/" + density + "/" + resourceName + ".png";
+	}
+
+	/** Read the whole stream and close it. */
+	public static byte[] readFully(InputStream in) throws IOException {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(in.available(), 1024));
+			byte[] buffer = new byte[4096];
+			int count;
+			while ((count = in.read(buffer)) != -1)
+				out.write(buffer, 0, count);
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+}
@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.util;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory LRU cache holding the encoded result of tinting a drawable resource.
+ * The entries are identified by the resource id, the tint color and the screen
+ * density, and the cache is bounded by the total number of bytes stored.
+ * <br/><br/>
+ * When several threads request the same missing entry at the same time, only
+ * one of them runs the Loader and the rest wait for its result.
+ */
+public class TintCache {
+
+	/** Creates the data for an entry that is not in the cache. */
+	public interface Loader {
+		public byte[] load();
+	}
+
+	public static final int DEFAULT_MAX_SIZE_BYTES = 1024 * 1024;
+
+	private final LinkedHashMap<Key, byte[]> mEntries = new LinkedHashMap<Key, byte[]>(16, 0.75f, true);
+	private final Map<Key, Object> mLoadingLocks = new HashMap<Key, Object>();
+
+	private int mMaxSize;
+	private int mSize;
+
+	private int mHitCount;
+	private int mMissCount;
+	private int mEvictionCount;
+
+	public TintCache() {
+		this(DEFAULT_MAX_SIZE_BYTES);
+	}
+
+	/** @param maxSize The maximum number of bytes to keep in the cache. */
+	public TintCache(int maxSize) {
+		if (maxSize <= 0)
+			throw new IllegalArgumentException("maxSize <= 0");
+		mMaxSize = maxSize;
+	}
+
+	/**
+	 * Get the data for the given key, calling the loader if it is not in the cache.
+	 * @return The cached data or the one returned by the loader.
+	 */
+	public byte[] get(int resId, int color, int density, Loader loader) {
+		Key key = new Key(resId, color, density);
+		Object lock;
+		synchronized (this) {
+			byte[] result = mEntries.get(key);
+			if (result != null) {
+				mHitCount++;
+				return result;
+			}
+			lock = mLoadingLocks.get(key);
+			if (lock == null) {
+				lock = new Object();
+				mLoadingLocks.put(key, lock);
+			}
+		}
+
+		synchronized (lock) {
+			try {
+				// It might have been loaded while waiting for the lock
+				synchronized (this) {
+					byte[] result = mEntries.get(key);
+					if (result != null) {
+						mHitCount++;
+						return result;
+					}
+					mMissCount++;
+				}
+
+				byte[] result = loader.load();
+				if (result != null)
+					put(key, result);
+				return result;
+			}
+			finally {
+				synchronized (this) {
+					mLoadingLocks.remove(key);
+				}
+			}
+		}
+	}
+
+	private synchronized void put(Key key, byte[] data) {
+		// Entries bigger than the whole cache would evict everything else
+		if (data.length > mMaxSize)
+			return;
+
+		byte[] previous = mEntries.put(key, data);
+		mSize += data.length;
+		if (previous != null)
+			mSize -= previous.length;
+		trimToSize(mMaxSize);
+	}
+
+	private void trimToSize(int maxSize) {
+		Iterator<byte[]> it = mEntries.values().iterator();
+		while (mSize > maxSize && it.hasNext()) {
+			mSize -= it.next().length;
+			it.remove();
+			mEvictionCount++;
+		}
+	}
+
+	/** Change the maximum number of bytes, evicting entries if necessary. */
+	public synchronized void setMaxSize(int maxSize) {
+		if (maxSize <= 0)
+			throw new IllegalArgumentException("maxSize <= 0");
+		mMaxSize = maxSize;
+		trimToSize(maxSize);
+	}
+
+	/** Remove all the entries. */
+	public synchronized void evictAll() {
+		trimToSize(-1);
+	}
+
+	/** @return The number of bytes currently stored. */
+	public synchronized int size() {
+		return mSize;
+	}
+
+	/** @return The maximum number of bytes to be stored. */
+	public synchronized int maxSize() {
+		return mMaxSize;
+	}
+
+	/** @return The number of times the requested entry was found in the cache. */
+	public synchronized int hitCount() {
+		return mHitCount;
+	}
+
+	/** @return The number of times the loader had to be called. */
+	public synchronized int missCount() {
+		return mMissCount;
+	}
+
+	/** @return The number of entries removed to stay within the size limit. */
+	public synchronized int evictionCount() {
+		return mEvictionCount;
+	}
+
+	@Override
+	public synchronized String toString() {
+		int accesses = mHitCount + mMissCount;
+		int hitPercent = accesses != 0 ? (100 * mHitCount / accesses) : 0;
+		return String.format("TintCache[size=%d,maxSize=%d,hits=%d,misses=%d,evictions=%d,hitRate=%d%%]",
+				mSize, mMaxSize, mHitCount, mMissCount, mEvictionCount, hitPercent);
+	}
+
+	private static final class Key {
+		final int resId;
+		final int color;
+		final int density;
+
+		Key(int resId, int color, int density) {
+			this.resId = resId;
+			this.color = color;
+			this.density = density;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key))
+				return false;
+			Key other = (Key)o;
+			return resId == other.resId && color == other.color && density == other.density;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = resId;
+			result = 31 * result + color;
+			result = 31 * result + density;
+			return result;
+		}
+	}
+
+}
@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.util;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.util.Log;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent cache for the tinted resources, stored in the application's cache
+ * directory so the tinting work is not repeated on every launch.
+ * <br/><br/>
+ * Each entry is a file named after the resource id, the color and the density,
+ * inside a directory named after the application version. Resource ids may change
+ * between versions, so the directories of other versions are removed on creation.
+ * <br/><br/>
+ * The files are written to a temporary file and then renamed, and they start with
+ * a header containing the data length and checksum. Anything that doesn't match
+ * is deleted and reported as a miss, so the directory can be removed at any time.
+ */
+public class TintDiskCache {
+
+	private static final String TAG = "TintDiskCache";
+
+	private static final String DIRECTORY_NAME = "holoaccent_tint";
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	/** Increase when the file format or the tinting output changes. */
+	private static final int FORMAT_VERSION = 4;
+
+	private static final int MAGIC = 0x48415443; // "HATC"
+	private static final int HEADER_SIZE = 12; // magic, length, checksum
+
+	private final File mDirectory;
+
+	/**
+	 * Create an instance in the application's cache directory, using the package
+	 * version and update time as the version stamp.
+	 * @return The cache instance or null if the directory is not available.
+	 */
+	public static TintDiskCache open(Context c) {
+		File cacheDir = c.getCacheDir();
+		if (cacheDir == null)
+			return null;
+		File root = new File(cacheDir, DIRECTORY_NAME);
+		return open(root, getVersionStamp(c));
+	}
+
+	/**
+	 * Create an instance in a subdirectory of 'root' named after the version stamp.
+	 * @return The cache instance or null if the directory could not be created.
+	 */
+	public static TintDiskCache open(File root, String versionStamp) {
+		deleteOtherVersions(root, versionStamp);
+		File directory = new File(root, versionStamp);
+		if (!directory.isDirectory() && !directory.mkdirs())
+			return null;
+		deleteTempFiles(directory);
+		return new TintDiskCache(directory);
+	}
+
+	private static String getVersionStamp(Context c) {
+		String stamp = "v" + FORMAT_VERSION;
+		try {
+			PackageInfo info = c.getPackageManager().getPackageInfo(c.getPackageName(), 0);
+			stamp += "_" + info.versionCode + "_" + info.lastUpdateTime;
+		} catch (PackageManager.NameNotFoundException e) {
+			// Keep the stamp with the format version only
+		}
+		return stamp;
+	}
+
+	private static void deleteOtherVersions(File root, String versionStamp) {
+		File[] versions = root.listFiles();
+		if (versions == null)
+			return;
+		for (File version : versions) {
+			if (!version.getName().equals(versionStamp))
+				deleteRecursive(version);
+		}
+	}
+
+	/** Remove the leftovers of writes that were interrupted. */
+	private static void deleteTempFiles(File directory) {
+		File[] files = directory.listFiles();
+		if (files == null)
+			return;
+		for (File file : files) {
+			if (file.getName().endsWith(TEMP_SUFFIX))
+				file.delete();
+		}
+	}
+
+	private static void deleteRecursive(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children)
+				deleteRecursive(child);
+		}
+		file.delete();
+	}
+
+	private TintDiskCache(File directory) {
+		mDirectory = directory;
+	}
+
+	/** @return The directory holding the entries. */
+	public File getDirectory() {
+		return mDirectory;
+	}
+
+	/**
+	 * Read the entry by mapping the file into memory.
+	 * @return The stored data or null if missing or not valid.
+	 */
+	public byte[] get(int resId, int color, int density) {
+		File file = getFile(resId, color, density);
+		if (!file.isFile())
+			return null;
+
+		RandomAccessFile raf = null;
+		try {
+			raf = new RandomAccessFile(file, "r");
+			FileChannel channel = raf.getChannel();
+			long fileSize = channel.size();
+			if (fileSize < HEADER_SIZE || fileSize > Integer.MAX_VALUE)
+				throw new IOException("Invalid file size: " + fileSize);
+
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+			if (buffer.getInt() != MAGIC)
+				throw new IOException("Invalid header");
+			int length = buffer.getInt();
+			int checksum = buffer.getInt();
+			if (length != fileSize - HEADER_SIZE)
+				throw new IOException("Truncated entry");
+
+			byte[] result = new byte[length];
+			buffer.get(result);
+			if (checksum != computeChecksum(result))
+				throw new IOException("Checksum mismatch");
+			return result;
+		} catch (IOException e) {
+			Log.w(TAG, "Discarding cache entry " + file.getName(), e);
+			file.delete();
+			return null;
+		} finally {
+			closeQuietly(raf);
+		}
+	}
+
+	/**
+	 * Store the entry. Errors are ignored, as the entry can always be generated again.
+	 */
+	public void put(int resId, int color, int density, byte[] data) {
+		File file = getFile(resId, color, density);
+		File temp = new File(mDirectory, file.getName() + "." + Thread.currentThread().getId() + TEMP_SUFFIX);
+
+		FileOutputStream out = null;
+		try {
+			// The directory might have been deleted along with the rest of the cache
+			if (!mDirectory.isDirectory() && !mDirectory.mkdirs())
+				return;
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC);
+			header.putInt(data.length);
+			header.putInt(computeChecksum(data));
+
+			out = new FileOutputStream(temp);
+			out.write(header.array());
+			out.write(data);
+			out.getFD().sync();
+			out.close();
+			out = null;
+
+			if (!temp.renameTo(file))
+				throw new IOException("Unable to rename " + temp.getName());
+		} catch (IOException e) {
+			Log.w(TAG, "Unable to write cache entry " + file.getName(), e);
+		} finally {
+			closeQuietly(out);
+			temp.delete();
+		}
+	}
+
+	/** Remove all the entries. */
+	public void clear() {
+		File[] files = mDirectory.listFiles();
+		if (files == null)
+			return;
+		for (File file : files)
+			file.delete();
+	}
+
+	private File getFile(int resId, int color, int density) {
+		String name = String.format("%08x_%08x_%d", resId, color, density);
+		return new File(mDirectory, name);
+	}
+
+	private static int computeChecksum(byte[] data) {
+		CRC32 crc = new CRC32();
+		crc.update(data, 0, data.length);
+		return (int)crc.getValue();
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		if (closeable == null)
+			return;
+		try {
+			closeable.close();
+		} catch (IOException e) { /* ignore */ }
+	}
+
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.util;
+
+/**
+ * Applies the tint kernels to a PixelBuffer, in place. It doesn't depend on the
+ * Android classes, so it can be run and measured on a plain JVM.
+ * <br/><br/>
+ * Every method takes an optional PixelTiles to process large buffers in parallel.
+ * When null, the buffer is processed on the calling thread. The kernels are also
+ * available on their own, to be applied to other pixel storage.
+ */
+public class TintKernels {
+
+	/** See PixelUtils.applyColor(). */
+	public static void applyColor(PixelBuffer buffer, int accentColor, PixelTiles pixelTiles) {
+		run(buffer, pixelTiles, applyColorKernel(accentColor));
+	}
+
+	/** See PixelUtils.changeTintColor(). */
+	public static void changeTintColor(PixelBuffer buffer, int originalColor, int destinationColor,
+			PixelTiles pixelTiles) {
+		run(buffer, pixelTiles, changeTintColorKernel(originalColor, destinationColor));
+	}
+
+	/** See PixelUtils.createTintTransformationMap(). */
+	public static void createTintTransformationMap(PixelBuffer buffer, int tintColor, PixelTiles pixelTiles) {
+		run(buffer, pixelTiles, createTintTransformationMapKernel(tintColor));
+	}
+
+	/** Apply the tint color to the transformation map using TintTransformationTable. */
+	public static void processTintTransformationMap(PixelBuffer buffer, int tintColor, PixelTiles pixelTiles) {
+		run(buffer, pixelTiles, processTintTransformationMapKernel(tintColor));
+	}
+
+	public static PixelTiles.Kernel applyColorKernel(final int accentColor) {
+		return new PixelTiles.Kernel() {
+			@Override
+			public void apply(int[] pixels, int offset, int count) {
+				PixelUtils.applyColor(pixels, offset, count, accentColor);
+			}
+		};
+	}
+
+	public static PixelTiles.Kernel changeTintColorKernel(final int originalColor, final int destinationColor) {
+		return new PixelTiles.Kernel() {
+			@Override
+			public void apply(int[] pixels, int offset, int count) {
+				PixelUtils.changeTintColor(pixels, offset, count, originalColor, destinationColor);
+			}
+		};
+	}
+
+	public static PixelTiles.Kernel createTintTransformationMapKernel(final int tintColor) {
+		return new PixelTiles.Kernel() {
+			@Override
+			public void apply(int[] pixels, int offset, int count) {
+				PixelUtils.createTintTransformationMap(pixels, offset, count, tintColor);
+			}
+		};
+	}
+
+	public static PixelTiles.Kernel processTintTransformationMapKernel(int tintColor) {
+		final TintTransformationTable table = TintTransformationTable.forColor(tintColor);
+		return new PixelTiles.Kernel() {
+			@Override
+			public void apply(int[] pixels, int offset, int count) {
+				table.apply(pixels, offset, count);
+			}
+		};
+	}
+
+	/**
+	 * Apply any kernel to the buffer, for example one restricted to the AlphaSpans of 
+	 * the image.
+	 */
+	public static void apply(PixelBuffer buffer, PixelTiles.Kernel kernel, PixelTiles pixelTiles) {
+		run(buffer, pixelTiles, kernel);
+	}
+
+	private static void run(PixelBuffer buffer, PixelTiles pixelTiles, PixelTiles.Kernel kernel) {
+		int[] pixels = buffer.getPixels();
+		if (pixelTiles == null)
+			kernel.apply(pixels, 0, pixels.length);
+		else
+			pixelTiles.run(pixels, buffer.getWidth(), kernel);
+	}
+
+}
@@ -0,0 +1,281 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+
+/**
+ * Writes ARGB pixels as a PNG file without compressing them. The image data is
+ * stored in "stored" deflate blocks and every row uses the "None" filter, so
+ * encoding is basically a copy, and decoding doesn't need to inflate anything.
+ * <br/><br/>
+ * It is meant for data that is decoded right away, like the tinted resources
+ * returned by AccentResources.openRawResource(), where Bitmap.compress() would
+ * spend most of the time compressing data that is about to be decompressed.
+ * <br/><br/>
+ * Images made of a single color with different alpha values (like the ones
+ * created by PixelUtils.applyColor()) can be stored as an alpha mask instead:
+ * an indexed PNG holding one byte per pixel, whose palette sets the color. The
+ * mask doesn't depend on the color, and openAlphaMask() returns it with the
+ * palette for the requested one.
+ * <br/><br/>
+ * It doesn't depend on the Android classes, so it can be measured on a plain JVM.
+ */
+public class UncompressedPngEncoder {
+
+	private static final byte[] SIGNATURE = new byte[] {
+		(byte)0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+
+	private static final int CHUNK_OVERHEAD = 12; // length, type and crc
+	private static final int IHDR_LENGTH = 13;
+	private static final int MAX_STORED_BLOCK = 0xFFFF;
+	private static final int STORED_BLOCK_HEADER = 5;
+	private static final int ZLIB_OVERHEAD = 6; // header and adler32
+
+	private static final int BIT_DEPTH = 8;
+	private static final int COLOR_TYPE_INDEXED = 3;
+	private static final int COLOR_TYPE_RGBA = 6;
+	private static final int FILTER_NONE = 0;
+
+	private static final int PALETTE_SIZE = 256;
+	private static final int PLTE_LENGTH = PALETTE_SIZE * 3;
+	/** The palette is always the first chunk after the header in the alpha masks. */
+	private static final int PLTE_OFFSET = SIGNATURE.length + CHUNK_OVERHEAD + IHDR_LENGTH;
+	private static final int PLTE_END = PLTE_OFFSET + CHUNK_OVERHEAD + PLTE_LENGTH;
+
+	/** The number of pixels read at a time from PixelRows. */
+	static final int BAND_PIXELS = 16 * 1024;
+
+	/** Encode the pixels of the given buffer. */
+	public static byte[] encode(PixelBuffer buffer) {
+		return encode(buffer.getPixels(), buffer.getWidth(), buffer.getHeight());
+	}
+
+	/**
+	 * Encode the given pixels.
+	 * @param pixels Non premultiplied ARGB colors, as returned by Bitmap.getPixels().
+	 */
+	public static byte[] encode(int[] pixels, int width, int height) {
+		return encode(pixels, null, width, height, false);
+	}
+
+	/**
+	 * Encode the alpha values of the given pixels, ignoring their color. The result
+	 * is a valid PNG (black with the given alpha), but it is meant to be read with
+	 * openAlphaMask().
+	 * @param pixels Non premultiplied ARGB colors, as returned by Bitmap.getPixels().
+	 */
+	public static byte[] encodeAlphaMask(int[] pixels, int width, int height) {
+		return encode(pixels, null, width, height, true);
+	}
+
+	/**
+	 * Encode the given rows, reading a band of them at a time. Only the band and
+	 * the result are allocated, not a copy of every pixel.
+	 */
+	public static byte[] encode(PixelRows rows) {
+		return encode(null, rows, rows.getWidth(), rows.getHeight(), false);
+	}
+
+	/** Same as encodeAlphaMask(int[], int, int), reading a band of rows at a time. */
+	public static byte[] encodeAlphaMask(PixelRows rows) {
+		return encode(null, rows, rows.getWidth(), rows.getHeight(), true);
+	}
+
+	/**
+	 * Get the PNG data of an alpha mask with every pixel set to the given color.
+	 * The mask data is not copied, only the palette is generated.
+	 * @param mask The result of encodeAlphaMask().
+	 * @param color The color to apply. Its alpha value is ignored.
+	 */
+	public static InputStream openAlphaMask(byte[] mask, int color) {
+		byte[] palette = new byte[CHUNK_OVERHEAD + PLTE_LENGTH];
+		writePaletteChunk(palette, 0, color);
+		return new SequenceInputStream(
+				new ByteArrayInputStream(mask, 0, PLTE_OFFSET),
+				new SequenceInputStream(
+						new ByteArrayInputStream(palette),
+						new ByteArrayInputStream(mask, PLTE_END, mask.length - PLTE_END)));
+	}
+
+	/**
+	 * Encode either the pixels of the whole image, or the rows read into a band
+	 * if 'rows' is not null.
+	 */
+	private static byte[] encode(int[] pixels, PixelRows rows, int width, int height, boolean alphaMask) {
+		int rowLength = 1 + (width * (alphaMask ? 1 : 4));
+		int rawLength = rowLength * height;
+		int blockCount = Math.max(1, (rawLength + MAX_STORED_BLOCK - 1) / MAX_STORED_BLOCK);
+		int idatLength = ZLIB_OVERHEAD + (blockCount * STORED_BLOCK_HEADER) + rawLength;
+		int paletteLength = alphaMask ? (CHUNK_OVERHEAD + PLTE_LENGTH + CHUNK_OVERHEAD + PALETTE_SIZE) : 0;
+
+		byte[] out = new byte[SIGNATURE.length
+				+ CHUNK_OVERHEAD + IHDR_LENGTH
+				+ paletteLength
+				+ CHUNK_OVERHEAD + idatLength
+				+ CHUNK_OVERHEAD];
+		int pos = 0;
+
+		System.arraycopy(SIGNATURE, 0, out, 0, SIGNATURE.length);
+		pos += SIGNATURE.length;
+
+		// Header
+		int chunkStart = pos;
+		pos = writeChunkStart(out, pos, IHDR_LENGTH, 'I', 'H', 'D', 'R');
+		pos = writeInt(out, pos, width);
+		pos = writeInt(out, pos, height);
+		out[pos++] = BIT_DEPTH;
+		out[pos++] = (byte)(alphaMask ? COLOR_TYPE_INDEXED : COLOR_TYPE_RGBA);
+		out[pos++] = 0; // compression method
+		out[pos++] = 0; // filter method
+		out[pos++] = 0; // interlace method
+		pos = writeChunkCrc(out, chunkStart, pos);
+
+		// Palette: the index of each pixel is its alpha value
+		if (alphaMask) {
+			pos = writePaletteChunk(out, pos, 0);
+			chunkStart = pos;
+			pos = writeChunkStart(out, pos, PALETTE_SIZE, 't', 'R', 'N', 'S');
+			for (int i = 0; i < PALETTE_SIZE; i++)
+				out[pos++] = (byte)i;
+			pos = writeChunkCrc(out, chunkStart, pos);
+		}
+
+		// Image data as a zlib stream made of stored blocks
+		chunkStart = pos;
+		pos = writeChunkStart(out, pos, idatLength, 'I', 'D', 'A', 'T');
+		out[pos++] = 0x78; // deflate, 32K window
+		out[pos++] = 0x01; // no preset dictionary, lowest level, valid check bits
+		Adler32 adler = new Adler32();
+		byte[] row = new byte[rowLength];
+		int bandRows = height;
+		if (rows != null) {
+			bandRows = Math.max(1, Math.min(height, BAND_PIXELS / Math.max(1, width)));
+			pixels = new int[bandRows * width];
+		}
+		int blockRemaining = 0;
+		int rawRemaining = rawLength;
+		for (int y = 0; y < height; y++) {
+			int bandRow = y % bandRows;
+			if (rows != null && bandRow == 0)
+				rows.readRows(pixels, y, Math.min(bandRows, height - y));
+			if (alphaMask)
+				fillAlphaRow(row, pixels, bandRow * width, width);
+			else
+				fillRow(row, pixels, bandRow * width, width);
+			adler.update(row, 0, rowLength);
+
+			// Copy the row, starting a new stored block whenever the current one is full
+			int rowOffset = 0;
+			while (rowOffset < rowLength) {
+				if (blockRemaining == 0) {
+					blockRemaining = Math.min(rawRemaining, MAX_STORED_BLOCK);
+					rawRemaining -= blockRemaining;
+					pos = writeStoredBlockHeader(out, pos, blockRemaining, rawRemaining == 0);
+				}
+				int count = Math.min(blockRemaining, rowLength - rowOffset);
+				System.arraycopy(row, rowOffset, out, pos, count);
+				pos += count;
+				rowOffset += count;
+				blockRemaining -= count;
+			}
+		}
+		if (rawLength == 0)
+			pos = writeStoredBlockHeader(out, pos, 0, true);
+		pos = writeInt(out, pos, (int)adler.getValue());
+		pos = writeChunkCrc(out, chunkStart, pos);
+
+		// End
+		chunkStart = pos;
+		pos = writeChunkStart(out, pos, 0, 'I', 'E', 'N', 'D');
+		writeChunkCrc(out, chunkStart, pos);
+
+		return out;
+	}
+
+	/** Write a palette chunk with every entry set to the given color. */
+	private static int writePaletteChunk(byte[] out, int pos, int color) {
+		int chunkStart = pos;
+		pos = writeChunkStart(out, pos, PLTE_LENGTH, 'P', 'L', 'T', 'E');
+		byte r = (byte)(color >> 16);
+		byte g = (byte)(color >> 8);
+		byte b = (byte)color;
+		for (int i = 0; i < PALETTE_SIZE; i++) {
+			out[pos++] = r;
+			out[pos++] = g;
+			out[pos++] = b;
+		}
+		return writeChunkCrc(out, chunkStart, pos);
+	}
+
+	/** Fill the row with the filter type followed by the alpha value of each pixel. */
+	private static void fillAlphaRow(byte[] row, int[] pixels, int offset, int width) {
+		row[0] = FILTER_NONE;
+		for (int x = 0; x < width; x++)
+			row[x + 1] = (byte)(pixels[offset + x] >>> 24);
+	}
+
+	/** Fill the row with the filter type followed by the RGBA bytes of each pixel. */
+	private static void fillRow(byte[] row, int[] pixels, int offset, int width) {
+		row[0] = FILTER_NONE;
+		int pos = 1;
+		for (int x = 0; x < width; x++) {
+			int color = pixels[offset + x];
+			row[pos++] = (byte)(color >> 16);
+			row[pos++] = (byte)(color >> 8);
+			row[pos++] = (byte)color;
+			row[pos++] = (byte)(color >>> 24);
+		}
+	}
+
+	private static int writeStoredBlockHeader(byte[] out, int pos, int length, boolean last) {
+		out[pos++] = (byte)(last ? 1 : 0); // final flag, stored type
+		out[pos++] = (byte)length;
+		out[pos++] = (byte)(length >> 8);
+		out[pos++] = (byte)~length;
+		out[pos++] = (byte)(~length >> 8);
+		return pos;
+	}
+
+	private static int writeChunkStart(byte[] out, int pos, int length, char t0, char t1, char t2, char t3) {
+		pos = writeInt(out, pos, length);
+		out[pos++] = (byte)t0;
+		out[pos++] = (byte)t1;
+		out[pos++] = (byte)t2;
+		out[pos++] = (byte)t3;
+		return pos;
+	}
+
+	/** Write the CRC of the chunk type and data, that start after the length field. */
+	private static int writeChunkCrc(byte[] out, int chunkStart, int pos) {
+		CRC32 crc = new CRC32();
+		crc.update(out, chunkStart + 4, pos - chunkStart - 4);
+		return writeInt(out, pos, (int)crc.getValue());
+	}
+
+	private static int writeInt(byte[] out, int pos, int value) {
+		out[pos++] = (byte)(value >>> 24);
+		out[pos++] = (byte)(value >>> 16);
+		out[pos++] = (byte)(value >>> 8);
+		out[pos++] = (byte)value;
+		return pos;
+	}
+
+}
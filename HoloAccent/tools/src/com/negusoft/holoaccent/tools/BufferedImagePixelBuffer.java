@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.tools;
+
+import java.awt.image.BufferedImage;
+
+import com.negusoft.holoaccent.util.ArrayPixelBuffer;
+
+/**
+ * A PixelBuffer holding a copy of the pixels of a BufferedImage. Call toImage() to
+ * create an image with the result once the kernels are applied.
+ */
+public class BufferedImagePixelBuffer extends ArrayPixelBuffer {
+
+	public BufferedImagePixelBuffer(BufferedImage image) {
+		super(image.getWidth(), image.getHeight());
+		int width = getWidth();
+		image.getRGB(0, 0, width, getHeight(), getPixels(), 0, width);
+	}
+
+	/** @return A new TYPE_INT_ARGB image with the current pixels. */
+	public BufferedImage toImage() {
+		int width = getWidth();
+		BufferedImage result = new BufferedImage(width, getHeight(), BufferedImage.TYPE_INT_ARGB);
+		result.setRGB(0, 0, width, getHeight(), getPixels(), 0, width);
+		return result;
+	}
+
+}
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.tools;
+
+import java.awt.image.BufferedImage;
+
+import com.negusoft.holoaccent.util.PixelRows;
+
+/** The PixelRows of a BufferedImage, read with getRGB() as they are needed. */
+public class BufferedImagePixelRows implements PixelRows {
+
+	private final BufferedImage mImage;
+
+	public BufferedImagePixelRows(BufferedImage image) {
+		mImage = image;
+	}
+
+	@Override
+	public int getWidth() {
+		return mImage.getWidth();
+	}
+
+	@Override
+	public int getHeight() {
+		return mImage.getHeight();
+	}
+
+	@Override
+	public void readRows(int[] pixels, int firstRow, int rowCount) {
+		int width = mImage.getWidth();
+		mImage.getRGB(0, firstRow, width, rowCount, pixels, 0, width);
+	}
+
+}
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.tools;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import com.negusoft.holoaccent.util.PretintedAssets;
+import com.negusoft.holoaccent.util.TintKernels;
+
+/**
+ * Generates the tinted resources for a set of accent colors at build time, so
+ * AccentResources can load them from the assets instead of tinting them on the
+ * device. It runs on a plain JVM and uses the same pixel code as the library.
+ * <br/><br/>
+ * Usage: PretintTool &lt;res dir&gt; &lt;output assets dir&gt; &lt;colors&gt;
+ * <br/>
+ * The colors are a comma separated list of RGB values in hex (e.g. "33b5e5,ff8800").
+ * The resources are written following the layout defined in PretintedAssets.
+ * <br/><br/>
+ * Only the transformation maps are generated. The resources with a single color
+ * are stored as alpha masks shared by every color, so there is nothing to gain.
+ */
+public class PretintTool {
+
+	/** Same as AccentResources.TINT_TRANSFORMATION_DRAWABLE_IDS. */
+	private static final String[] TINT_TRANSFORMATION_DRAWABLE_NAMES = new String[] {
+		"ha__text_select_handle_middle_transformation",
+		"ha__text_select_handle_left_transformation",
+		"ha__text_select_handle_right_transformation",
+		"ha__btn_check_on_transformation",
+		"ha__btn_check_on_transformation_light",
+		"ha__btn_radio_comp_dot_transformation"
+	};
+
+	/** Density of the resources in each bucket, as reported by Resources.getValue(). */
+	private static final Map<String, Integer> DENSITIES = new HashMap<String, Integer>();
+	static {
+		DENSITIES.put("drawable-ldpi", 120);
+		DENSITIES.put("drawable-mdpi", 160);
+		DENSITIES.put("drawable-tvdpi", 213);
+		DENSITIES.put("drawable-hdpi", 240);
+		DENSITIES.put("drawable-xhdpi", 320);
+		DENSITIES.put("drawable-xxhdpi", 480);
+		DENSITIES.put("drawable-xxxhdpi", 640);
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 3) {
+			System.err.println("Usage: PretintTool <res dir> <output assets dir> <colors>");
+			System.exit(1);
+		}
+		File resDir = new File(args[0]);
+		File outputDir = new File(args[1]);
+		int[] colors = parseColors(args[2]);
+
+		int count = 0;
+		for (Map.Entry<String, Integer> bucket : DENSITIES.entrySet()) {
+			File drawableDir = new File(resDir, bucket.getKey());
+			if (!drawableDir.isDirectory())
+				continue;
+			int density = bucket.getValue();
+			for (int color : colors) {
+				for (String name : TINT_TRANSFORMATION_DRAWABLE_NAMES)
+					count += generate(drawableDir, outputDir, name, color, density);
+			}
+		}
+		System.out.println("Generated " + count + " tinted resources in " + outputDir);
+	}
+
+	private static int[] parseColors(String list) {
+		String[] values = list.split(",");
+		int[] result = new int[values.length];
+		for (int i=0; i<values.length; i++) {
+			String value = values[i].trim();
+			if (value.startsWith("#"))
+				value = value.substring(1);
+			if (value.length() != 6)
+				throw new IllegalArgumentException("Expected a RGB color like 33b5e5: " + values[i]);
+			result[i] = 0xFF000000 | Integer.parseInt(value, 16);
+		}
+		return result;
+	}
+
+	/** @return 1 if the resource was generated or 0 if it doesn't exist for this density. */
+	private static int generate(File drawableDir, File outputDir, String name, int color, int density)
+			throws IOException {
+		File source = new File(drawableDir, name + ".png");
+		if (!source.isFile())
+			return 0;
+
+		BufferedImagePixelBuffer buffer = new BufferedImagePixelBuffer(ImageIO.read(source));
+		TintKernels.processTintTransformationMap(buffer, color, null);
+		BufferedImage result = buffer.toImage();
+
+		File output = new File(outputDir, PretintedAssets.getPath(name, color, density));
+		output.getParentFile().mkdirs();
+		if (!ImageIO.write(result, "png", output))
+			throw new IOException("No PNG writer available");
+		return 1;
+	}
+
+}
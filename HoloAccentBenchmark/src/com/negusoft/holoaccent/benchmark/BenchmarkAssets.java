@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.imageio.ImageIO;
+
+/** Reads the resources bundled with the library, from the directory in "holoaccent.res". */
+final class BenchmarkAssets {
+
+	/** The color the bundled resources are tinted with (holo blue). */
+	static final int ORIGINAL_COLOR = 0xFF33B5E5;
+	/** The color applied by the benchmarks. */
+	static final int TINT_COLOR = 0xFFFF8800;
+
+	private BenchmarkAssets() { }
+
+	static File getFile(String name, String density) {
+		File resDir = new File(System.getProperty("holoaccent.res", "../HoloAccent/res"));
+		File file = new File(resDir, "drawable-" + density + "/" + name + ".png");
+		if (!file.isFile())
+			throw new IllegalArgumentException("Resource not found: " + file);
+		return file;
+	}
+
+	static BufferedImage readImage(String name, String density) throws IOException {
+		ImageIO.setUseCache(false);
+		return ImageIO.read(getFile(name, density));
+	}
+
+	static byte[] readBytes(String name, String density) throws IOException {
+		File file = getFile(name, density);
+		byte[] result = new byte[(int)file.length()];
+		InputStream in = new FileInputStream(file);
+		try {
+			int offset = 0;
+			while (offset < result.length) {
+				int read = in.read(result, offset, result.length - offset);
+				if (read < 0)
+					throw new IOException("Unexpected end of file: " + file);
+				offset += read;
+			}
+		} finally {
+			in.close();
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.negusoft.holoaccent.tools.BufferedImagePixelBuffer;
+import com.negusoft.holoaccent.tools.BufferedImagePixelRows;
+import com.negusoft.holoaccent.util.AlphaSpans;
+import com.negusoft.holoaccent.util.PixelRows;
+import com.negusoft.holoaccent.util.TintKernels;
+import com.negusoft.holoaccent.util.UncompressedPngEncoder;
+
+/**
+ * Measures what AccentResources.openRawResource() does, on the same path it takes
+ * for each kind of resource. The solid tint ones are decoded once to encode their
+ * alpha mask, which is what the cache keeps, and every color is then applied by
+ * openAlphaMask(). The transformation maps are decoded, tinted and encoded for
+ * every color, a band of rows at a time and only the spans that are not
+ * transparent, which are computed once for the resource as the library caches
+ * them. The decoding uses ImageIO instead of BitmapFactory, so compare the
+ * results between runs rather than with the numbers measured on a device.
+ * <br/><br/>
+ * decodeTintEncode() is a cache miss and openCached() a hit for another view with
+ * the same color. The encoding is compared with the PNG compression done by
+ * Bitmap.compress() before UncompressedPngEncoder, here with the ImageIO encoder,
+ * tinting every pixel as it was done then. The framework decodes the result once
+ * more, so that is measured for both outputs as well, and for the original that
+ * is decoded instead in the color filter mode.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OpenRawResourceBenchmark {
+
+	@Param({ "mdpi", "hdpi", "xhdpi", "xxhdpi" })
+	public String density;
+
+	@Param({ "ha__btn_check_comp_on_focus", "ha__progress_comp_primary", "ha__btn_check_on_transformation" })
+	public String asset;
+
+	private byte[] mPng;
+	private boolean mTransformation;
+	private AlphaSpans mSpans;
+
+	/** What the cache keeps: the alpha mask or the tinted transformation map. */
+	private byte[] mCached;
+	/** The data returned to the framework by both paths, to measure decoding them. */
+	private byte[] mEncoded;
+	private byte[] mCompressed;
+
+	private final byte[] mReadBuffer = new byte[16 * 1024];
+
+	@Setup
+	public void setup() throws IOException {
+		ImageIO.setUseCache(false);
+		mPng = BenchmarkAssets.readBytes(asset, density);
+		mTransformation = asset.endsWith("_transformation");
+		if (mTransformation)
+			mSpans = AlphaSpans.compute(new BufferedImagePixelRows(decodeImage()));
+		mCached = encode();
+		mEncoded = readAll(open(mCached));
+		mCompressed = decodeTintCompress();
+	}
+
+	private BufferedImage decodeImage() throws IOException {
+		return ImageIO.read(new ByteArrayInputStream(mPng));
+	}
+
+	private BufferedImagePixelBuffer decode() throws IOException {
+		return new BufferedImagePixelBuffer(decodeImage());
+	}
+
+	/** Decode the resource and encode the data the cache keeps for it. */
+	private byte[] encode() throws IOException {
+		PixelRows rows = new BufferedImagePixelRows(decodeImage());
+		if (!mTransformation)
+			return UncompressedPngEncoder.encodeAlphaMask(rows);
+		return UncompressedPngEncoder.encode(mSpans.restrict(rows,
+				TintKernels.processTintTransformationMapKernel(BenchmarkAssets.TINT_COLOR)));
+	}
+
+	/** Open the cached data as the stream returned to the framework. */
+	private InputStream open(byte[] cached) {
+		if (!mTransformation)
+			return UncompressedPngEncoder.openAlphaMask(cached, BenchmarkAssets.TINT_COLOR);
+		return new ByteArrayInputStream(cached);
+	}
+
+	/** Read the stream to the end, as the framework does. */
+	private int drain(InputStream in) throws IOException {
+		int result = 0;
+		int read;
+		while ((read = in.read(mReadBuffer)) >= 0)
+			result += read;
+		return result;
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[16 * 1024];
+		int read;
+		while ((read = in.read(buffer)) >= 0)
+			out.write(buffer, 0, read);
+		return out.toByteArray();
+	}
+
+	/** A cache miss: decode, encode the alpha mask or tinted map, and open it. */
+	@Benchmark
+	public int decodeTintEncode() throws IOException {
+		return drain(open(encode()));
+	}
+
+	/** A cache hit: open the cached data for the color. */
+	@Benchmark
+	public int openCached() throws IOException {
+		return drain(open(mCached));
+	}
+
+	/** The previous path, tinting every pixel and compressing the result as Bitmap.compress(PNG) does. */
+	@Benchmark
+	public byte[] decodeTintCompress() throws IOException {
+		BufferedImagePixelBuffer buffer = decode();
+		if (mTransformation)
+			TintKernels.processTintTransformationMap(buffer, BenchmarkAssets.TINT_COLOR, null);
+		else
+			TintKernels.applyColor(buffer, BenchmarkAssets.TINT_COLOR, null);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(buffer.toImage(), "png", out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * The color filter mode of AccentResources: the original is decoded, once for
+	 * every color, and the filter is applied when drawing.
+	 */
+	@Benchmark
+	public BufferedImage decodeOriginal() throws IOException {
+		return decodeImage();
+	}
+
+	@Benchmark
+	public BufferedImage decodeEncoded() throws IOException {
+		return ImageIO.read(new ByteArrayInputStream(mEncoded));
+	}
+
+	@Benchmark
+	public BufferedImage decodeCompressed() throws IOException {
+		return ImageIO.read(new ByteArrayInputStream(mCompressed));
+	}
+
+}
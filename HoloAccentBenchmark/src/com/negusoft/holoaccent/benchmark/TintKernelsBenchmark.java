@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.negusoft.holoaccent.tools.BufferedImagePixelBuffer;
+import com.negusoft.holoaccent.util.ArrayPixelBuffer;
+import com.negusoft.holoaccent.util.TintKernels;
+
+/**
+ * Measures the tint kernels alone, on the bundled resources for every density.
+ * Each invocation copies the original pixels into a preallocated buffer before
+ * applying the kernel, so the kernels should show no allocations with "-prof gc".
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TintKernelsBenchmark {
+
+	@Param({ "mdpi", "hdpi", "xhdpi", "xxhdpi" })
+	public String density;
+
+	@Param({ "ha__btn_check_comp_on_focus", "ha__progress_comp_primary", "ha__btn_check_on_transformation" })
+	public String asset;
+
+	private int[] mOriginal;
+	private ArrayPixelBuffer mBuffer;
+
+	@Setup
+	public void setup() throws IOException {
+		BufferedImage image = BenchmarkAssets.readImage(asset, density);
+		mOriginal = new BufferedImagePixelBuffer(image).getPixels();
+		mBuffer = new ArrayPixelBuffer(image.getWidth(), image.getHeight());
+	}
+
+	private ArrayPixelBuffer reset() {
+		System.arraycopy(mOriginal, 0, mBuffer.getPixels(), 0, mOriginal.length);
+		return mBuffer;
+	}
+
+	@Benchmark
+	public int[] applyColor() {
+		ArrayPixelBuffer buffer = reset();
+		TintKernels.applyColor(buffer, BenchmarkAssets.TINT_COLOR, null);
+		return buffer.getPixels();
+	}
+
+	@Benchmark
+	public int[] changeTintColor() {
+		ArrayPixelBuffer buffer = reset();
+		TintKernels.changeTintColor(buffer, BenchmarkAssets.ORIGINAL_COLOR, BenchmarkAssets.TINT_COLOR, null);
+		return buffer.getPixels();
+	}
+
+	@Benchmark
+	public int[] createTintTransformationMap() {
+		ArrayPixelBuffer buffer = reset();
+		TintKernels.createTintTransformationMap(buffer, BenchmarkAssets.ORIGINAL_COLOR, null);
+		return buffer.getPixels();
+	}
+
+	@Benchmark
+	public int[] processTintTransformationMap() {
+		ArrayPixelBuffer buffer = reset();
+		TintKernels.processTintTransformationMap(buffer, BenchmarkAssets.TINT_COLOR, null);
+		return buffer.getPixels();
+	}
+
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.negusoft.holoaccent.tools.BufferedImagePixelBuffer;
+import com.negusoft.holoaccent.util.PixelUtils;
+import com.negusoft.holoaccent.util.TintTransformationTable;
+
+/**
+ * Compares the float version of processTintTransformationMap with the lookup
+ * tables of TintTransformationTable, on the bundled transformation maps. The
+ * table is obtained on every invocation, as the tint kernels do.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TintTransformationTableBenchmark {
+
+	@Param({ "mdpi", "xxhdpi" })
+	public String density;
+
+	@Param({ "ha__btn_check_on_transformation", "ha__text_select_handle_middle_transformation" })
+	public String asset;
+
+	private int[] mOriginal;
+	private int[] mPixels;
+
+	@Setup
+	public void setup() throws IOException {
+		mOriginal = new BufferedImagePixelBuffer(BenchmarkAssets.readImage(asset, density)).getPixels();
+		mPixels = new int[mOriginal.length];
+	}
+
+	private int[] reset() {
+		System.arraycopy(mOriginal, 0, mPixels, 0, mOriginal.length);
+		return mPixels;
+	}
+
+	@Benchmark
+	public int[] floatMath() {
+		int[] pixels = reset();
+		PixelUtils.processTintTransformationMap(pixels, BenchmarkAssets.TINT_COLOR);
+		return pixels;
+	}
+
+	@Benchmark
+	public int[] lookupTable() {
+		int[] pixels = reset();
+		TintTransformationTable.forColor(BenchmarkAssets.TINT_COLOR).apply(pixels);
+		return pixels;
+	}
+
+}
@@ -146,6 +146,12 @@ public class MainActivity extends AccentActivity {
                 intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
                 startActivity(intent);
                 return true;
+            case R.id.action_raster_cache_benchmark:
+                startActivity(new Intent(this, RasterCacheBenchmarkActivity.class));
+                return true;
+            case R.id.action_palette_swap_benchmark:
+                startActivity(new Intent(this, PaletteSwapBenchmarkActivity.class));
+                return true;
             default:
                 return super.onOptionsItemSelected(item);
         }
@@ -0,0 +1,135 @@
+package com.negusoft.holoaccent.example.activity;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
+import android.os.Bundle;
+import android.os.Debug;
+import android.util.Log;
+import android.widget.ScrollView;
+import android.widget.TextView;
+
+import com.negusoft.holoaccent.AccentPalette;
+import com.negusoft.holoaccent.AccentResources;
+import com.negusoft.holoaccent.activity.AccentActivity;
+import com.negusoft.holoaccent.example.R;
+import com.negusoft.holoaccent.example.model.ColorOverrideConfig;
+
+/**
+ * Measures the palette swap of the live palette mode: the time setPalette() takes
+ * to update the drawables of a list of rows, and the objects allocated by the
+ * first frame drawn afterwards, which should be none as nothing is replaced in
+ * draw().
+ * <br/><br/>
+ * The procedural drawables only resolve their colors again. The color filter
+ * ones are replaced: the first swap to a palette creates them, and the next ones
+ * find their states cached in the shared state of the palette, so both are shown.
+ */
+public class PaletteSwapBenchmarkActivity extends AccentActivity {
+
+    private static final String TAG = "PaletteSwapBenchmark";
+
+    private static final int ROWS = 50;
+    private static final int SIZE_PX = 128;
+    private static final int ROUNDS = 10;
+
+    /** Procedural, animated and color filter drawables. */
+    private static final int[] DRAWABLE_IDS = new int[] {
+        R.drawable.ha__ab_solid_pressed,
+        R.drawable.ha__ab_spinner_indicator,
+        R.drawable.ha__ab_underline_6,
+        R.drawable.ha__circle_pressed,
+        R.drawable.ha__contact_badge_normal,
+        R.drawable.ha__fastscroll_thumb_default,
+        R.drawable.ha__progressbar_indeterminate,
+        R.drawable.ha__btn_check_comp_on_focus_bitmap
+    };
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        TextView resultView = new TextView(this);
+        resultView.setTypeface(Typeface.MONOSPACE);
+        resultView.setTextIsSelectable(true);
+        ScrollView scrollView = new ScrollView(this);
+        scrollView.addView(resultView);
+        setContentView(scrollView);
+
+        AccentResources res = (AccentResources)getResources();
+        AccentPalette original = res.getPalette();
+        String table;
+        try {
+            table = measureSwaps(res, original);
+        } finally {
+            res.setPalette(original);
+        }
+
+        Log.i(TAG, table);
+        resultView.setText(table);
+    }
+
+    @Override
+    public int getOverrideAccentColor() {
+        return ColorOverrideConfig.getColor();
+    }
+
+    @Override
+    public void onInitAccentResources(AccentResources resources) {
+        resources.setLivePaletteEnabled(true);
+        resources.setColorFilterTintEnabled(true);
+    }
+
+    private String measureSwaps(AccentResources res, AccentPalette original) {
+        Drawable[] rows = new Drawable[ROWS * DRAWABLE_IDS.length];
+        for (int i=0; i<rows.length; i++) {
+            rows[i] = res.getDrawable(DRAWABLE_IDS[i % DRAWABLE_IDS.length]);
+            rows[i].setBounds(0, 0, SIZE_PX, SIZE_PX);
+        }
+
+        AccentPalette[] palettes = new AccentPalette[] {
+                new AccentPalette(Color.RED), new AccentPalette(Color.GREEN), original };
+
+        StringBuilder table = new StringBuilder(String.format("%d drawables%n%-8s %-6s %10s %12s %14s%n",
+                rows.length, "Round", "Color", "Swap ms", "us/drawable", "Frame allocs"));
+        Bitmap bitmap = Bitmap.createBitmap(SIZE_PX, SIZE_PX, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        int failures = 0;
+        try {
+            drawRows(canvas, rows);
+            for (int round=0; round<ROUNDS; round++) {
+                for (AccentPalette palette : palettes) {
+                    long start = System.nanoTime();
+                    res.setPalette(palette);
+                    long elapsed = System.nanoTime() - start;
+
+                    Debug.startAllocCounting();
+                    Debug.resetThreadAllocCount();
+                    drawRows(canvas, rows);
+                    int allocations = Debug.getThreadAllocCount();
+                    Debug.stopAllocCounting();
+                    if (allocations > 0)
+                        failures++;
+
+                    table.append(String.format("%-8d %06X %10.2f %12.2f %14d%n",
+                            round, palette.accentColor & 0xFFFFFF, elapsed / 1e6f,
+                            elapsed / 1e3f / rows.length, allocations));
+                }
+            }
+        } finally {
+            bitmap.recycle();
+        }
+
+        setTitle(failures == 0 ? "No allocations after the swaps"
+                : failures + " frames allocate after a swap");
+        return table.toString();
+    }
+
+    private void drawRows(Canvas canvas, Drawable[] rows) {
+        for (Drawable row : rows)
+            row.draw(canvas);
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.negusoft.holoaccent.example.activity;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
+import android.os.Bundle;
+import android.util.DisplayMetrics;
+import android.util.Log;
+import android.widget.ScrollView;
+import android.widget.TextView;
+
+import com.negusoft.holoaccent.AccentHelper;
+import com.negusoft.holoaccent.AccentPalette;
+import com.negusoft.holoaccent.activity.AccentActivity;
+import com.negusoft.holoaccent.drawable.CircleDrawable;
+import com.negusoft.holoaccent.drawable.ContactBadgeDrawable;
+import com.negusoft.holoaccent.drawable.RasterCache;
+import com.negusoft.holoaccent.drawable.ScrubberControlSelectorDrawable;
+import com.negusoft.holoaccent.drawable.SpinnerDrawable;
+import com.negusoft.holoaccent.example.model.ColorOverrideConfig;
+
+/**
+ * Measures the time it takes to draw the drawables that can be rasterized by
+ * RasterCache, with the cache disabled and enabled. Each drawable is drawn as
+ * the rows of a list would: many instances created from the same state.
+ * <br/><br/>
+ * It draws into an offscreen (software) canvas, so the numbers are meant to be
+ * compared with each other rather than with the frame time of a real list.
+ */
+public class RasterCacheBenchmarkActivity extends AccentActivity {
+
+    private static final String TAG = "RasterCacheBenchmark";
+
+    private static final int ROWS = 50;
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int MEASURED_ITERATIONS = 200;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        TextView resultView = new TextView(this);
+        resultView.setTypeface(Typeface.MONOSPACE);
+        resultView.setTextIsSelectable(true);
+        ScrollView scrollView = new ScrollView(this);
+        scrollView.addView(resultView);
+        setContentView(scrollView);
+
+        int previousMaxSize = RasterCache.getMaxSize();
+        StringBuilder table = new StringBuilder(
+                String.format("%-32s %10s %10s %8s%n", "Class", "Direct us", "Cached us", "Speedup"));
+        try {
+            measureDrawables(table);
+        } finally {
+            RasterCache.setMaxSize(previousMaxSize);
+        }
+
+        Log.i(TAG, table.toString());
+        resultView.setText(table);
+    }
+
+    @Override
+    public int getOverrideAccentColor() {
+        return ColorOverrideConfig.getColor();
+    }
+
+    private void measureDrawables(StringBuilder table) {
+        Resources res = getResources();
+        DisplayMetrics metrics = res.getDisplayMetrics();
+        AccentPalette palette = AccentHelper.getPalette(this);
+        int color = palette == null ? Color.RED : palette.accentColor;
+        if (palette == null)
+            palette = new AccentPalette(color);
+
+        measure(table, new CircleDrawable(res, 14f, color, 1f, Color.WHITE), 32f);
+        measure(table, new ContactBadgeDrawable(res, Color.TRANSPARENT, 1f, color, color, Color.WHITE), 64f);
+        measure(table, new ScrubberControlSelectorDrawable(metrics, palette,
+                ScrubberControlSelectorDrawable.SelectorType.PRESSED), 32f);
+        measure(table, new SpinnerDrawable(res, color, SpinnerDrawable.Type.DEFAULT), 48f);
+    }
+
+    private void measure(StringBuilder table, Drawable drawable, float sizeDp) {
+        int size = (int)(sizeDp * getResources().getDisplayMetrics().density);
+        Drawable[] rows = new Drawable[ROWS];
+        for (int i=0; i<ROWS; i++) {
+            rows[i] = drawable.getConstantState().newDrawable();
+            rows[i].setBounds(0, 0, size, size);
+        }
+
+        // The spinner arrow is drawn outside its bounds, so leave some room around them
+        Bitmap bitmap = Bitmap.createBitmap(size * 2, size * 2, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        canvas.translate(size / 2, size / 2);
+        try {
+            RasterCache.setMaxSize(0);
+            float direct = timePerDraw(canvas, rows);
+            RasterCache.setMaxSize(RasterCache.DEFAULT_MAX_SIZE_BYTES);
+            float cached = timePerDraw(canvas, rows);
+            table.append(String.format("%-32s %10.2f %10.2f %7.1fx%n",
+                    drawable.getClass().getSimpleName(), direct, cached, direct / cached));
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    /** @return The average time to draw one of the rows in microseconds. */
+    private float timePerDraw(Canvas canvas, Drawable[] rows) {
+        for (int i=0; i<WARMUP_ITERATIONS; i++)
+            drawRows(canvas, rows);
+
+        long start = System.nanoTime();
+        for (int i=0; i<MEASURED_ITERATIONS; i++)
+            drawRows(canvas, rows);
+        long elapsed = System.nanoTime() - start;
+        return elapsed / 1000f / (MEASURED_ITERATIONS * rows.length);
+    }
+
+    private void drawRows(Canvas canvas, Drawable[] rows) {
+        for (Drawable row : rows)
+            row.draw(canvas);
+    }
+
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.content.res.Configuration;
+
+import com.negusoft.holoaccent.test.ConcurrentTasks;
+
+/** Concurrent AccentSharedState.obtain() calls, as done by activities created on several threads. */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class AccentSharedStateStressTest {
+
+	private static final int THREADS = 8;
+
+	/** Fewer than the states that are kept, so none of them is evicted. */
+	private static final int[] COLORS = new int[] { 0xFF112233, 0xFF445566, 0xFF778899 };
+	private static final int DENSITY = 320;
+	private static final int LAYOUT_DIRECTION = Configuration.SCREENLAYOUT_LAYOUTDIR_LTR;
+
+	@Test
+	public void samePaletteGetsOneState() throws Exception {
+		for (int round=0; round<20; round++) {
+			final int density = DENSITY + round;
+			final AtomicReferenceArray<AccentSharedState> states =
+					new AtomicReferenceArray<AccentSharedState>(COLORS.length);
+
+			new ConcurrentTasks().add(THREADS, new ConcurrentTasks.Task() {
+				@Override
+				public void run(int index) throws Exception {
+					Random random = new Random(index);
+					for (int i=0; i<500; i++) {
+						int colorIndex = random.nextInt(COLORS.length);
+						// A new palette every time, as every activity reads its own
+						AccentPalette palette = new AccentPalette(COLORS[colorIndex]);
+						AccentSharedState state = AccentSharedState.obtain(palette, density, LAYOUT_DIRECTION);
+						assertEquals(palette.accentColor, state.palette.accentColor);
+						if (!states.compareAndSet(colorIndex, null, state))
+							assertSame(states.get(colorIndex), state);
+					}
+				}
+			}).run();
+
+			for (int i=0; i<COLORS.length; i++) {
+				AccentSharedState state = states.get(i);
+				assertSame(state, AccentSharedState.obtain(new AccentPalette(COLORS[i]), density, LAYOUT_DIRECTION));
+				for (int j=i+1; j<COLORS.length; j++)
+					assertNotSame(state, states.get(j));
+			}
+		}
+	}
+
+	@Test
+	public void layoutDirectionGetsItsOwnState() {
+		AccentPalette palette = new AccentPalette(COLORS[0]);
+		AccentSharedState ltr = AccentSharedState.obtain(palette, DENSITY, Configuration.SCREENLAYOUT_LAYOUTDIR_LTR);
+		AccentSharedState rtl = AccentSharedState.obtain(palette, DENSITY, Configuration.SCREENLAYOUT_LAYOUTDIR_RTL);
+		assertNotSame(ltr, rtl);
+		assertSame(rtl, AccentSharedState.obtain(palette, DENSITY, Configuration.SCREENLAYOUT_LAYOUTDIR_RTL));
+	}
+
+}
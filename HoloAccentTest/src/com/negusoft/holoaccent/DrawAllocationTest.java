@@ -0,0 +1,362 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Modifier;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
+import android.util.DisplayMetrics;
+
+import com.negusoft.holoaccent.drawable.ActionBarBackgroundDrawable;
+import com.negusoft.holoaccent.drawable.CircleDrawable;
+import com.negusoft.holoaccent.drawable.ContactBadgeDrawable;
+import com.negusoft.holoaccent.drawable.FastScrollDrawable;
+import com.negusoft.holoaccent.drawable.IndeterminedProgressAnimatedDrawable;
+import com.negusoft.holoaccent.drawable.IndeterminedProgressDrawable;
+import com.negusoft.holoaccent.drawable.IndeterminedProgressLegacyDrawable;
+import com.negusoft.holoaccent.drawable.PaletteColorDrawable;
+import com.negusoft.holoaccent.drawable.RectDrawable;
+import com.negusoft.holoaccent.drawable.RoundRectDrawable;
+import com.negusoft.holoaccent.drawable.ScrubberControlSelectorDrawable;
+import com.negusoft.holoaccent.drawable.ScrubberProgressDrawable;
+import com.negusoft.holoaccent.drawable.SearchViewDrawable;
+import com.negusoft.holoaccent.drawable.SpinnerDrawable;
+import com.negusoft.holoaccent.drawable.ToggleForegroundDrawable;
+import com.negusoft.holoaccent.drawable.UnderlineDrawable;
+
+/**
+ * Draws every drawable of the library repeatedly into an offscreen canvas and
+ * measures the bytes allocated by the drawing thread, with the HotSpot
+ * ThreadMXBean. The first frames are not counted, so lazy initialization doesn't
+ * show up as a regression.
+ * <br/><br/>
+ * The classes are found next to the library classes, so a new drawable without an
+ * instance in create() fails the test instead of being skipped.
+ * <br/><br/>
+ * The calls to the shadowed framework methods (like Paint.setColor()) allocate on
+ * Robolectric but not on the device, so the ones each draw() makes are listed in
+ * getShadowedCalls(). They are measured on their own, and the frames of the
+ * drawable may allocate that much. The canvas ignores what is drawn for the same
+ * reason. The JVM runs without escape analysis (-XX:-DoEscapeAnalysis, set in
+ * build.gradle), which would remove some of the allocations the device makes.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class DrawAllocationTest {
+
+	private static final String DRAWABLE_PACKAGE = "com.negusoft.holoaccent.drawable";
+
+	private static final int SIZE_PX = 256;
+	private static final int WARMUP_FRAMES = 2000;
+	private static final int MEASURED_FRAMES = 1000;
+	private static final int MEASURED_ROUNDS = 3;
+
+	private static final com.sun.management.ThreadMXBean THREADS =
+			(com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+	private Resources mResources;
+	private AccentPalette mPalette;
+
+	@Before
+	public void setUp() {
+		mResources = Robolectric.application.getResources();
+		mPalette = new AccentPalette(0xFF33B5E5);
+	}
+
+	@Test
+	public void everyDrawableCanBeCreated() throws Exception {
+		List<String> missing = new ArrayList<String>();
+		for (Class<?> drawableClass : findDrawableClasses()) {
+			if (create(drawableClass) == null)
+				missing.add(drawableClass.getName());
+		}
+		assertTrue("Add an instance to DrawAllocationTest.create() for: " + missing, missing.isEmpty());
+	}
+
+	@Test
+	public void drawDoesNotAllocate() throws Exception {
+		StringBuilder table = new StringBuilder(String.format("%-38s %12s %12s  %s%n",
+				"Class", "Bytes/frame", "Shadowed", "Result"));
+		int failureCount = 0;
+		for (Class<?> drawableClass : findDrawableClasses()) {
+			Drawable drawable = create(drawableClass);
+			if (drawable == null)
+				continue;
+			float bytes = measureDraw(drawable);
+			float shadowed = 0f;
+			for (Runnable call : getShadowedCalls(drawable))
+				shadowed += measure(call);
+			boolean failed = bytes > shadowed;
+			if (failed)
+				failureCount++;
+			table.append(String.format("%-38s %12.2f %12.2f  %s%n",
+					drawableClass.getSimpleName(), bytes, shadowed, failed ? "FAIL" : "ok"));
+		}
+
+		System.out.println(table);
+		assertEquals("Drawables allocating in draw():\n" + table, 0, failureCount);
+	}
+
+	/** @return The public concrete drawables in DRAWABLE_PACKAGE, sorted by name. */
+	private static List<Class<?>> findDrawableClasses() throws IOException, ClassNotFoundException, URISyntaxException {
+		// Robolectric's class loader doesn't keep the code source, so the classes
+		// are found next to the resource of a known one
+		String path = DRAWABLE_PACKAGE.replace('.', '/');
+		URL location = DrawAllocationTest.class.getClassLoader().getResource(path + "/RectDrawable.class");
+		List<String> names = new ArrayList<String>();
+		if ("jar".equals(location.getProtocol())) {
+			JarFile jar = ((JarURLConnection)location.openConnection()).getJarFile();
+			Enumeration<JarEntry> entries = jar.entries();
+			while (entries.hasMoreElements()) {
+				String name = entries.nextElement().getName();
+				if (name.startsWith(path + "/") && name.indexOf('/', path.length() + 1) < 0)
+					names.add(name);
+			}
+		} else {
+			for (String file : new File(location.toURI()).getParentFile().list())
+				names.add(path + "/" + file);
+		}
+		Collections.sort(names);
+
+		List<Class<?>> result = new ArrayList<Class<?>>();
+		for (String name : names) {
+			if (!name.endsWith(".class") || name.contains("$"))
+				continue;
+			String className = name.substring(0, name.length() - ".class".length()).replace('/', '.');
+			Class<?> entryClass = Class.forName(className, false, DrawAllocationTest.class.getClassLoader());
+			int modifiers = entryClass.getModifiers();
+			if (Modifier.isPublic(modifiers) && !Modifier.isAbstract(modifiers)
+					&& Drawable.class.isAssignableFrom(entryClass))
+				result.add(entryClass);
+		}
+		assertFalse("No drawables found in " + location, result.isEmpty());
+		return result;
+	}
+
+	/** @return An instance of the class to be drawn, or null if it is unknown. */
+	private Drawable create(Class<?> drawableClass) {
+		Resources res = mResources;
+		DisplayMetrics metrics = res.getDisplayMetrics();
+		AccentPalette palette = mPalette;
+		PaletteColor accent = PaletteColor.accent();
+		PaletteColor white = PaletteColor.fixed(Color.WHITE);
+
+		if (drawableClass == ActionBarBackgroundDrawable.class)
+			return new ActionBarBackgroundDrawable(res, Color.BLACK, palette.accentColor, 2f, false);
+		if (drawableClass == CircleDrawable.class)
+			return new CircleDrawable(res, palette, 8f, accent, 1f, white);
+		if (drawableClass == ContactBadgeDrawable.class)
+			return new ContactBadgeDrawable(res, palette, PaletteColor.TRANSPARENT, 1f, accent, accent, white);
+		if (drawableClass == FastScrollDrawable.class)
+			return new FastScrollDrawable(metrics, palette, false);
+		if (drawableClass == IndeterminedProgressAnimatedDrawable.class)
+			return new IndeterminedProgressAnimatedDrawable(res, palette, accent);
+		if (drawableClass == IndeterminedProgressDrawable.class)
+			return new IndeterminedProgressDrawable(res, palette, accent, 0, 20);
+		if (drawableClass == IndeterminedProgressLegacyDrawable.class)
+			return new IndeterminedProgressLegacyDrawable(res, palette, accent, 0);
+		if (drawableClass == PaletteColorDrawable.class)
+			return new PaletteColorDrawable(palette, accent);
+		if (drawableClass == RectDrawable.class)
+			return new RectDrawable(res, palette, accent, 1f, white);
+		if (drawableClass == RoundRectDrawable.class)
+			return new RoundRectDrawable(metrics, palette, accent, 1f, white, 4f);
+		if (drawableClass == ScrubberControlSelectorDrawable.class)
+			return new ScrubberControlSelectorDrawable(metrics, palette,
+					ScrubberControlSelectorDrawable.SelectorType.PRESSED);
+		if (drawableClass == ScrubberProgressDrawable.class)
+			return new ScrubberProgressDrawable(metrics, palette);
+		if (drawableClass == SearchViewDrawable.class)
+			return new SearchViewDrawable(metrics, palette, accent);
+		if (drawableClass == SpinnerDrawable.class)
+			return new SpinnerDrawable(res, palette.accentColor, SpinnerDrawable.Type.DEFAULT);
+		if (drawableClass == ToggleForegroundDrawable.class)
+			return new ToggleForegroundDrawable(res, palette, accent);
+		if (drawableClass == UnderlineDrawable.class)
+			return new UnderlineDrawable(res, palette, accent, 2f, false);
+
+		return null;
+	}
+
+	private static float measureDraw(final Drawable drawable) {
+		drawable.setBounds(0, 0, SIZE_PX, SIZE_PX);
+		drawable.setLevel(5000);
+		final Canvas canvas = new DiscardingCanvas();
+		return measure(new Runnable() {
+			@Override
+			public void run() {
+				drawable.draw(canvas);
+			}
+		});
+	}
+
+	/** @return The calls to shadowed framework methods draw() makes on every frame. */
+	private Runnable[] getShadowedCalls(final Drawable drawable) {
+		// ColorDrawable.draw() sets the color of its paint
+		if (drawable instanceof PaletteColorDrawable) {
+			final Paint paint = new Paint();
+			return new Runnable[] { new Runnable() {
+				@Override
+				public void run() {
+					paint.setColor(mPalette.accentColor);
+				}
+			}};
+		}
+		// The animation reads the time and invalidates itself for the next frame
+		if (drawable instanceof IndeterminedProgressAnimatedDrawable) {
+			return new Runnable[] { new Runnable() {
+				@Override
+				public void run() {
+					SystemClock.uptimeMillis();
+				}
+			}, new Runnable() {
+				@Override
+				public void run() {
+					drawable.invalidateSelf();
+				}
+			}};
+		}
+		return new Runnable[0];
+	}
+
+	/**
+	 * @return The bytes allocated per frame once the warmup frames are drawn. The 
+	 * lowest of a few rounds, so a one-off allocation (like a class being loaded by 
+	 * Robolectric) is not counted.
+	 */
+	private static float measure(Runnable frame) {
+		for (int i=0; i<WARMUP_FRAMES; i++)
+			frame.run();
+
+		long threadId = Thread.currentThread().getId();
+		long result = Long.MAX_VALUE;
+		for (int round=0; round<MEASURED_ROUNDS; round++) {
+			long start = THREADS.getThreadAllocatedBytes(threadId);
+			for (int i=0; i<MEASURED_FRAMES; i++)
+				frame.run();
+			result = Math.min(result, THREADS.getThreadAllocatedBytes(threadId) - start);
+		}
+		return result / (float)MEASURED_FRAMES;
+	}
+
+	/**
+	 * A canvas that ignores what is drawn. ShadowCanvas records every call to
+	 * describe the result, which allocates on each frame; the framework draws
+	 * without allocating on the device, so only the calls of draw() itself are
+	 * measured.
+	 */
+	private static class DiscardingCanvas extends Canvas {
+
+		@Override
+		public int getWidth() {
+			return SIZE_PX;
+		}
+
+		@Override
+		public int getHeight() {
+			return SIZE_PX;
+		}
+
+		@Override
+		public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+		}
+
+		@Override
+		public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+		}
+
+		@Override
+		public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+		}
+
+		@Override
+		public void drawCircle(float cx, float cy, float radius, Paint paint) {
+		}
+
+		@Override
+		public void drawColor(int color) {
+		}
+
+		@Override
+		public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+		}
+
+		@Override
+		public void drawLines(float[] pts, Paint paint) {
+		}
+
+		@Override
+		public void drawOval(RectF oval, Paint paint) {
+		}
+
+		@Override
+		public void drawPaint(Paint paint) {
+		}
+
+		@Override
+		public void drawPath(Path path, Paint paint) {
+		}
+
+		@Override
+		public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+		}
+
+		@Override
+		public void drawRect(Rect r, Paint paint) {
+		}
+
+		@Override
+		public void drawRect(RectF rect, Paint paint) {
+		}
+
+		@Override
+		public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+		}
+	}
+
+}
@@ -0,0 +1,248 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.PixelFormat;
+import android.graphics.drawable.Drawable;
+
+import com.negusoft.holoaccent.AccentResources.IdentifiedInterceptor;
+import com.negusoft.holoaccent.test.ConcurrentTasks;
+
+/**
+ * Concurrent getDrawable() calls while interceptors are being added, which replaces
+ * the snapshot the readers are using and the drawable states they are caching.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class DrawableInterceptorsStressTest {
+
+	private static final int READERS = 6;
+	private static final int WRITERS = 2;
+
+	@Test
+	public void addedInterceptorsAreNeverLost() throws Exception {
+		final int interceptorsPerWriter = 200;
+		final DrawableInterceptors interceptors = new DrawableInterceptors();
+		// The number of interceptors each writer has completely added
+		final AtomicIntegerArray added = new AtomicIntegerArray(WRITERS);
+		final AtomicInteger writersDone = new AtomicInteger();
+
+		new ConcurrentTasks().add(WRITERS, new ConcurrentTasks.Task() {
+			@Override
+			public void run(int index) throws Exception {
+				for (int i=0; i<interceptorsPerWriter; i++) {
+					int id = getId(index, i);
+					TestInterceptor interceptor = new TestInterceptor("writer" + id, id);
+					if (i % 2 == 0)
+						interceptors.add(interceptor);
+					else
+						interceptors.addFirst(interceptor);
+					added.set(index, i + 1);
+				}
+				writersDone.incrementAndGet();
+			}
+		}).add(READERS, new ConcurrentTasks.Task() {
+			@Override
+			public void run(int index) throws Exception {
+				Random random = new Random(index);
+				while (writersDone.get() < WRITERS) {
+					int writer = random.nextInt(WRITERS);
+					int count = added.get(writer);
+					if (count == 0)
+						continue;
+					// Any interceptor added before the request must be found
+					int id = getId(writer, random.nextInt(count));
+					assertSource("writer" + id, interceptors.getDrawable(null, null, id));
+				}
+			}
+		}).run();
+
+		for (int writer=0; writer<WRITERS; writer++) {
+			for (int i=0; i<interceptorsPerWriter; i++) {
+				int id = getId(writer, i);
+				assertSource("writer" + id, interceptors.getDrawable(null, null, id));
+			}
+		}
+		assertEquals(WRITERS * interceptorsPerWriter, interceptors.getDrawableIds().length);
+	}
+
+	@Test
+	public void cachedStateDoesNotHideAddedInterceptor() throws Exception {
+		final int id = 1;
+		for (int round=0; round<100; round++) {
+			final DrawableInterceptors interceptors = new DrawableInterceptors();
+			interceptors.add(new TestInterceptor("default", id));
+			final TestInterceptor custom = new TestInterceptor("custom", id);
+			final AtomicInteger addedFirst = new AtomicInteger();
+
+			new ConcurrentTasks().add(1, new ConcurrentTasks.Task() {
+				@Override
+				public void run(int index) throws Exception {
+					// Let the readers cache the state of the default one
+					Thread.sleep(1);
+					interceptors.addFirst(custom);
+					addedFirst.set(1);
+				}
+			}).add(READERS, new ConcurrentTasks.Task() {
+				@Override
+				public void run(int index) throws Exception {
+					for (int i=0; i<2000; i++) {
+						boolean added = addedFirst.get() == 1;
+						Drawable result = interceptors.getDrawable(null, null, id);
+						// A state cached from the previous snapshot must not be used anymore
+						if (added)
+							assertSource("custom", result);
+						else
+							assertNotNull(result);
+					}
+				}
+			}).run();
+
+			assertSource("custom", interceptors.getDrawable(null, null, id));
+		}
+	}
+
+	@Test
+	public void statesAreCachedOncePerSnapshot() throws Exception {
+		final int ids = 50;
+		final int requestsPerReader = 5000;
+		final DrawableInterceptors interceptors = new DrawableInterceptors();
+		final TestInterceptor[] cached = new TestInterceptor[ids];
+		for (int i=0; i<ids; i++) {
+			cached[i] = new TestInterceptor("cached" + i, i + 1);
+			interceptors.add(cached[i]);
+		}
+		final TestInterceptor uncached = new TestInterceptor("uncached", ids + 1);
+		interceptors.addUncached(uncached);
+
+		new ConcurrentTasks().add(READERS, new ConcurrentTasks.Task() {
+			@Override
+			public void run(int index) throws Exception {
+				Random random = new Random(index);
+				for (int i=0; i<requestsPerReader; i++) {
+					int id = 1 + random.nextInt(ids + 1);
+					String expected = id == ids + 1 ? "uncached" : "cached" + (id - 1);
+					assertSource(expected, interceptors.getDrawable(null, null, id));
+				}
+			}
+		}).run();
+
+		// Each reader can miss a state at most once, until it sees the snapshot with it
+		for (TestInterceptor interceptor : cached) {
+			int calls = interceptor.calls.get();
+			assertTrue(interceptor.name + " called " + calls + " times", calls >= 1 && calls <= READERS);
+		}
+		int uncachedRequests = 0;
+		for (int index=0; index<READERS; index++) {
+			Random random = new Random(index);
+			for (int i=0; i<requestsPerReader; i++) {
+				if (1 + random.nextInt(ids + 1) == ids + 1)
+					uncachedRequests++;
+			}
+		}
+		assertEquals(uncachedRequests, uncached.calls.get());
+	}
+
+	private static int getId(int writer, int index) {
+		return 1 + writer * 10000 + index;
+	}
+
+	private static void assertSource(String expected, Drawable drawable) {
+		assertNotNull("No drawable, expected one from " + expected, drawable);
+		assertEquals(expected, ((TestDrawable)drawable).source);
+	}
+
+	/** Returns a TestDrawable for the ids it declares, counting the calls. */
+	private static class TestInterceptor implements IdentifiedInterceptor {
+
+		final String name;
+		final int[] ids;
+		final AtomicInteger calls = new AtomicInteger();
+
+		TestInterceptor(String name, int... ids) {
+			this.name = name;
+			this.ids = ids;
+		}
+
+		@Override
+		public int[] getDrawableIds() {
+			return ids;
+		}
+
+		@Override
+		public Drawable getDrawable(Resources res, AccentPalette palette, int resId) {
+			calls.incrementAndGet();
+			return Arrays.binarySearch(ids, resId) >= 0 ? new TestDrawable(name) : null;
+		}
+	}
+
+	/** A drawable that tells the interceptor it comes from. Copies keep it. */
+	private static class TestDrawable extends Drawable {
+
+		final String source;
+
+		TestDrawable(String source) {
+			this.source = source;
+		}
+
+		@Override
+		public void draw(Canvas canvas) { }
+
+		@Override
+		public void setAlpha(int alpha) { }
+
+		@Override
+		public void setColorFilter(ColorFilter cf) { }
+
+		@Override
+		public int getOpacity() {
+			return PixelFormat.TRANSLUCENT;
+		}
+
+		@Override
+		public ConstantState getConstantState() {
+			return new ConstantState() {
+				@Override
+				public Drawable newDrawable() {
+					return new TestDrawable(source);
+				}
+
+				@Override
+				public int getChangingConfigurations() {
+					return 0;
+				}
+			};
+		}
+	}
+
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs tasks on several threads at once for the stress tests. The threads wait for
+ * each other before starting, so the tasks overlap as much as possible. The first
+ * failure of any of them is thrown by run(), so the assertions can be made inside
+ * the tasks.
+ */
+public class ConcurrentTasks {
+
+	private static final long TIMEOUT_SECONDS = 60;
+
+	public interface Task {
+		/** @param index The index of the thread running it, from 0 to the thread count. */
+		public void run(int index) throws Exception;
+	}
+
+	private final List<Task> mTasks = new ArrayList<Task>();
+	private final List<Integer> mIndexes = new ArrayList<Integer>();
+
+	/** Run the task on 'threadCount' threads, each with its own index. */
+	public ConcurrentTasks add(int threadCount, Task task) {
+		for (int i=0; i<threadCount; i++) {
+			mTasks.add(task);
+			mIndexes.add(i);
+		}
+		return this;
+	}
+
+	/** Start every task at once and wait for all of them to finish. */
+	public void run() throws Exception {
+		int count = mTasks.size();
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch ready = new CountDownLatch(count);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+		Thread[] threads = new Thread[count];
+		for (int i=0; i<count; i++) {
+			final Task task = mTasks.get(i);
+			final int index = mIndexes.get(i);
+			threads[i] = new Thread("stress-" + i) {
+				@Override
+				public void run() {
+					ready.countDown();
+					try {
+						start.await();
+						task.run(index);
+					} catch (Throwable t) {
+						failure.compareAndSet(null, t);
+					}
+				}
+			};
+			threads[i].start();
+		}
+
+		ready.await();
+		start.countDown();
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+		for (Thread thread : threads) {
+			long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+			thread.join(Math.max(remaining, 1));
+			if (thread.isAlive())
+				throw new AssertionError("Timed out waiting for " + thread.getName());
+		}
+
+		Throwable t = failure.get();
+		if (t instanceof Exception)
+			throw (Exception)t;
+		if (t instanceof Error)
+			throw (Error)t;
+	}
+
+}
@@ -0,0 +1,272 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.util;
+
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Compares the PixelUtils kernels with the float math BitmapUtils had before
+ * they were moved there, which is reproduced below as LegacyBitmapUtils. Every
+ * RGB value is checked for a few tint colors, including the ones with equal
+ * components, and random pixels (with random alpha values) for random tints.
+ */
+public class PixelUtilsEquivalenceTest {
+
+	/** The pixels are checked in chunks, so the arrays stay small. */
+	private static final int CHUNK_SIZE = 1 << 16;
+	private static final int RGB_COUNT = 1 << 24;
+
+	private static final int RANDOM_TINTS = 200;
+	private static final int RANDOM_PIXELS = 4096;
+
+	/** The holo blue, orange, and colors with ties in the highest or lowest component. */
+	private static final int[] TINT_COLORS = new int[] {
+		0xFF33B5E5, 0xFFFF8800, 0xFF808080, 0xFF000000, 0xFFFFFFFF,
+		0xFF00FF00, 0xFFFFFF00, 0xFF0000FF, 0xFF4040C0, 0xFFC0C040
+	};
+
+	@Test
+	public void applyColorMatchesEveryPixel() {
+		for (int tint : TINT_COLORS) {
+			for (int start=0; start<RGB_COUNT; start+=CHUNK_SIZE) {
+				int[] pixels = createRgbChunk(start);
+				int[] expected = pixels.clone();
+				LegacyBitmapUtils.applyColor(expected, tint);
+				PixelUtils.applyColor(pixels, tint);
+				assertPixelsEqual("applyColor", tint, 0, expected, pixels);
+			}
+		}
+	}
+
+	@Test
+	public void changeTintColorMatchesEveryPixel() {
+		for (int original : TINT_COLORS) {
+			int destination = ~original | 0xFF000000;
+			for (int start=0; start<RGB_COUNT; start+=CHUNK_SIZE) {
+				int[] pixels = createRgbChunk(start);
+				int[] expected = pixels.clone();
+				LegacyBitmapUtils.changeTintColor(expected, original, destination);
+				PixelUtils.changeTintColor(pixels, original, destination);
+				assertPixelsEqual("changeTintColor", original, destination, expected, pixels);
+			}
+		}
+	}
+
+	@Test
+	public void createTintTransformationMapMatchesEveryPixel() {
+		for (int tint : TINT_COLORS) {
+			for (int start=0; start<RGB_COUNT; start+=CHUNK_SIZE) {
+				int[] pixels = createRgbChunk(start);
+				int[] expected = pixels.clone();
+				LegacyBitmapUtils.createTintTransformationMap(expected, tint);
+				PixelUtils.createTintTransformationMap(pixels, tint);
+				assertPixelsEqual("createTintTransformationMap", tint, 0, expected, pixels);
+			}
+		}
+	}
+
+	@Test
+	public void kernelsMatchRandomTints() {
+		Random random = new Random(42);
+		for (int i=0; i<RANDOM_TINTS; i++) {
+			int tint = random.nextInt() | 0xFF000000;
+			int destination = random.nextInt() | 0xFF000000;
+			int[] source = new int[RANDOM_PIXELS];
+			for (int j=0; j<source.length; j++)
+				source[j] = random.nextInt();
+
+			int[] expected = source.clone();
+			int[] pixels = source.clone();
+			LegacyBitmapUtils.applyColor(expected, tint);
+			PixelUtils.applyColor(pixels, tint);
+			assertPixelsEqual("applyColor", tint, 0, expected, pixels);
+
+			expected = source.clone();
+			pixels = source.clone();
+			LegacyBitmapUtils.changeTintColor(expected, tint, destination);
+			PixelUtils.changeTintColor(pixels, tint, destination);
+			assertPixelsEqual("changeTintColor", tint, destination, expected, pixels);
+
+			expected = source.clone();
+			pixels = source.clone();
+			LegacyBitmapUtils.createTintTransformationMap(expected, tint);
+			PixelUtils.createTintTransformationMap(pixels, tint);
+			assertPixelsEqual("createTintTransformationMap", tint, 0, expected, pixels);
+		}
+	}
+
+	@Test
+	public void rangeOverloadsOnlyModifyTheRange() {
+		Random random = new Random(7);
+		int[] source = new int[RANDOM_PIXELS];
+		for (int i=0; i<source.length; i++)
+			source[i] = random.nextInt();
+		int offset = 100;
+		int count = 1000;
+
+		int[] expected = source.clone();
+		int[] range = new int[count];
+		System.arraycopy(source, offset, range, 0, count);
+		LegacyBitmapUtils.changeTintColor(range, 0xFF33B5E5, 0xFFFF8800);
+		System.arraycopy(range, 0, expected, offset, count);
+
+		int[] pixels = source.clone();
+		PixelUtils.changeTintColor(pixels, offset, count, 0xFF33B5E5, 0xFFFF8800);
+		assertPixelsEqual("changeTintColor(offset, count)", 0xFF33B5E5, 0xFFFF8800, expected, pixels);
+	}
+
+	/** @return Every RGB value from 'start' on, with the alpha value changing too. */
+	private static int[] createRgbChunk(int start) {
+		int[] result = new int[CHUNK_SIZE];
+		for (int i=0; i<CHUNK_SIZE; i++) {
+			int rgb = start + i;
+			result[i] = ((rgb * 31) << 24) | rgb;
+		}
+		return result;
+	}
+
+	private static void assertPixelsEqual(String kernel, int color, int otherColor, int[] expected, int[] actual) {
+		for (int i=0; i<expected.length; i++) {
+			if (expected[i] != actual[i]) {
+				fail(String.format("%s(%08X, %08X) differs at %d: expected %08X, got %08X",
+						kernel, color, otherColor, i, expected[i], actual[i]));
+			}
+		}
+	}
+
+	/**
+	 * The pixel loops of BitmapUtils before they were moved to PixelUtils, with the
+	 * Bitmap and Color calls replaced by plain arrays and bit operations.
+	 */
+	private static class LegacyBitmapUtils {
+
+		static void applyColor(int[] pixels, int accentColor) {
+			int r = red(accentColor);
+			int g = green(accentColor);
+			int b = blue(accentColor);
+
+			for (int i=0; i<pixels.length; i++) {
+				int color = pixels[i];
+				int alpha = alpha(color);
+				pixels[i] = argb(alpha, r, g, b);
+			}
+		}
+
+		static void changeTintColor(int[] pixels, int originalColor, int destinationColor) {
+			int[] o = new int[] { red(originalColor), green(originalColor), blue(originalColor) };
+			int[] d = new int[] { red(destinationColor), green(destinationColor), blue(destinationColor) };
+
+			int maxIndex = getMaxIndex(o);
+			int mintIndex = getMinIndex(o);
+
+			for (int i=0; i<pixels.length; i++) {
+				int color = pixels[i];
+				int[] p = new int[] { red(color), green(color), blue(color) };
+				int alpha = alpha(color);
+
+				float[] transformation = calculateTransformation(o[maxIndex], o[mintIndex], p[maxIndex], p[mintIndex]);
+				pixels[i] = applyTransformation(d, alpha, transformation);
+			}
+		}
+
+		static void createTintTransformationMap(int[] pixels, int tintColor) {
+			int[] t = new int[] { red(tintColor), green(tintColor), blue(tintColor) };
+
+			int maxIndex = getMaxIndex(t);
+			int mintIndex = getMinIndex(t);
+
+			for (int i=0; i<pixels.length; i++) {
+				int color = pixels[i];
+				int[] p = new int[] { red(color), green(color), blue(color) };
+				int alpha = alpha(color);
+
+				float[] transformation = calculateTransformation(t[maxIndex], t[mintIndex], p[maxIndex], p[mintIndex]);
+				pixels[i] = argb(alpha, (int)(transformation[0]*255), (int)(transformation[1]*255), 0);
+			}
+		}
+
+		private static int getMaxIndex(int[] values) {
+			int result = 0;
+			for (int i=1; i<values.length; i++) {
+				if (values[result] < values[i])
+					result = i;
+			}
+			return result;
+		}
+
+		private static int getMinIndex(int[] values) {
+			int result = 0;
+			for (int i=1; i<values.length; i++) {
+				if (values[result] > values[i])
+					result = i;
+			}
+			return result;
+		}
+
+		private static float[] calculateTransformation(int tintA, int tintB, int colorA, int colorB) {
+			float a = tintA / 255f;
+			float aP = tintB / 255f;
+			float b = colorA / 255f;
+			float bP = colorB / 255f;
+
+			float[] result = new float[2];
+			result[0] = (b-bP) / ((b*aP)+a-(bP*a)-aP);
+			result[1] = (bP-(aP*result[0])) / (1f-(aP*result[0]));
+
+			return result;
+		}
+
+		private static int applyTransformation(int[] tintComponents, int alpha, float[] transformation) {
+			return argb(
+					alpha,
+					(int)applyTransformation(tintComponents[0], transformation),
+					(int)applyTransformation(tintComponents[1], transformation),
+					(int)applyTransformation(tintComponents[2], transformation));
+		}
+
+		private static float applyTransformation(int colorComponent, float[] transformation) {
+			float firstStep = colorComponent*transformation[0];
+			return firstStep + ((255-firstStep) * transformation[1]);
+		}
+
+		// Same as the android.graphics.Color methods
+
+		private static int alpha(int color) {
+			return color >>> 24;
+		}
+
+		private static int red(int color) {
+			return (color >> 16) & 0xFF;
+		}
+
+		private static int green(int color) {
+			return (color >> 8) & 0xFF;
+		}
+
+		private static int blue(int color) {
+			return color & 0xFF;
+		}
+
+		private static int argb(int alpha, int red, int green, int blue) {
+			return (alpha << 24) | (red << 16) | (green << 8) | blue;
+		}
+	}
+
+}
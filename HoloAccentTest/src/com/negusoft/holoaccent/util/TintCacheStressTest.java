@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.junit.Test;
+
+import com.negusoft.holoaccent.test.ConcurrentTasks;
+
+/** Concurrent readers and loaders of TintCache. */
+public class TintCacheStressTest {
+
+	private static final int THREADS = 8;
+
+	/** The data of an entry, which tells the key it was loaded for. */
+	private static byte[] createData(int resId, int color, int density, int size) {
+		byte[] result = new byte[size];
+		for (int i=0; i<size; i++)
+			result[i] = (byte)(resId * 31 + color * 7 + density + i);
+		return result;
+	}
+
+	@Test
+	public void missingEntryIsLoadedOnce() throws Exception {
+		for (int round=0; round<50; round++) {
+			final TintCache cache = new TintCache();
+			final AtomicInteger loads = new AtomicInteger();
+			final AtomicReferenceArray<byte[]> results = new AtomicReferenceArray<byte[]>(THREADS);
+
+			new ConcurrentTasks().add(THREADS, new ConcurrentTasks.Task() {
+				@Override
+				public void run(int index) throws Exception {
+					results.set(index, cache.get(1, 2, 3, new TintCache.Loader() {
+						@Override
+						public byte[] load() {
+							loads.incrementAndGet();
+							// Give the other threads the time to ask for it too
+							sleep(5);
+							return createData(1, 2, 3, 64);
+						}
+					}));
+				}
+			}).run();
+
+			assertEquals(1, loads.get());
+			assertEquals(1, cache.missCount());
+			assertEquals(THREADS - 1, cache.hitCount());
+			for (int i=1; i<THREADS; i++)
+				assertSame(results.get(0), results.get(i));
+		}
+	}
+
+	@Test
+	public void differentEntriesLoadInParallel() throws Exception {
+		final TintCache cache = new TintCache();
+		final AtomicInteger loading = new AtomicInteger();
+		final AtomicInteger maxLoading = new AtomicInteger();
+
+		new ConcurrentTasks().add(THREADS, new ConcurrentTasks.Task() {
+			@Override
+			public void run(final int index) throws Exception {
+				cache.get(index, 0, 0, new TintCache.Loader() {
+					@Override
+					public byte[] load() {
+						int current = loading.incrementAndGet();
+						while (true) {
+							int max = maxLoading.get();
+							if (current <= max || maxLoading.compareAndSet(max, current))
+								break;
+						}
+						sleep(50);
+						loading.decrementAndGet();
+						return createData(index, 0, 0, 16);
+					}
+				});
+			}
+		}).run();
+
+		// A loader must not block the ones of other keys
+		assertTrue("Loads were serialized", maxLoading.get() > 1);
+		assertEquals(THREADS, cache.missCount());
+	}
+
+	@Test
+	public void failedLoadCanBeRetried() throws Exception {
+		final TintCache cache = new TintCache();
+		try {
+			cache.get(1, 2, 3, new TintCache.Loader() {
+				@Override
+				public byte[] load() {
+					throw new IllegalStateException("load failed");
+				}
+			});
+			fail();
+		} catch (IllegalStateException e) {
+			// Expected
+		}
+
+		final byte[] data = createData(1, 2, 3, 16);
+		final AtomicReferenceArray<byte[]> results = new AtomicReferenceArray<byte[]>(THREADS);
+		new ConcurrentTasks().add(THREADS, new ConcurrentTasks.Task() {
+			@Override
+			public void run(int index) throws Exception {
+				results.set(index, cache.get(1, 2, 3, new TintCache.Loader() {
+					@Override
+					public byte[] load() {
+						return data;
+					}
+				}));
+			}
+		}).run();
+
+		for (int i=0; i<THREADS; i++)
+			assertSame(data, results.get(i));
+	}
+
+	@Test
+	public void concurrentGetsWithEvictionKeepTheAccounting() throws Exception {
+		final int maxSize = 64 * 1024;
+		final int entrySize = 1024;
+		final TintCache cache = new TintCache(maxSize);
+		final AtomicInteger requests = new AtomicInteger();
+
+		new ConcurrentTasks().add(THREADS, new ConcurrentTasks.Task() {
+			@Override
+			public void run(int index) throws Exception {
+				Random random = new Random(index);
+				for (int i=0; i<5000; i++) {
+					final int resId = random.nextInt(200);
+					final int color = random.nextInt(3);
+					final int density = 160 * (1 + random.nextInt(2));
+					byte[] result = cache.get(resId, color, density, new TintCache.Loader() {
+						@Override
+						public byte[] load() {
+							return createData(resId, color, density, entrySize);
+						}
+					});
+					requests.incrementAndGet();
+					// Never the data of another key
+					assertArrayEquals(createData(resId, color, density, entrySize), result);
+					assertTrue(cache.size() <= maxSize);
+				}
+			}
+		}).run();
+
+		assertEquals(requests.get(), cache.hitCount() + cache.missCount());
+		assertTrue(cache.evictionCount() > 0);
+		assertEquals(0, cache.size() % entrySize);
+		cache.evictAll();
+		assertEquals(0, cache.size());
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+/**
+ * Compares TintTransformationTable with the float version in PixelUtils for
+ * every tint component and every pair of transformation factors.
+ */
+public class TintTransformationTableAccuracyTest {
+
+	private static final int FACTOR_PAIRS = 256 * 256;
+
+	/** The bound given in the TintTransformationTable documentation, in hundredths of a percent. */
+	private static final int MAX_DIFFERENT_BASIS_POINTS = 55;
+
+	@Test
+	public void differsByAtMostOne() {
+		int[] pixels = new int[FACTOR_PAIRS];
+		int[] expected = new int[FACTOR_PAIRS];
+		long different = 0;
+		long total = 0;
+
+		// The components don't affect each other, so a tint color with the same
+		// component in the three channels checks the three tables at once
+		for (int component=0; component<256; component++) {
+			int tintColor = 0xFF000000 | (component << 16) | (component << 8) | component;
+			for (int i=0; i<FACTOR_PAIRS; i++)
+				pixels[i] = ((i & 0xFF) << 24) | (i << 8);
+			System.arraycopy(pixels, 0, expected, 0, FACTOR_PAIRS);
+
+			PixelUtils.processTintTransformationMap(expected, tintColor);
+			TintTransformationTable.forColor(tintColor).apply(pixels);
+
+			for (int i=0; i<FACTOR_PAIRS; i++) {
+				assertEquals("alpha", expected[i] >>> 24, pixels[i] >>> 24);
+				for (int shift=0; shift<=16; shift+=8) {
+					int difference = ((expected[i] >> shift) & 0xFF) - ((pixels[i] >> shift) & 0xFF);
+					if (difference < -1 || difference > 1) {
+						fail(String.format("component %d, t0 %d, t1 %d: %08X instead of %08X",
+								component, i >> 8, i & 0xFF, pixels[i], expected[i]));
+					}
+					if (difference != 0)
+						different++;
+					total++;
+				}
+			}
+		}
+
+		double fraction = (double)different / total;
+		assertTrue(String.format("%.3f%% of the results differ", fraction * 100),
+				Math.round(fraction * 10000) <= MAX_DIFFERENT_BASIS_POINTS);
+	}
+
+}
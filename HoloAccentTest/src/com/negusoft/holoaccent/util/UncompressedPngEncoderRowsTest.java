@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright 2013 NEGU Soft
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.negusoft.holoaccent.util;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks that encoding the rows a band at a time, as AccentResources does with the
+ * decoded bitmaps, gives the same data as encoding the whole array. The sizes cover
+ * a single band, several bands with a partial last one, and rows wider than a band.
+ */
+public class UncompressedPngEncoderRowsTest {
+
+	private static final int TINT_COLOR = 0xFF33B5E5;
+
+	private static final int[][] SIZES = new int[][] {
+		{ 0, 0 }, { 1, 1 }, { 48, 48 }, { 100, 700 }, { 333, 97 },
+		{ UncompressedPngEncoder.BAND_PIXELS + 7, 3 }
+	};
+
+	private final Random mRandom = new Random(42);
+
+	@Test
+	public void encodeMatchesTheWholeArray() {
+		for (int[] size : SIZES) {
+			int[] pixels = createImage(size[0], size[1]);
+			assertArrayEquals(sizeName(size),
+					UncompressedPngEncoder.encode(pixels, size[0], size[1]),
+					UncompressedPngEncoder.encode(rowsOf(pixels, size[0], size[1])));
+		}
+	}
+
+	@Test
+	public void encodeAlphaMaskMatchesTheWholeArray() {
+		for (int[] size : SIZES) {
+			int[] pixels = createImage(size[0], size[1]);
+			assertArrayEquals(sizeName(size),
+					UncompressedPngEncoder.encodeAlphaMask(pixels, size[0], size[1]),
+					UncompressedPngEncoder.encodeAlphaMask(rowsOf(pixels, size[0], size[1])));
+		}
+	}
+
+	@Test
+	public void restrictedRowsMatchTheRestrictedKernel() {
+		PixelTiles.Kernel kernel = TintKernels.processTintTransformationMapKernel(TINT_COLOR);
+		for (int[] size : SIZES) {
+			int[] pixels = createImage(size[0], size[1]);
+			PixelRows rows = rowsOf(pixels.clone(), size[0], size[1]);
+			AlphaSpans spans = AlphaSpans.compute(rows);
+
+			ArrayPixelBuffer expected = new ArrayPixelBuffer(pixels, size[0], size[1]);
+			TintKernels.apply(expected, AlphaSpans.compute(expected).restrict(kernel), null);
+			assertArrayEquals(sizeName(size),
+					UncompressedPngEncoder.encode(expected),
+					UncompressedPngEncoder.encode(spans.restrict(rows, kernel)));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void restrictRejectsRowsOfAnotherSize() {
+		AlphaSpans spans = AlphaSpans.compute(rowsOf(createImage(48, 48), 48, 48));
+		spans.restrict(rowsOf(createImage(64, 64), 64, 64), TintKernels.processTintTransformationMapKernel(TINT_COLOR));
+	}
+
+	/** Random pixels surrounded by a transparent margin of random width on each row. */
+	private int[] createImage(int width, int height) {
+		int[] pixels = new int[width * height];
+		for (int y = 0; y < height; y++) {
+			int start = width == 0 ? 0 : mRandom.nextInt(width);
+			int end = start + mRandom.nextInt(width - start + 1);
+			for (int x = start; x < end; x++)
+				pixels[(y * width) + x] = mRandom.nextInt() | 0x01000000;
+		}
+		return pixels;
+	}
+
+	private static PixelRows rowsOf(final int[] pixels, final int width, final int height) {
+		return new PixelRows() {
+			@Override
+			public int getWidth() {
+				return width;
+			}
+
+			@Override
+			public int getHeight() {
+				return height;
+			}
+
+			@Override
+			public void readRows(int[] band, int firstRow, int rowCount) {
+				System.arraycopy(pixels, firstRow * width, band, 0, rowCount * width);
+			}
+		};
+	}
+
+	private static String sizeName(int[] size) {
+		return size[0] + "x" + size[1];
+	}
+
+}